@@ -0,0 +1,74 @@
+package main.bench;
+
+import main.lsea.Bike;
+import main.lsea.Car;
+import main.lsea.Frame;
+import main.lsea.LSEA;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic data of the benchmarks, the same values as in the main methods of the application (Test_i, Bikeos...).<br>
+ * Every list is generated from a fixed seed, so all runs and all releases measure the same data.
+ */
+final class BenchData {
+
+    /*** SEED -> seed of all generated data*/
+    static final long SEED = 42;
+
+    private BenchData() {}
+
+    /*** @return profiles with unique nicks in random order*/
+    static List<LSEA> profiles(int n) {
+        List<LSEA> profiles = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) profiles.add(new LSEA("user_" + i, "pass_" + i, "Name", "Surname", 18 + i % 60, 1000 + i));
+        Collections.shuffle(profiles, new Random(SEED));
+        return profiles;
+    }
+
+    /*** @return bikes with unique names in random order, owners are taken from profiles*/
+    static List<Bike> bikes(int n, List<LSEA> profiles) {
+        Random rand = new Random(SEED);
+        Frame[] frames = Frame.values();
+        List<Bike> bikes = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) {
+            bikes.add(new Bike("Test_" + i, "Bikeos", rand.nextInt(2), rand.nextInt(1000000) / 100f,
+                    rand.nextInt(100000) / 1000f, profiles.get(rand.nextInt(profiles.size())), rand.nextInt(2),
+                    1 + rand.nextInt(10), frames[rand.nextInt(frames.length)], rand.nextInt(2), rand.nextInt(2), rand.nextInt(2)));
+        }
+        Collections.shuffle(bikes, rand);
+        return bikes;
+    }
+
+    /*** @return cars with unique names in random order, owners are taken from profiles*/
+    static List<Car> cars(int n, List<LSEA> profiles) {
+        Random rand = new Random(SEED + 1);
+        List<Car> cars = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) {
+            cars.add(new Car("Test_" + i, "Carsos", rand.nextInt(2), rand.nextInt(1000000) / 100f,
+                    rand.nextInt(3000000) / 1000f, profiles.get(rand.nextInt(profiles.size())), rand.nextInt(2),
+                    1950 + rand.nextInt(70), 50 + rand.nextInt(500), 1 + rand.nextInt(8), "manual", "Poland"));
+        }
+        Collections.shuffle(cars, rand);
+        return cars;
+    }
+
+    /*** @return new temporary directory for files of one benchmark*/
+    static Path tempDir(String name) throws IOException {
+        return Files.createTempDirectory("olx-bench-" + name);
+    }
+
+    /*** deleting directory with files written by a benchmark*/
+    static void delete(Path dir) {
+        File[] files = dir.toFile().listFiles();
+        if(files != null) for(File f : files) f.delete();
+        dir.toFile().delete();
+    }
+}
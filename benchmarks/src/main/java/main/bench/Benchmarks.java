@@ -0,0 +1,28 @@
+package main.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of benchmarks.jar.<br>
+ * Takes the usual JMH command line, but results are written as JSON (jmh-result.json) unless other format is given
+ * with -rf, so results of releases can be compared by tools.
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if(cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if(!cmd.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        Runner runner = new Runner(options.build());
+        if(cmd.shouldList()) runner.list();
+        else runner.run();
+    }
+}
@@ -0,0 +1,126 @@
+package main.bench;
+
+import main.database.BikeFilter;
+import main.database.DB_Bike;
+import main.database.DB_Frame;
+import main.database.DB_Handling;
+import main.database.DB_Profile;
+import main.database.PersistenceUnits;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DB_Handling.deleteBikes by brand against embedded in-memory Derby (persistence unit DataBaseMemory).<br>
+ * Profiles and frames are loaded once from the data directory (system property bench.data, default ../data), rows
+ * of bikes are inserted once by JDBC batches (loading them through JPA would take most of the run). Bikes have
+ * BRANDS brands, one of them (1/BRANDS of the rows) is deleted in every iteration. Deleted rows are copied to the
+ * table BENCH_DELETED at the beginning and put back before every iteration, list of bikes in memory is restored too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class DerbyDeleteBenchmark {
+
+    /*** BRANDS -> number of brands of the bikes, DELETED -> brand deleted by the benchmark*/
+    static final int BRANDS = 10;
+    static final String DELETED = "Brand_3";
+
+    @Param({"1000000"})
+    public int rows;
+
+    private EntityManagerFactory eMF;
+    private EntityManager eM;
+    private Connection connection;
+    private DB_Handling db_H;
+    private List<DB_Bike> bikes;
+
+    @Setup
+    public void setup() throws SQLException {
+        eMF = PersistenceUnits.createMemory();
+        eM = eMF.createEntityManager();
+        db_H = new DB_Handling();
+        String data = System.getProperty("bench.data", "../data");
+        db_H.loadProfiles(data + "/profiles", eM);
+        db_H.loadFrames(data + "/frames", eM);
+        List<DB_Profile> profiles = eM.createQuery("select p from DB_Profile p", DB_Profile.class).getResultList();
+        List<DB_Frame> frames = eM.createQuery("select f from DB_Frame f", DB_Frame.class).getResultList();
+        eM.clear();
+
+        connection = DriverManager.getConnection((String) eMF.getProperties().get("javax.persistence.jdbc.url"));
+        connection.setAutoCommit(false);
+        Random rand = new Random(BenchData.SEED);
+        bikes = new ArrayList<>(rows);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO DB_Bike (id_bike, title, brand, "
+                + "is_auction, price, weight, account_id, is_available, gear, frame_frameID, are_lights, is_bell, "
+                + "are_breaks) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for(int i = 0; i < rows; i++) {
+                DB_Bike bike = new DB_Bike("Test_" + i, "Brand_" + rand.nextInt(BRANDS), rand.nextInt(2),
+                        rand.nextInt(1000000) / 100f, rand.nextInt(100000) / 1000f,
+                        profiles.get(rand.nextInt(profiles.size())), rand.nextInt(2), 1 + rand.nextInt(10),
+                        frames.get(rand.nextInt(frames.size())), rand.nextInt(2), rand.nextInt(2), rand.nextInt(2));
+                bike.setId_bike(i + 1);
+                bikes.add(bike);
+                insert.setInt(1, bike.getId_bike());
+                insert.setString(2, bike.getTitle());
+                insert.setString(3, bike.getBrand());
+                insert.setInt(4, bike.getIs_auction());
+                insert.setFloat(5, bike.getPrice());
+                insert.setFloat(6, bike.getWeight());
+                insert.setInt(7, bike.getAccount().getId());
+                insert.setInt(8, bike.getIs_available());
+                insert.setInt(9, bike.getGear());
+                insert.setInt(10, bike.getFrame().getFrameID());
+                insert.setInt(11, bike.getAre_lights());
+                insert.setInt(12, bike.getIs_bell());
+                insert.setInt(13, bike.getAre_breaks());
+                insert.addBatch();
+                if(i % 1000 == 999) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+        }
+        try (Statement s = connection.createStatement()) {
+            s.executeUpdate("CREATE TABLE BENCH_DELETED AS SELECT * FROM DB_Bike WITH NO DATA");
+            s.executeUpdate("INSERT INTO BENCH_DELETED SELECT * FROM DB_Bike WHERE brand = '" + DELETED + "'");
+        }
+        connection.commit();
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreBikes() throws SQLException {
+        try (Statement s = connection.createStatement()) {
+            s.executeUpdate("DELETE FROM DB_Bike WHERE brand = '" + DELETED + "'");
+            s.executeUpdate("INSERT INTO DB_Bike SELECT * FROM BENCH_DELETED");
+        }
+        connection.commit();
+        db_H.setDbB(new ArrayList<>(bikes));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        eM.close();
+        eMF.close();
+    }
+
+    @Benchmark
+    public int deleteByBrand() {
+        return db_H.deleteBikes(BikeFilter.ofBrand(DELETED), eM);
+    }
+}
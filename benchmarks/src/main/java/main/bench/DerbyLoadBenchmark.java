@@ -0,0 +1,88 @@
+package main.bench;
+
+import main.database.DB_Handling;
+import main.database.PersistenceUnits;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DB_Handling.loadBikes against embedded in-memory Derby (persistence unit DataBaseMemory).<br>
+ * Profiles and frames are loaded once from the data directory (system property bench.data, default ../data),
+ * bikes file with ids of these rows is generated. Table of bikes is emptied before every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DerbyLoadBenchmark {
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    /*** batchSize -> rows committed in one transaction (1 - per-row mode, like default DB_Handling)*/
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private Path dir;
+    private String bikes;
+    private EntityManagerFactory eMF;
+    private EntityManager eM;
+    private DB_Handling db_H;
+
+    @Setup
+    public void setup() throws IOException {
+        eMF = PersistenceUnits.createMemory();
+        eM = eMF.createEntityManager();
+        db_H = new DB_Handling();
+        String data = System.getProperty("bench.data", "../data");
+        db_H.loadProfiles(data + "/profiles", eM);
+        db_H.loadFrames(data + "/frames", eM);
+        List<Integer> profiles = eM.createQuery("select p.id from DB_Profile p", Integer.class).getResultList();
+        List<Integer> frames = eM.createQuery("select f.frameID from DB_Frame f", Integer.class).getResultList();
+
+        dir = BenchData.tempDir("derby");
+        bikes = dir.resolve("bikes").toString();
+        Random rand = new Random(BenchData.SEED);
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(bikes + ".txt"))) {
+            for(int i = 0; i < rows; i++) {
+                out.write("Test_" + i + "\nBikeos\n" + rand.nextInt(2) + "\n" + rand.nextInt(1000000) / 100f + "\n"
+                        + rand.nextInt(100000) / 1000f + "\n" + profiles.get(rand.nextInt(profiles.size())) + "\n"
+                        + rand.nextInt(2) + "\n" + (1 + rand.nextInt(10)) + "\n" + frames.get(rand.nextInt(frames.size()))
+                        + "\n" + rand.nextInt(2) + "\n" + rand.nextInt(2) + "\n" + rand.nextInt(2) + "\n");
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyBikes() {
+        eM.getTransaction().begin();
+        eM.createQuery("delete from DB_Bike").executeUpdate();
+        eM.getTransaction().commit();
+        eM.clear();
+        db_H.getDbB().clear();
+        db_H.setBatchSize(batchSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        eM.close();
+        eMF.close();
+        BenchData.delete(dir);
+    }
+
+    @Benchmark
+    public boolean loadBikes() {
+        return db_H.loadBikes(bikes, eM);
+    }
+}
@@ -0,0 +1,53 @@
+package main.bench;
+
+import main.lsea.CompactProfileCodec;
+import main.lsea.LSEA;
+import main.lsea.ProfileCodec;
+import main.lsea.SerializedProfileCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the profiles sent by TCP and UDP (Client_TCP.TCP_send, Client_UDP.send_UDP).<br>
+ * Time is measured for the whole batch, bytes per profile are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfileCodecBenchmark {
+
+    @Param({"compact", "serialized"})
+    public String codec;
+
+    @Param({"1", "100"})
+    public int batch;
+
+    private ProfileCodec c;
+    private List<LSEA> profiles;
+    private byte[] data;
+
+    @Setup
+    public void setup() throws IOException {
+        c = "compact".equals(codec) ? new CompactProfileCodec() : new SerializedProfileCodec();
+        profiles = BenchData.profiles(batch);
+        data = c.encode(profiles);
+        System.out.println();
+        System.out.println(codec + ": " + (double) data.length / batch + " bytes/profile");
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return c.encode(profiles);
+    }
+
+    @Benchmark
+    public List<LSEA> decode() throws IOException {
+        return c.decode(data, 0, data.length);
+    }
+}
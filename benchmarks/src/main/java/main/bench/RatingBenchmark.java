@@ -0,0 +1,103 @@
+package main.bench;
+
+import main.lsea.Bike;
+import main.lsea.BikeScoring;
+import main.threads.ALRates;
+import main.threads.RateArr;
+import main.threads.RatingEngine;
+import main.threads.ThreadOne;
+import main.threads.TopRates;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rating of the bikes: Bike.rateBikes, ThreadOne (lists A-E), RatingEngine, batch scoring and selection of best bikes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RatingBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private List<Bike> bikes;
+    private float[] price, weight;
+    private int[] gear, auction, lights, bell, breaks, scores;
+    private byte[] buckets;
+    private RatingEngine engine;
+
+    @Setup
+    public void setup() {
+        bikes = BenchData.bikes(size, BenchData.profiles(1000));
+        price = new float[size];
+        weight = new float[size];
+        gear = new int[size];
+        auction = new int[size];
+        lights = new int[size];
+        bell = new int[size];
+        breaks = new int[size];
+        scores = new int[size];
+        buckets = new byte[size];
+        for(int i = 0; i < size; i++) {
+            Bike b = bikes.get(i);
+            price[i] = b.getPrice();
+            weight[i] = b.getWeight();
+            gear[i] = b.getGear();
+            auction[i] = b.getIs_auction();
+            lights[i] = b.getAre_lights();
+            bell[i] = b.getIs_bell();
+            breaks[i] = b.getAre_breaks();
+        }
+        engine = new RatingEngine();
+    }
+
+    @Benchmark
+    public void rateBikes(Blackhole bh) {
+        for(Bike b : bikes) bh.consume(b.rateBikes());
+    }
+
+    @Benchmark
+    public List<ALRates> threadOne() throws InterruptedException {
+        List<ALRates> lists = new ArrayList<>();
+        for(int i = 0; i < RatingEngine.BUCKETS; i++) lists.add(new ALRates(new ArrayList<RateArr>()));
+        int threads = new ThreadOne().getNumberThreads();
+        List<Thread> list = new ArrayList<>();
+        for(int i = 0; i < threads; i++) {
+            list.add(new Thread(new ThreadOne(bikes, i, lists.get(0), lists.get(1), lists.get(2), lists.get(3), lists.get(4))));
+        }
+        for(Thread t : list) t.start();
+        for(Thread t : list) t.join();
+        for(ALRates l : lists) l.getList();
+        return lists;
+    }
+
+    @Benchmark
+    public List<List<RateArr>> ratingEngine() {
+        return engine.rate(bikes);
+    }
+
+    @Benchmark
+    public int[] scoreArrays() {
+        BikeScoring.score(price, weight, gear, auction, lights, bell, breaks, 0, size, scores, buckets);
+        return scores;
+    }
+
+    @Benchmark
+    public int[] scoreList() {
+        BikeScoring.score(bikes, scores, buckets);
+        return scores;
+    }
+
+    @Benchmark
+    public List<RateArr> top100() throws InterruptedException {
+        return TopRates.top(bikes, 100);
+    }
+}
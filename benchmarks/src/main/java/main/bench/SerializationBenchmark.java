@@ -0,0 +1,81 @@
+package main.bench;
+
+import main.lsea.Bike;
+import main.lsea.Car;
+import main.lsea.LSEA;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading of the offers (Item.saveS/loadS, .dat) and of the profiles (LSEA.saveB/loadB, .bin).<br>
+ * Files are written to a temporary directory, which is deleted after the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SerializationBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private Path dir;
+    private String items, itemsRead, profilesPath, profilesRead;
+    private List<LSEA> profiles;
+    private List<Bike> bikes;
+    private List<Car> cars;
+    private Bike nBike;
+    private LSEA nProfile;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = BenchData.tempDir("serialization");
+        profiles = BenchData.profiles(size);
+        List<LSEA> owners = profiles.subList(0, Math.min(1000, size));
+        bikes = BenchData.bikes(size / 2, owners);
+        cars = BenchData.cars(size - size / 2, owners);
+        nBike = new Bike();
+        nProfile = new LSEA();
+        items = dir.resolve("items").toString();
+        itemsRead = dir.resolve("itemsRead").toString();
+        profilesPath = dir.resolve("profiles").toString();
+        profilesRead = dir.resolve("profilesRead").toString();
+        nBike.saveS(bikes, cars, itemsRead);
+        nProfile.saveB(profiles, profilesRead);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchData.delete(dir);
+    }
+
+    @Benchmark
+    public void saveS() {
+        nBike.saveS(bikes, cars, items);
+    }
+
+    @Benchmark
+    public int loadS() {
+        List<Bike> b = new ArrayList<>();
+        List<Car> c = new ArrayList<>();
+        nBike.loadS(b, c, itemsRead);
+        return b.size() + c.size();
+    }
+
+    @Benchmark
+    public void saveB() {
+        nProfile.saveB(profiles, profilesPath);
+    }
+
+    @Benchmark
+    public List<LSEA> loadB() {
+        return nProfile.loadB(profilesRead);
+    }
+}
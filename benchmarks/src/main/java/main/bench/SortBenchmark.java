@@ -0,0 +1,64 @@
+package main.bench;
+
+import main.lsea.Bike;
+import main.lsea.Car;
+import main.lsea.LSEA;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collections.sort with the comparators used in LSEA.main: Bike.compare, Car.compare and LSEA.compareTo.<br>
+ * Every invocation sorts a new copy of the shuffled list, time of the copy is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SortBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private List<LSEA> profiles;
+    private List<Bike> bikes;
+    private List<Car> cars;
+    private Bike nBike;
+    private Car nCar;
+
+    @Setup
+    public void setup() {
+        profiles = BenchData.profiles(size);
+        List<LSEA> owners = profiles.subList(0, Math.min(1000, size));
+        bikes = BenchData.bikes(size, owners);
+        cars = BenchData.cars(size, owners);
+        nBike = new Bike();
+        nCar = new Car();
+    }
+
+    @Benchmark
+    public List<Bike> sortBikes() {
+        List<Bike> copy = new ArrayList<>(bikes);
+        Collections.sort(copy, nBike);
+        return copy;
+    }
+
+    @Benchmark
+    public List<Car> sortCars() {
+        List<Car> copy = new ArrayList<>(cars);
+        Collections.sort(copy, nCar);
+        return copy;
+    }
+
+    @Benchmark
+    public List<LSEA> sortProfiles() {
+        List<LSEA> copy = new ArrayList<>(profiles);
+        Collections.sort(copy);
+        return copy;
+    }
+}
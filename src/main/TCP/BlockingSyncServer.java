@@ -0,0 +1,157 @@
+package main.TCP;
+
+import main.lsea.LSEA;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Profile sync server written like Server_TCP (blocking streams), one task per accepted connection.<br>
+ * With virtual threads (Java 21+) idle connections do not take a platform thread each, so many thousands of them
+ * can be kept open. Virtual threads are looked up by reflection, on older Java the cached pool of platform threads
+ * is used.<br>
+ * Protocol is the same as in SyncServer. Queue of the consumer is filled with put, so a full queue blocks only the
+ * thread of the connection (backpressure).
+ */
+public class BlockingSyncServer implements SyncService {
+
+    private final ServerSocket server;
+    private final BlockingQueue<LSEA> sink;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Set<Socket> sockets = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<Socket, Boolean>()));
+    private volatile boolean closed;
+
+    private final AtomicLong accepted = new AtomicLong(), received = new AtomicLong();
+
+    /**
+     * @param port port of the server (0 - any free port)
+     * @param sink queue of the consumer of received profiles
+     * @param virtual true - virtual thread per connection (if Java supports it), false - cached pool of platform threads
+     * @throws IOException when the port can not be bound
+     */
+    public BlockingSyncServer(int port, BlockingQueue<LSEA> sink, boolean virtual) throws IOException {
+        this.sink = sink;
+        ExecutorService e = virtual ? virtualExecutor() : null;
+        this.virtual = e != null;
+        this.executor = e != null ? e : Executors.newCachedThreadPool();
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(port), 4096);
+    }
+
+    /*** @return executor with virtual thread per task or null if Java does not have virtual threads*/
+    static ExecutorService virtualExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException ex) {
+            return null;
+        }
+    }
+
+    /*** @return true if connections run on virtual threads*/
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    @Override
+    public long getReceived() {
+        return received.get();
+    }
+
+    /*** Accepting connections until close() is called*/
+    @Override
+    public void run() {
+        try {
+            while(!closed) {
+                final Socket client = server.accept();
+                accepted.incrementAndGet();
+                sockets.add(client);
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(client);
+                    }
+                });
+            }
+        } catch (IOException ex) {
+            if(!closed) System.out.println(ex.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*** reading frames until the client closes the output, then sending the number of received profiles*/
+    private void serve(Socket client) {
+        try (Socket s = client;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 1024));
+             DataOutputStream out = new DataOutputStream(s.getOutputStream())) {
+            int count = 0;
+            while(true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException ex) {
+                    break;
+                }
+                if(length < 0 || length > ProfileFrames.MAX_FRAME) throw new IOException("Wrong length of the frame: " + length);
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                sink.put(ProfileFrames.read(ByteBuffer.wrap(payload)));
+                count++;
+                received.incrementAndGet();
+            }
+            out.writeInt(count);
+            out.flush();
+        } catch (IOException | IllegalArgumentException ex) {
+            if(!closed) System.out.println(ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sockets.remove(client);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+        synchronized(sockets) {
+            for(Socket s : sockets) {
+                try {
+                    s.close();
+                } catch (IOException ex) {
+                    System.out.println(ex.getMessage());
+                }
+            }
+        }
+    }
+}
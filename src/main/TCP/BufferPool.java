@@ -0,0 +1,45 @@
+package main.TCP;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of direct buffers of one size, used by the thread of SyncServer only (not synchronized).<br>
+ * Connection takes a buffer only while it has unread data, so idle connections do not keep any memory.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    /*** allocated -> number of buffers allocated by the pool*/
+    private int allocated;
+
+    /**
+     * @param bufferSize size of every buffer
+     * @param maxPooled maximal number of free buffers kept in the pool
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /*** @return empty buffer*/
+    public ByteBuffer acquire() {
+        ByteBuffer b = free.pollFirst();
+        if(b != null) return b;
+        allocated++;
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /*** @param b buffer that is not used any more*/
+    public void release(ByteBuffer b) {
+        b.clear();
+        if(free.size() < maxPooled) free.addFirst(b);
+    }
+
+    /*** @return number of buffers allocated by the pool*/
+    public int allocated() {
+        return allocated;
+    }
+}
@@ -2,9 +2,13 @@ package main.TCP;
 
 import lombok.NoArgsConstructor;
 import main.lsea.LSEA;
+import main.lsea.ProfileCodecs;
+import main.lsea.ProfileDigest;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.List;
 
 /**
@@ -19,24 +23,79 @@ import java.util.List;
 public class Client_TCP {
 
     /**
-     * method that enables client sending data to the server via TCP protocol
+     * method that enables client sending data to the server via TCP protocol<br>
+     * profiles are encoded by the codec selected in ProfileCodecs (compact by default),
+     * the end of the data is marked by closing the output
      * @param prof list of profiles that will be send to the server
      * @throws UnknownHostException
      * @throws IOException
      */
     public void TCP_send(List<LSEA> prof) throws UnknownHostException, IOException {
 
-        Socket client = new Socket ("localhost", 2022);
-        ObjectOutputStream out = new ObjectOutputStream(client.getOutputStream());
-        ObjectInputStream in = new ObjectInputStream(client.getInputStream());
-
-        for(int i=0; i<prof.size(); i++) {
-            out.writeObject(prof.get(i));
+        byte[] data = ProfileCodecs.selected().encode(prof);
+        try (Socket client = new Socket ("localhost", 2022)) {
+            OutputStream out = client.getOutputStream();
+            out.write(data);
             out.flush();
+            client.shutdownOutput();
+        }
+    }
+
+    /**
+     * method that sends profiles to SyncServer in length-prefixed frames (see ProfileFrames)
+     * @param prof list of profiles that will be send to the server
+     * @param host address of the server
+     * @param port port of the server
+     * @return number of profiles received by the server
+     * @throws IOException
+     */
+    public int TCP_sync(List<LSEA> prof, String host, int port) throws IOException {
+
+        try (SocketChannel client = SocketChannel.open(new InetSocketAddress(host, port))) {
+            return sync(client, ProfileFrames.encode(prof));
+        }
+    }
+
+    /**
+     * sending frames on open connection, closing the output and reading the answer of SyncServer
+     * @param client blocking channel connected to the server
+     * @param frames frames with profiles (see ProfileFrames.encode)
+     * @return number of profiles received by the server
+     * @throws IOException
+     */
+    static int sync(SocketChannel client, ByteBuffer frames) throws IOException {
+        while(frames.hasRemaining()) client.write(frames);
+        client.shutdownOutput();
+
+        ByteBuffer in = ByteBuffer.allocate(4);
+        while(in.hasRemaining()) {
+            if(client.read(in) < 0) throw new EOFException("Server closed the connection");
         }
+        return in.getInt(0);
+    }
+
+    /**
+     * method that synchronizes profiles with the server by delta sync (see DeltaSync),
+     * only new and changed profiles are sent in both directions
+     * @param replica digest of the profiles of this node
+     * @throws IOException
+     */
+    public void TCP_delta_sync(ProfileDigest replica) throws IOException {
+
+        DeltaSync sync = new DeltaSync(replica);
+        sync.sync("localhost", DeltaSync.PORT);
+        System.out.println("sent " + sync.getPushed() + " profiles, received " + sync.getPulled() + " profiles, "
+                + (sync.getSent() + sync.getReceived()) + " bytes");
+    }
+
+    /**
+     * method that sends profiles to the profile sync server on this machine (SyncServers.PORT)
+     * @param prof list of profiles that will be send to the server
+     * @throws IOException
+     */
+    public void TCP_sync(List<LSEA> prof) throws IOException {
 
-        in.close();
-        out.close();
-        client.close();
+        int received = TCP_sync(prof, "localhost", SyncServers.PORT);
+        System.out.println("server received " + received + " of " + prof.size() + " profiles");
     }
 }
@@ -0,0 +1,307 @@
+package main.TCP;
+
+import main.lsea.CompactProfileCodec;
+import main.lsea.CompactProfileCodec.Reader;
+import main.lsea.CompactProfileCodec.Writer;
+import main.lsea.LSEA;
+import main.lsea.ProfileDigest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delta sync of the profiles between two nodes over TCP, only new and changed profiles are sent (in both
+ * directions).<br>
+ * Client walks down the ranges of ProfileDigest together with the server:<br>
+ * 1. DIGESTS - client sends digests of the ranges of one level (16 ranges first), server answers with DIFF - ranges
+ * with different digest. Only the children of these ranges are sent on the next level (STEP bits deeper)<br>
+ * 2. LEAVES - buckets which differ, server answers with ENTRIES - nick, versions (CompactProfileCodec.writeVersions)
+ * and fingerprint of its profiles in them<br>
+ * 3. PUSH - profiles with changes missing on the server and nicks of the profiles with changes missing on the client,
+ * server merges the profiles (ProfileDigest.apply) and answers with PROFILES - the profiles the client asked for,
+ * already merged, so a profile changed on both nodes ends up the same on both<br>
+ * Every message is length (int) and payload written by CompactProfileCodec.Writer, the first byte is the type.
+ * Connection starts with MAGIC and version of CompactProfileCodec, profiles are written by
+ * CompactProfileCodec.writeProfile.
+ */
+public class DeltaSync {
+
+    /*** PORT -> default port of the delta sync server*/
+    public static final int PORT = 2023;
+    /*** MAGIC -> first 4 bytes of the connection ("OLXD")*/
+    public static final int MAGIC = 0x4F4C5844;
+
+    static final byte DIGESTS = 1, DIFF = 2, LEAVES = 3, ENTRIES = 4, PUSH = 5, PROFILES = 6;
+    /*** STEP -> number of levels of ProfileDigest passed in one round (2^STEP children of every range)*/
+    static final int STEP = 4;
+    /*** MAX_MESSAGE -> maximal length of one message (bytes)*/
+    static final int MAX_MESSAGE = 256 << 20;
+
+    private final ProfileDigest digest;
+    /*** sent, received -> bytes of the messages, messages -> number of sent messages*/
+    private long sent, received;
+    private int messages, pushed, pulled;
+
+    /*** @param digest digest of the profiles of this node*/
+    public DeltaSync(ProfileDigest digest) {
+        this.digest = digest;
+    }
+
+    /*** @return number of bytes sent by this side*/
+    public long getSent() {
+        return sent;
+    }
+
+    /*** @return number of bytes received by this side*/
+    public long getReceived() {
+        return received;
+    }
+
+    /*** @return number of sent messages (for the client - number of round trips)*/
+    public int getMessages() {
+        return messages;
+    }
+
+    /*** @return number of profiles sent to the other node*/
+    public int getPushed() {
+        return pushed;
+    }
+
+    /*** @return number of profiles received from the other node and applied*/
+    public int getPulled() {
+        return pulled;
+    }
+
+    /**
+     * Synchronizing profiles with the server
+     *
+     * @param host address of the server
+     * @param port port of the server
+     * @throws IOException
+     */
+    public void sync(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            sync(socket);
+        }
+    }
+
+    /**
+     * Synchronizing profiles on the open connection (client side)
+     *
+     * @param socket connection to the server
+     * @throws IOException
+     */
+    public void sync(Socket socket) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        digest.refresh();
+        out.writeInt(MAGIC);
+        out.writeByte(CompactProfileCodec.VERSION);
+        sent += 5;
+
+        int level = STEP;
+        int[] nodes = new int[1 << STEP];
+        for(int i = 0; i < nodes.length; i++) nodes[i] = i;
+        while(true) {
+            Writer w = message(DIGESTS, 16 + nodes.length * 10);
+            w.writeInt(level);
+            writeNodes(w, nodes);
+            for(int node : nodes) w.writeFixedLong(digest.digest(level, node));
+            send(out, w);
+            Reader r = receive(in, DIFF);
+            int[] diff = readNodes(r, 1 << level);
+            if(diff.length == 0) {
+                return;
+            }
+            if(level == ProfileDigest.BITS) {
+                nodes = diff;
+                break;
+            }
+            int step = Math.min(STEP, ProfileDigest.BITS - level);
+            nodes = new int[diff.length << step];
+            for(int i = 0; i < diff.length; i++) {
+                for(int c = 0; c < 1 << step; c++) nodes[(i << step) + c] = (diff[i] << step) + c;
+            }
+            level += step;
+        }
+
+        Writer w = message(LEAVES, 16 + nodes.length * 3);
+        writeNodes(w, nodes);
+        send(out, w);
+        Reader r = receive(in, ENTRIES);
+        Map<String, long[]> remote = new HashMap<>();
+        for(int leaf : nodes) {
+            int n = r.readCount();
+            for(int i = 0; i < n; i++) {
+                String nick = r.readString();
+                long[] theirs = Arrays.copyOf(CompactProfileCodec.readVersions(r), 2 + LSEA.FIELDS);
+                theirs[1 + LSEA.FIELDS] = r.readFixedLong();
+                remote.put(nick, theirs);
+            }
+        }
+
+        // profiles are pushed when they have changes missing on the server, remote keeps only the profiles with
+        // changes missing here (or missing here), profiles changed on both nodes are sent both ways and merged
+        List<LSEA> push = new ArrayList<>();
+        for(int leaf : nodes) {
+            for(LSEA p : digest.bucket(leaf)) {
+                long[] theirs = remote.get(p.getNick());
+                if(theirs == null) {
+                    push.add(p);
+                    continue;
+                }
+                if(theirs[1 + LSEA.FIELDS] != digest.fingerprint(p)) {
+                    long[] mine = ProfileDigest.versions(p);
+                    if(ProfileDigest.hasChanges(mine, theirs)) push.add(p);
+                    if(ProfileDigest.hasChanges(theirs, mine)) continue;
+                }
+                remote.remove(p.getNick());
+            }
+        }
+        w = message(PUSH, 16 + push.size() * 48);
+        w.writeInt(push.size());
+        for(LSEA p : push) CompactProfileCodec.writeProfile(w, p);
+        w.writeInt(remote.size());
+        for(String nick : remote.keySet()) w.writeString(nick);
+        send(out, w);
+        pushed += push.size();
+
+        r = receive(in, PROFILES);
+        int n = r.readCount();
+        for(int i = 0; i < n; i++) {
+            if(digest.apply(CompactProfileCodec.readProfile(r))) pulled++;
+        }
+    }
+
+    /**
+     * Answering one client until it closes the connection (server side)
+     *
+     * @param socket connection with the client
+     * @throws IOException
+     */
+    public void serve(Socket socket) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        int magic = in.readInt(), version = in.readUnsignedByte();
+        received += 5;
+        if(magic != MAGIC) throw new IOException("Not a delta sync client (magic " + Integer.toHexString(magic) + ")");
+        if(version != CompactProfileCodec.VERSION) throw new IOException("Unsupported version of the client " + version);
+        digest.refresh();
+
+        while(true) {
+            Reader r;
+            try {
+                r = receive(in, (byte) 0);
+            } catch (EOFException ex) {
+                return;
+            }
+            int type = r.readByte();
+            if(type == DIGESTS) {
+                int level = r.readInt();
+                if(level < 0 || level > ProfileDigest.BITS) throw new IOException("Wrong level " + level);
+                int[] nodes = readNodes(r, 1 << level);
+                int[] diff = new int[nodes.length];
+                int n = 0;
+                for(int node : nodes) {
+                    if(r.readFixedLong() != digest.digest(level, node)) diff[n++] = node;
+                }
+                Writer w = message(DIFF, 16 + n * 3);
+                writeNodes(w, Arrays.copyOf(diff, n));
+                send(out, w);
+            } else if(type == LEAVES) {
+                int[] nodes = readNodes(r, ProfileDigest.LEAVES);
+                Writer w = message(ENTRIES, 16 + nodes.length * 32);
+                for(int leaf : nodes) {
+                    List<LSEA> bucket = digest.bucket(leaf);
+                    w.writeInt(bucket.size());
+                    for(LSEA p : bucket) {
+                        w.writeString(p.getNick());
+                        CompactProfileCodec.writeVersions(w, p);
+                        w.writeFixedLong(digest.fingerprint(p));
+                    }
+                }
+                send(out, w);
+            } else if(type == PUSH) {
+                int n = r.readCount();
+                for(int i = 0; i < n; i++) {
+                    if(digest.apply(CompactProfileCodec.readProfile(r))) pulled++;
+                }
+                n = r.readCount();
+                List<LSEA> wanted = new ArrayList<>();
+                for(int i = 0; i < n; i++) {
+                    LSEA p = digest.byNick(r.readString());
+                    if(p != null) wanted.add(p);
+                }
+                Writer w = message(PROFILES, 16 + wanted.size() * 48);
+                w.writeInt(wanted.size());
+                for(LSEA p : wanted) CompactProfileCodec.writeProfile(w, p);
+                send(out, w);
+                pushed += wanted.size();
+            } else {
+                throw new IOException("Wrong type of the message " + type);
+            }
+        }
+    }
+
+    private static Writer message(byte type, int capacity) {
+        Writer w = new Writer(capacity);
+        w.writeByte(type);
+        return w;
+    }
+
+    private void send(DataOutputStream out, Writer w) throws IOException {
+        out.writeInt(w.size());
+        w.writeTo(out);
+        out.flush();
+        sent += 4 + w.size();
+        messages++;
+    }
+
+    /**
+     * @param type expected type of the message (0 - any, type is read by the caller)
+     * @return reader placed after the type
+     */
+    private Reader receive(DataInputStream in, byte type) throws IOException {
+        int length = in.readInt();
+        if(length < 1 || length > MAX_MESSAGE) throw new IOException("Wrong length of the message " + length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        received += 4 + length;
+        Reader r = new Reader(payload, 0, length);
+        if(type != 0 && r.readByte() != type) throw new IOException("Unexpected type of the message " + payload[0]);
+        return r;
+    }
+
+    /*** writing sorted indices of the ranges as differences from the previous one*/
+    private static void writeNodes(Writer w, int[] nodes) {
+        w.writeInt(nodes.length);
+        int prev = 0;
+        for(int node : nodes) {
+            w.writeInt(node - prev);
+            prev = node;
+        }
+    }
+
+    private static int[] readNodes(Reader r, int limit) throws IOException {
+        int n = r.readCount();
+        if(n > limit) throw new IOException("Too many ranges " + n);
+        int[] nodes = new int[n];
+        int prev = 0;
+        for(int i = 0; i < n; i++) {
+            prev += r.readInt();
+            if(prev < 0 || prev >= limit) throw new IOException("Wrong range " + prev);
+            nodes[i] = prev;
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,70 @@
+package main.TCP;
+
+import main.lsea.CompactProfileCodec;
+import main.lsea.LSEA;
+import main.lsea.ProfileDigest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local test of the delta sync: two nodes with the same profiles, some of them are changed or added on both nodes,
+ * then the nodes are synchronized twice over loopback. Bytes and messages of the delta sync are printed next to the
+ * size of all profiles sent by Client_TCP.TCP_send, and digests of both nodes are compared.<br>
+ * Arguments: number of profiles (default 100 000), changed profiles on the client (default 10), new profiles on the
+ * client (default 5) and changed profiles on the server (default 5).
+ */
+public class DeltaSyncLoad {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int changed = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int added = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int serverChanged = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        List<LSEA> clientProfiles = profiles(n), serverProfiles = profiles(n);
+        ProfileDigest client = new ProfileDigest(clientProfiles);
+        final ProfileDigest server = new ProfileDigest(serverProfiles);
+        for(int i = 0; i < changed; i++) clientProfiles.get(i * 7919 % n).setPassword("changed_" + i);
+        for(int i = 0; i < added; i++) clientProfiles.add(new LSEA("new_" + i, "pass", "Name", "Surname", 30, 100));
+        for(int i = 0; i < serverChanged; i++) serverProfiles.get((i * 7919 + 3) % n).setMoney(-1 - i);
+
+        System.out.println("full send of " + clientProfiles.size() + " profiles: "
+                + new CompactProfileCodec().encode(clientProfiles).length + " bytes");
+        for(int run = 1; run <= 2; run++) {
+            final ServerSocket listener = new ServerSocket(0);
+            final DeltaSync serverSide = new DeltaSync(server);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try (Socket s = listener.accept()) {
+                        serverSide.serve(s);
+                    } catch (IOException ex) {
+                        System.out.println(ex.getMessage());
+                    }
+                }
+            }, "delta-server");
+            thread.start();
+            DeltaSync sync = new DeltaSync(client);
+            long start = System.nanoTime();
+            sync.sync("localhost", listener.getLocalPort());
+            long time = System.nanoTime() - start;
+            thread.join();
+            listener.close();
+            System.out.println("delta sync " + run + ": sent " + sync.getSent() + " bytes, received " + sync.getReceived()
+                    + " bytes, " + sync.getMessages() + " round trips, pushed " + sync.getPushed() + ", pulled "
+                    + sync.getPulled() + ", " + time / 1000000 + " ms");
+        }
+        System.out.println("digests equal: " + (client.digest(0, 0) == server.digest(0, 0)) + ", profiles "
+                + clientProfiles.size() + " / " + serverProfiles.size());
+    }
+
+    private static List<LSEA> profiles(int n) {
+        List<LSEA> profiles = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) profiles.add(new LSEA("user_" + i, "pass_" + i, "Name", "Surname", 18 + i % 60, 1000 + i));
+        return profiles;
+    }
+}
@@ -0,0 +1,66 @@
+package main.TCP;
+
+import main.lsea.CompactProfileCodec;
+import main.lsea.LSEA;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Length-prefixed frames with profiles, used by SyncServer and Client_TCP.TCP_sync.<br>
+ * Frame: length of the payload (4 bytes, big endian) and payload written by CompactProfileCodec.writeProfile
+ * (varints and strings of CompactProfileCodec.Writer, with the version of the profile).
+ */
+public final class ProfileFrames {
+
+    /*** MAX_FRAME -> maximal length of the payload of one frame*/
+    public static final int MAX_FRAME = 16 * 1024;
+
+    private ProfileFrames() {}
+
+    /**
+     * @param profiles profiles that will be sent
+     * @return buffer with frames of all profiles, ready to be written
+     */
+    public static ByteBuffer encode(List<LSEA> profiles) {
+        CompactProfileCodec.Writer out = new CompactProfileCodec.Writer(16 + profiles.size() * 52);
+        for(LSEA p : profiles) write(p, out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    /**
+     * Writing one frame
+     *
+     * @param p profile
+     * @param out writer, the frame is added after its bytes
+     */
+    public static void write(LSEA p, CompactProfileCodec.Writer out) {
+        int start = out.size();
+        out.writeFixedInt(0);
+        CompactProfileCodec.writeProfile(out, p);
+        int length = out.size() - start - 4;
+        if(length > MAX_FRAME) throw new IllegalArgumentException("Profile is too big: " + length + " bytes");
+        out.setFixedInt(start, length);
+    }
+
+    /**
+     * Reading payload of one frame (without the length)
+     *
+     * @param in buffer placed at the beginning of the payload, with limit at its end
+     * @return profile
+     */
+    public static LSEA read(ByteBuffer in) {
+        byte[] payload = new byte[in.remaining()];
+        in.get(payload);
+        CompactProfileCodec.Reader reader = new CompactProfileCodec.Reader(payload, 0, payload.length);
+        LSEA p;
+        try {
+            p = CompactProfileCodec.readProfile(reader);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Frame is too short or damaged: " + ex.getMessage());
+        }
+        if(reader.remaining() != 0) throw new IllegalArgumentException("Frame is too long by " + reader.remaining() + " bytes");
+        return p;
+    }
+}
@@ -2,14 +2,16 @@ package main.TCP;
 
 import lombok.NoArgsConstructor;
 import main.lsea.LSEA;
+import main.lsea.ProfileCodecs;
+import main.lsea.ProfileDigest;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Scanner;
 
 /**
  * Class used for TCP server.<br>
@@ -24,31 +26,69 @@ public class Server_TCP {
 
     /**
      * method that enables server receiving data from the client via TCP protocol<br>
+     * data is read until the client closes the connection and decoded by the codec found in ProfileCodecs
+     * (compact or Java serialization)<br>
      * after receiving the data, server prints it on the screen
-     * @param prof list of profiles - it is necessary to let server know how many object will be send to it
+     * @param prof list of profiles (number of the profiles is taken from the data)
      * @throws IOException
      * @throws ClassNotFoundException
      */
     public void TCP_receive(List<LSEA> prof) throws IOException, ClassNotFoundException {
 
-        ServerSocket server = new ServerSocket(2022);
-        Socket client = server.accept();
-        System.out.println("connected");
+        try (ServerSocket server = new ServerSocket(2022);
+             Socket client = server.accept()) {
+            System.out.println("connected");
 
-        ObjectOutputStream out = new ObjectOutputStream(client.getOutputStream()); // get the output stream of client.
-        ObjectInputStream in = new ObjectInputStream(client.getInputStream());    // get the input stream of client.
+            InputStream in = client.getInputStream();    // get the input stream of client.
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while((n = in.read(buffer)) > 0) data.write(buffer, 0, n);
 
-        List<LSEA> profiles = new ArrayList<LSEA>();
+            List<LSEA> profiles = ProfileCodecs.decode(data.toByteArray(), 0, data.size());
+            for(LSEA profile : profiles) {
+                System.out.println(profile.toString());
+            }
+        }
+    }
+
+    /**
+     * method that answers one client of delta sync (see DeltaSync), profiles of the client are added to the replica
+     * @param replica digest of the profiles of this node
+     * @throws IOException
+     */
+    public void TCP_delta_receive(ProfileDigest replica) throws IOException {
 
-        for(int i=0; i<prof.size(); i++) {
-            profiles.add((LSEA)in.readObject());
-            System.out.println(profiles.get(i).toString());
+        try (ServerSocket server = new ServerSocket(DeltaSync.PORT);
+             Socket client = server.accept()) {
+            System.out.println("connected");
+            DeltaSync sync = new DeltaSync(replica);
+            sync.serve(client);
+            System.out.println("received " + sync.getPulled() + " profiles, sent " + sync.getPushed() + " profiles");
         }
+    }
 
-        in.close();
-        out.close();
+    /**
+     * method that runs the profile sync server (implementation selected by SyncServers, -Dolx.tcp.server) on
+     * SyncServers.PORT, many clients can send profiles at the same time (Client_TCP.TCP_sync)<br>
+     * received profiles are printed and added to the list, server stops when Enter is pressed
+     * @param prof list of profiles, received profiles are added at the end
+     * @param input scanner of the console
+     * @throws IOException when the port can not be bound
+     */
+    public void TCP_sync_receive(final List<LSEA> prof, Scanner input) throws IOException {
 
-        client.close();
-        server.close();
+        try {
+            SyncServers.runUntilEnter(SyncServers.PORT, input, new SyncServers.Receiver() {
+                @Override
+                public void received(LSEA profile) {
+                    // consumer thread is joined before runUntilEnter returns, the list is not read before
+                    System.out.println(profile.toString());
+                    prof.add(profile);
+                }
+            });
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -0,0 +1,120 @@
+package main.TCP;
+
+import main.lsea.LSEA;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local load generator of the profile sync servers (implementation is chosen by SyncServers, -Dolx.tcp.server).<br>
+ * All connections are opened first and kept open (idle) at the same time, heap and platform threads are measured,
+ * then threads send profiles on them (Client_TCP.sync) and wait for the answers. Connections/s, profiles/s and
+ * latency of the connections (from the first byte to the answer) are printed.<br>
+ * Arguments: connections (default 2000), profiles per connection (default 10), sending threads (default 64),
+ * pause of the consumer in microseconds after every profile (default 0, bigger value shows backpressure)
+ * and capacity of the queue of the consumer (default 1024).
+ */
+public class SyncLoad {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final int connections = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int perConnection = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        final long pauseMicros = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        int capacity = args.length > 4 ? Integer.parseInt(args[4]) : 1024;
+
+        final BlockingQueue<LSEA> queue = new ArrayBlockingQueue<>(capacity);
+        final AtomicLong consumed = new AtomicLong();
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while(true) {
+                        queue.take();
+                        consumed.incrementAndGet();
+                        if(pauseMicros > 0) Thread.sleep(pauseMicros / 1000, (int) (pauseMicros % 1000) * 1000);
+                    }
+                } catch (InterruptedException ex) {
+                    // end of the test
+                }
+            }
+        });
+        consumer.setDaemon(true);
+        consumer.start();
+
+        SyncService server = SyncServers.create(0, queue);
+        Thread serverThread = new Thread(server, "sync-server");
+        serverThread.start();
+
+        List<LSEA> profiles = new ArrayList<>();
+        for(int i = 0; i < perConnection; i++) {
+            profiles.add(new LSEA("user_" + i, "pass_" + i, "Name", "Surname", 20 + i % 50, 1000 + i));
+        }
+        final ByteBuffer frames = ProfileFrames.encode(profiles);
+
+        InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+        final SocketChannel[] channels = new SocketChannel[connections];
+        long start = System.nanoTime();
+        for(int i = 0; i < connections; i++) channels[i] = SocketChannel.open(address);
+        long connecting = System.nanoTime() - start;
+        while(server.getAccepted() < connections) Thread.sleep(1);
+        System.out.println(server.getClass().getSimpleName() + ": " + connections + " connections open at the same time, "
+                + rate(connections, connecting) + " connections/s");
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println("idle: heap used " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " MB, "
+                + ManagementFactory.getThreadMXBean().getThreadCount() + " platform threads");
+
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicLong acknowledged = new AtomicLong();
+        final long[] latency = new long[connections];
+        List<Thread> senders = new ArrayList<>();
+        for(int t = 0; t < threads; t++) {
+            senders.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int i;
+                    while((i = next.getAndIncrement()) < connections) {
+                        try (SocketChannel channel = channels[i]) {
+                            long begin = System.nanoTime();
+                            acknowledged.addAndGet(Client_TCP.sync(channel, frames.duplicate()));
+                            latency[i] = System.nanoTime() - begin;
+                        } catch (IOException ex) {
+                            System.out.println(ex.getMessage());
+                        }
+                    }
+                }
+            }));
+        }
+        start = System.nanoTime();
+        for(Thread t : senders) t.start();
+        for(Thread t : senders) t.join();
+        long sending = System.nanoTime() - start;
+        long total = (long) connections * perConnection;
+        System.out.println(acknowledged.get() + " of " + total + " profiles acknowledged, " + rate(acknowledged.get(), sending)
+                + " profiles/s" + (server instanceof SyncServer ? ", " + ((SyncServer) server).getPauses()
+                + " pauses of reading (queue full)" : ""));
+        Arrays.sort(latency);
+        System.out.println("latency: p50 " + latency[connections / 2] / 1000 + " us, p99 "
+                + latency[(int) (connections * 0.99)] / 1000 + " us, max " + latency[connections - 1] / 1000 + " us");
+
+        while(consumed.get() < server.getReceived()) Thread.sleep(1);
+        System.out.println(consumed.get() + " profiles consumed");
+        server.close();
+        serverThread.join();
+    }
+
+    private static long rate(long count, long nanos) {
+        return count * 1000000000L / Math.max(1, nanos);
+    }
+}
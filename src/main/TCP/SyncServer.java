@@ -0,0 +1,247 @@
+package main.TCP;
+
+import main.lsea.LSEA;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived profile sync server on one thread with Selector, used instead of Server_TCP for many clients.<br>
+ * Clients send length-prefixed frames with profiles (see ProfileFrames) and close the output, server answers with
+ * the number of received profiles (int) and closes the connection.<br>
+ * Received profiles are put to the bounded queue of the consumer. When the queue is full, server stops reading
+ * (OP_READ is removed) from the connection until there is space again, so the TCP window of the client fills up
+ * and the client waits instead of the server keeping profiles in memory.<br>
+ * Data is read to direct buffers from BufferPool, connection keeps the buffer only while it has unread bytes.
+ */
+public class SyncServer implements SyncService {
+
+    /*** BUFFER -> size of the read buffer of one connection (must fit the biggest frame)*/
+    private static final int BUFFER = 4 + ProfileFrames.MAX_FRAME;
+    /*** PAUSE_MS -> how often paused connections check the queue*/
+    private static final int PAUSE_MS = 5;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final BlockingQueue<LSEA> sink;
+    private final BufferPool pool = new BufferPool(BUFFER, 256);
+    private final List<Connection> paused = new ArrayList<>();
+    private volatile boolean closed;
+
+    private final AtomicLong accepted = new AtomicLong(), received = new AtomicLong(), pauses = new AtomicLong();
+
+    /**
+     * @param port port of the server (0 - any free port)
+     * @param sink queue of the consumer of received profiles
+     * @throws IOException when the port can not be bound
+     */
+    public SyncServer(int port, BlockingQueue<LSEA> sink) throws IOException {
+        this.sink = sink;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(new InetSocketAddress(port), 4096);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /*** @return port of the server*/
+    @Override
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /*** @return number of accepted connections*/
+    @Override
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    /*** @return number of profiles put to the queue*/
+    @Override
+    public long getReceived() {
+        return received.get();
+    }
+
+    /*** @return how many times reading of a connection was paused because the queue was full*/
+    public long getPauses() {
+        return pauses.get();
+    }
+
+    /*** Loop of the server, runs until close() is called*/
+    @Override
+    public void run() {
+        try {
+            while(!closed) {
+                selector.select(paused.isEmpty() ? 0 : PAUSE_MS);
+                if(!paused.isEmpty()) resume();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while(it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if(!key.isValid()) continue;
+                    if(key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection c = (Connection) key.attachment();
+                    try {
+                        if(key.isReadable()) read(c);
+                        if(key.isValid() && key.isWritable()) write(c);
+                    } catch (IOException | IllegalArgumentException ex) {
+                        close(c);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        } finally {
+            for(SelectionKey key : selector.keys()) {
+                if(key.attachment() instanceof Connection) close((Connection) key.attachment());
+            }
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+    }
+
+    /*** Stopping the server, all connections are closed*/
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection c = new Connection(channel);
+            c.key = channel.register(selector, SelectionKey.OP_READ, c);
+            accepted.incrementAndGet();
+        }
+    }
+
+    private void read(Connection c) throws IOException {
+        if(c.in == null) c.in = pool.acquire();
+        if(c.channel.read(c.in) < 0) c.eof = true;
+        drain(c);
+    }
+
+    /*** putting all whole frames of the buffer to the queue, connection is paused when the queue is full*/
+    private void drain(Connection c) throws IOException {
+        ByteBuffer in = c.in;
+        in.flip();
+        while(in.remaining() >= 4) {
+            int start = in.position();
+            int length = in.getInt(start);
+            if(length < 0 || length > ProfileFrames.MAX_FRAME) throw new IOException("Wrong length of the frame: " + length);
+            if(in.remaining() < 4 + length) break;
+            if(sink.remainingCapacity() == 0) {
+                pause(c);
+                break;
+            }
+            in.position(start + 4);
+            int end = in.limit();
+            in.limit(start + 4 + length);
+            LSEA profile = ProfileFrames.read(in);
+            in.limit(end);
+            in.position(start + 4 + length);
+            if(!sink.offer(profile)) {
+                in.position(start);
+                pause(c);
+                break;
+            }
+            c.received++;
+            received.incrementAndGet();
+        }
+        in.compact();
+        if(in.position() == 0) {
+            pool.release(in);
+            c.in = null;
+        }
+        if(!c.paused && c.eof) finish(c);
+    }
+
+    private void pause(Connection c) {
+        c.paused = true;
+        c.key.interestOps(0);
+        paused.add(c);
+        pauses.incrementAndGet();
+    }
+
+    private void resume() {
+        List<Connection> list = new ArrayList<>(paused);
+        paused.clear();
+        for(Connection c : list) {
+            if(sink.remainingCapacity() == 0) {
+                paused.add(c);
+                continue;
+            }
+            c.paused = false;
+            try {
+                drain(c);
+                if(!c.paused && !c.eof) c.key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException | IllegalArgumentException ex) {
+                close(c);
+            }
+        }
+    }
+
+    /*** client closed the output: answer with the number of received profiles*/
+    private void finish(Connection c) throws IOException {
+        if(c.in != null) throw new IOException("Connection closed in the middle of the frame");
+        c.out = ByteBuffer.allocate(4);
+        c.out.putInt(c.received).flip();
+        c.key.interestOps(SelectionKey.OP_WRITE);
+        write(c);
+    }
+
+    private void write(Connection c) throws IOException {
+        c.channel.write(c.out);
+        if(!c.out.hasRemaining()) close(c);
+    }
+
+    private void close(Connection c) {
+        if(c.in != null) {
+            pool.release(c.in);
+            c.in = null;
+        }
+        c.key.cancel();
+        try {
+            c.channel.close();
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /*** State of one client*/
+    private static final class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        /*** in -> buffer with unread bytes (null when there are none)*/
+        private ByteBuffer in;
+        private ByteBuffer out;
+        private int received;
+        private boolean eof, paused;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
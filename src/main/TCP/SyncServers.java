@@ -0,0 +1,117 @@
+package main.TCP;
+
+import main.lsea.LSEA;
+
+import java.io.IOException;
+import java.util.Scanner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Choice of the profile sync server at startup.<br>
+ * System property olx.tcp.server selects the implementation:<br>
+ * 1. selector (default) - SyncServer, one thread with Selector<br>
+ * 2. virtual - BlockingSyncServer with virtual thread per connection (cached pool if Java has no virtual threads)<br>
+ * 3. threads - BlockingSyncServer with platform thread per connection
+ */
+public final class SyncServers {
+
+    /*** PROPERTY -> name of the system property with the implementation*/
+    public static final String PROPERTY = "olx.tcp.server";
+    /*** PORT -> default port of the profile sync server*/
+    public static final int PORT = 2025;
+    /*** QUEUE -> capacity of the queue between the server and the consumer in runUntilEnter*/
+    static final int QUEUE = 1024;
+
+    private SyncServers() {}
+
+    /**
+     * @param port port of the server (0 - any free port)
+     * @param sink queue of the consumer of received profiles
+     * @return server selected by the system property
+     * @throws IOException when the port can not be bound
+     */
+    public static SyncService create(int port, BlockingQueue<LSEA> sink) throws IOException {
+        String mode = System.getProperty(PROPERTY, "selector");
+        switch (mode) {
+            case "selector":
+                return new SyncServer(port, sink);
+            case "virtual":
+                BlockingSyncServer server = new BlockingSyncServer(port, sink, true);
+                if(!server.isVirtual()) System.out.println("Virtual threads are not available, platform threads are used");
+                return server;
+            case "threads":
+                return new BlockingSyncServer(port, sink, false);
+            default:
+                throw new IllegalArgumentException("Unknown value of " + PROPERTY + ": " + mode + " (selector, virtual or threads)");
+        }
+    }
+
+    /**
+     * Running the selected server until Enter is pressed.<br>
+     * Consumer thread gives every received profile to the receiver. After Enter the server is closed, the consumer
+     * is stopped and profiles left in the queue are given to the receiver on the calling thread.
+     *
+     * @param port port of the server (0 - any free port)
+     * @param input scanner of the console
+     * @param receiver action done with every received profile
+     * @return stopped server (numbers of connections and profiles)
+     * @throws IOException when the port can not be bound
+     * @throws InterruptedException when the calling thread is interrupted while the server stops
+     */
+    public static SyncService runUntilEnter(int port, Scanner input, final Receiver receiver) throws IOException, InterruptedException {
+        final BlockingQueue<LSEA> queue = new ArrayBlockingQueue<>(QUEUE);
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while(true) receiver.received(queue.take());
+                } catch (InterruptedException ex) {
+                    // server stopped
+                }
+            }
+        }, "sync-consumer");
+        SyncService server = create(port, queue);
+        Thread serverThread = new Thread(server, "sync-server");
+        try {
+            serverThread.start();
+            consumer.start();
+            System.out.println(server.getClass().getSimpleName() + " (" + System.getProperty(PROPERTY, "selector")
+                    + ") listening on port " + server.getPort() + ", press Enter to stop");
+            input.nextLine();
+        } finally {
+            server.close();
+        }
+        try {
+            serverThread.join();
+        } finally {
+            consumer.interrupt();
+        }
+        consumer.join();
+        for(LSEA profile = queue.poll(); profile != null; profile = queue.poll()) receiver.received(profile);
+        System.out.println(server.getAccepted() + " connections, " + server.getReceived() + " profiles received");
+        return server;
+    }
+
+    /**
+     * Standalone profile sync server, the implementation is selected by -Dolx.tcp.server like in LSEA (option 21).<br>
+     * Received profiles are only counted. Arguments: port (default PORT). Server stops when Enter is pressed.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : PORT;
+        final AtomicLong consumed = new AtomicLong();
+        runUntilEnter(port, new Scanner(System.in), new Receiver() {
+            @Override
+            public void received(LSEA profile) {
+                consumed.incrementAndGet();
+            }
+        });
+        System.out.println(consumed.get() + " profiles consumed");
+    }
+
+    /*** Action done with every profile received by runUntilEnter*/
+    public interface Receiver {
+        void received(LSEA profile);
+    }
+}
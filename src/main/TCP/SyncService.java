@@ -0,0 +1,23 @@
+package main.TCP;
+
+import java.io.Closeable;
+
+/**
+ * Profile sync server (protocol of ProfileFrames: frames with profiles, answer with their number).<br>
+ * run() serves clients until close() is called. Implementations are created by SyncServers.
+ */
+public interface SyncService extends Runnable, Closeable {
+
+    /*** @return port of the server*/
+    int getPort();
+
+    /*** @return number of accepted connections*/
+    long getAccepted();
+
+    /*** @return number of profiles put to the queue of the consumer*/
+    long getReceived();
+
+    /*** Stopping the server, all connections are closed*/
+    @Override
+    void close();
+}
@@ -2,13 +2,13 @@ package main.UDP;
 
 import lombok.NoArgsConstructor;
 import main.lsea.LSEA;
+import main.lsea.ProfileCodecs;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.List;
 
 /**
@@ -22,28 +22,39 @@ import java.util.List;
 @NoArgsConstructor
 public class Client_UDP {
 
+    /*** MAX_DATAGRAM -> maximal size of the data in one UDP datagram (bytes)*/
+    public static final int MAX_DATAGRAM = 65507;
+
     /**
-     * This method is sending profiles list to server(UDP).
+     * This method is sending profiles list to server(UDP).<br>
+     * Profiles are encoded by the codec selected in ProfileCodecs (compact by default) and sent in one datagram.
      * @param lsea list of profiles
-     * @throws IOException
+     * @throws IOException when profiles do not fit in one datagram
      */
     public void send_UDP(List<LSEA>lsea) throws IOException{
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        byte[] ba = ProfileCodecs.selected().encode(lsea);
+        if(ba.length > MAX_DATAGRAM) throw new IOException("Profiles take " + ba.length + " bytes, more than one datagram (use send_UDP_bulk)");
 
-        for(int i=0; i<lsea.size(); i++){
-            oos.writeObject(lsea.get(i));
+        try (DatagramSocket ds = new DatagramSocket()) {
+            InetAddress ia = InetAddress.getLocalHost();
+            DatagramPacket dp = new DatagramPacket(ba, ba.length, ia,9997);
+            ds.send(dp);
         }
-        byte[] ba = baos.toByteArray();
+    }
 
-        DatagramSocket ds = new DatagramSocket();
-        InetAddress ia = InetAddress.getLocalHost();
-        DatagramPacket dp = new DatagramPacket(ba, ba.length, ia,9997);
+    /**
+     * This method is sending profiles list to server(UDP) in many packets (see UdpBulk), so the list can be bigger
+     * than one datagram. Lost packets are sent again.
+     * @param lsea list of profiles
+     * @throws IOException when the server does not answer
+     */
+    public void send_UDP_bulk(List<LSEA>lsea) throws IOException{
 
-        ds.send(dp);
-        ds.close();
-        oos.close();
-        baos.close();
+        byte[] ba = ProfileCodecs.selected().encode(lsea);
+        try (DatagramSocket ds = new DatagramSocket()) {
+            InetAddress ia = InetAddress.getLocalHost();
+            new UdpBulkSender(ds).send(ba, 0, ba.length, new InetSocketAddress(ia, UdpBulk.PORT));
+        }
     }
 }
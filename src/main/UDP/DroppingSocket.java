@@ -0,0 +1,55 @@
+package main.UDP;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketException;
+import java.util.Random;
+
+/**
+ * Socket which loses some of the sent packets, used for testing the bulk UDP transfer on loopback
+ * (UdpBulkLoad, tests).<br>
+ * Packets are lost with the given probability (random generator with a fixed seed) and the next n packets can be
+ * lost on purpose with dropNext.
+ */
+public class DroppingSocket extends DatagramSocket {
+
+    private final double rate;
+    private final Random random;
+    private int dropNext;
+    private long dropped;
+
+    /**
+     * @param port local port (0 - any free port)
+     * @param rate probability of losing a packet (0 - 1)
+     * @param seed seed of the random generator
+     * @throws SocketException when the port can not be bound
+     */
+    public DroppingSocket(int port, double rate, long seed) throws SocketException {
+        super(port);
+        this.rate = rate;
+        this.random = new Random(seed);
+    }
+
+    /*** @param n number of the next packets that will be lost*/
+    public synchronized void dropNext(int n) {
+        dropNext = n;
+    }
+
+    /*** @return number of lost packets*/
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public void send(DatagramPacket p) throws IOException {
+        synchronized(this) {
+            if(dropNext > 0 || random.nextDouble() < rate) {
+                if(dropNext > 0) dropNext--;
+                dropped++;
+                return;
+            }
+        }
+        super.send(p);
+    }
+}
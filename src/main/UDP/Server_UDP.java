@@ -2,14 +2,11 @@ package main.UDP;
 
 import lombok.NoArgsConstructor;
 import main.lsea.LSEA;
+import main.lsea.ProfileCodecs;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInput;
-import java.io.ObjectInputStream;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -23,31 +20,48 @@ import java.util.List;
 @NoArgsConstructor
 public class Server_UDP {
 
+    /*** MAX_BULK -> maximal length of the profiles received by receiveUDP_bulk (bytes)*/
+    public static final int MAX_BULK = 16 << 20;
+
     /**
-     * Method that is setting sever and getting data from the client(UDP) and than printing it.
-     * @param profiles list with all profiles
+     * Method that is setting sever and getting data from the client(UDP) and than printing it.<br>
+     * Data is decoded by the codec found in ProfileCodecs (compact or Java serialization).
+     * @param profiles list with all profiles (number of the profiles is taken from the data)
      * @throws ClassNotFoundException
      * @throws IOException
      */
     public void receiveUDP(List<LSEA>profiles) throws ClassNotFoundException, IOException {
 
-        List<LSEA>lsea = new ArrayList<LSEA>();
-        DatagramSocket ds = new DatagramSocket(9997);
-        byte[] b = new byte [profiles.size()*128];
-        DatagramPacket dp = new DatagramPacket(b,b.length);
-        ds.receive(dp);
-
-        byte[] data = dp.getData();
-        ByteArrayInputStream bais = new ByteArrayInputStream(data);
-        ObjectInput oi = new ObjectInputStream(bais);
+        try (DatagramSocket ds = new DatagramSocket(9997)) {
+            byte[] b = new byte [Client_UDP.MAX_DATAGRAM];
+            DatagramPacket dp = new DatagramPacket(b,b.length);
+            ds.receive(dp);
 
-        for(int i =0; i<profiles.size(); i++) {
-            lsea.add((LSEA) oi.readObject());
-            lsea.get(i).getInfo();
+            List<LSEA>lsea = ProfileCodecs.decode(dp.getData(), dp.getOffset(), dp.getLength());
+            for(LSEA profile : lsea) {
+                profile.getInfo();
+            }
         }
+    }
 
-        oi.close();
-        bais.close();
-        ds.close();
+    /**
+     * Method that is getting profiles sent by Client_UDP.send_UDP_bulk (many packets, see UdpBulk) and printing them.
+     * Transfers longer than MAX_BULK are ignored.
+     * @param profiles list with all profiles (used for the size of the preallocated buffer)
+     * @throws IOException
+     */
+    public void receiveUDP_bulk(List<LSEA>profiles) throws IOException {
+
+        try (DatagramSocket ds = new DatagramSocket(UdpBulk.PORT)) {
+            ds.setReceiveBufferSize(UdpBulk.RECEIVE_BUFFER);
+            UdpBulkReceiver receiver = new UdpBulkReceiver(ds, Math.min(64 + profiles.size() * 64, MAX_BULK), MAX_BULK);
+            int length = receiver.receive();
+            receiver.linger();
+
+            List<LSEA>lsea = ProfileCodecs.decode(receiver.getBuffer(), 0, length);
+            for(LSEA profile : lsea) {
+                profile.getInfo();
+            }
+        }
     }
 }
@@ -0,0 +1,71 @@
+package main.UDP;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Protocol of the bulk UDP transfer (UdpBulkSender and UdpBulkReceiver), used for data bigger than one datagram.<br>
+ * Data is cut into chunks that fit in one packet (PACKET bytes by default, below the usual MTU of 1500 bytes):<br>
+ * DATA - type, id of the transfer, length of the whole data, chunk size, sequence number of the chunk, chunk<br>
+ * STATUS - type, id, base (first chunk not received yet), number of ranges, ranges of missing chunks (start, count)<br>
+ * DONE - type, id (all chunks received)<br>
+ * Sender keeps at most WINDOW chunks above base in flight. Receiver sends STATUS after every STATUS_EVERY chunks,
+ * after the last chunk and when nothing comes for STATUS_MS, sender sends again only the chunks listed in the
+ * ranges (selective retransmission). When no answer comes for TIMEOUT_MS, sender sends the first missing chunk again,
+ * so the receiver learns about the transfer even when all packets were lost. All numbers are big endian.
+ */
+public final class UdpBulk {
+
+    /*** PORT -> default port of the bulk UDP server*/
+    public static final int PORT = 9996;
+    /*** PACKET -> default size of DATA packets (bytes)*/
+    public static final int PACKET = 1400;
+    /*** MAX_PACKET -> maximal size of the data in one UDP datagram (bytes)*/
+    public static final int MAX_PACKET = 65507;
+    /*** MAX_LENGTH -> maximal length of the data of one transfer allowed by the protocol (bytes), receivers accept less (see UdpBulkReceiver)*/
+    public static final int MAX_LENGTH = 1 << 30;
+    /*** RECEIVE_BUFFER -> size of the receive buffer of the socket of the receiver (limited by the system)*/
+    public static final int RECEIVE_BUFFER = 4 << 20;
+
+    static final byte DATA = 1, STATUS = 2, DONE = 3;
+    /*** DATA_HEADER -> type (1), id (4), length (4), chunk size (2), sequence number (4)*/
+    static final int DATA_HEADER = 15;
+    /*** STATUS_HEADER -> type (1), id (4), base (4), number of ranges (2)*/
+    static final int STATUS_HEADER = 11;
+    /*** MAX_RANGES -> maximal number of ranges of missing chunks in one STATUS*/
+    static final int MAX_RANGES = 64;
+
+    /*** WINDOW -> maximal number of chunks sent above base (receive buffer of the receiver should fit it, see RECEIVE_BUFFER)*/
+    static final int WINDOW = 1024;
+    /*** STATUS_EVERY -> receiver sends STATUS after this number of chunks*/
+    static final int STATUS_EVERY = 32;
+    /*** STATUS_MS -> receiver sends STATUS when nothing comes for this time*/
+    static final int STATUS_MS = 10;
+    /*** RESEND_MS -> the same chunk is not sent again earlier than after this time*/
+    static final int RESEND_MS = 10;
+    /*** TIMEOUT_MS -> sender sends the first missing chunk again when there is no answer for this time*/
+    static final int TIMEOUT_MS = 50;
+    /*** MAX_RETRIES -> number of timeouts in a row after which the transfer fails*/
+    static final int MAX_RETRIES = 100;
+    /*** IDLE_MS -> receiver fails the started transfer when nothing comes for this time*/
+    static final int IDLE_MS = 10000;
+    /*** LINGER_MS -> receiver answers late chunks of the finished transfer until nothing comes for this time*/
+    static final int LINGER_MS = 4 * TIMEOUT_MS;
+
+    private UdpBulk() {}
+
+    /*** @return number of chunks of the data (empty data has one empty chunk)*/
+    static int chunks(int length, int chunk) {
+        return Math.max(1, (int) (((long) length + chunk - 1) / chunk));
+    }
+
+    /*** sending DONE with the id of the transfer*/
+    static void sendDone(DatagramSocket socket, int id, SocketAddress to) throws IOException {
+        byte[] done = new byte[5];
+        ByteBuffer.wrap(done).put(DONE).putInt(id);
+        socket.send(new DatagramPacket(done, done.length, to));
+    }
+}
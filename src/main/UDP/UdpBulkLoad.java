@@ -0,0 +1,61 @@
+package main.UDP;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Local test of the bulk UDP transfer: random data is sent several times over loopback, packets are lost on both
+ * sides with the given probability (DroppingSocket). Throughput, retransmissions and correctness of the received
+ * data are printed.<br>
+ * Arguments: size of the data in MB (default 16), number of transfers (default 5), probability of losing a packet
+ * (default 0) and size of DATA packets (default 1400).
+ */
+public class UdpBulkLoad {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int size = (int) (Double.parseDouble(args.length > 0 ? args[0] : "16") * 1024 * 1024);
+        final int transfers = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        int packetSize = args.length > 3 ? Integer.parseInt(args[3]) : UdpBulk.PACKET;
+
+        final byte[] data = new byte[size];
+        new Random(1).nextBytes(data);
+
+        try (DroppingSocket senderSocket = new DroppingSocket(0, rate, 1);
+             final DroppingSocket receiverSocket = new DroppingSocket(0, rate, 2)) {
+            receiverSocket.setReceiveBufferSize(UdpBulk.RECEIVE_BUFFER);
+            final UdpBulkReceiver receiver = new UdpBulkReceiver(receiverSocket, size, size);
+            final int[] correct = new int[1];
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for(int i = 0; i < transfers; i++) {
+                            int length = receiver.receive();
+                            if(length == data.length && Arrays.equals(data, Arrays.copyOf(receiver.getBuffer(), length))) correct[0]++;
+                        }
+                        receiver.linger();
+                    } catch (IOException ex) {
+                        System.out.println(ex.getMessage());
+                    }
+                }
+            }, "bulk-receiver");
+            thread.start();
+
+            UdpBulkSender sender = new UdpBulkSender(senderSocket, packetSize);
+            InetSocketAddress to = new InetSocketAddress("localhost", receiverSocket.getLocalPort());
+            long start = System.nanoTime();
+            for(int i = 0; i < transfers; i++) sender.send(data, 0, data.length, to);
+            long time = System.nanoTime() - start;
+            thread.join();
+
+            System.out.println(String.format("%d x %.1f MB, loss %.1f%%: %.1f MB/s, %d of %d transfers correct",
+                    transfers, size / 1048576.0, rate * 100, (double) size * transfers / 1048576.0 / (time / 1e9), correct[0], transfers));
+            System.out.println("DATA packets sent " + sender.getPackets() + ", sent again " + sender.getResent()
+                    + ", received " + receiver.getChunks() + " (" + receiver.getDuplicates() + " duplicates), STATUS sent "
+                    + receiver.getStatuses() + ", lost " + (senderSocket.getDropped() + receiverSocket.getDropped()));
+        }
+    }
+}
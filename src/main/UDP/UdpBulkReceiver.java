@@ -0,0 +1,203 @@
+package main.UDP;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Receiving side of the bulk UDP transfer (protocol is described in UdpBulk).<br>
+ * Chunks are copied straight to their place in the buffer given at the beginning, a new buffer is allocated only
+ * for a transfer bigger than the current one. Transfers longer than maxLength given by the caller are ignored, so a
+ * stray or spoofed first packet can not make the receiver allocate more than that. One transfer at a time, packets of
+ * other transfers are ignored until the current one is finished (their senders send them again).
+ */
+public class UdpBulkReceiver {
+
+    private final DatagramSocket socket;
+    private final byte[] packet = new byte[UdpBulk.MAX_PACKET];
+    private final byte[] status = new byte[UdpBulk.STATUS_HEADER + 8 * UdpBulk.MAX_RANGES];
+    private byte[] buffer;
+    /*** maxLength -> maximal length of the data of one transfer accepted by this receiver (bytes)*/
+    private final int maxLength;
+    /*** last -> id of the last finished transfer, from -> its sender*/
+    private int last;
+    private SocketAddress from;
+    /**
+     * chunks -> received DATA packets, duplicates -> DATA packets received more than once, statuses -> sent STATUS packets<br>
+     * rejected -> first packets of transfers longer than maxLength (or with wrong header)
+     */
+    private long chunks, duplicates, statuses, rejected;
+
+    /**
+     * @param socket bound socket of the receiver
+     * @param capacity size of the preallocated buffer (bytes)
+     * @param maxLength maximal length of the data of one transfer (bytes, not bigger than UdpBulk.MAX_LENGTH), the
+     * buffer grows up to it for bigger transfers
+     */
+    public UdpBulkReceiver(DatagramSocket socket, int capacity, int maxLength) {
+        if(maxLength < 0 || maxLength > UdpBulk.MAX_LENGTH) throw new IllegalArgumentException("Wrong maximal length " + maxLength);
+        if(capacity < 0 || capacity > maxLength) throw new IllegalArgumentException("Capacity " + capacity + " is bigger than maximal length " + maxLength);
+        this.socket = socket;
+        this.buffer = new byte[capacity];
+        this.maxLength = maxLength;
+    }
+
+    /*** @return buffer with the data of the last transfer (from index 0, length returned by receive)*/
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /*** @return number of received DATA packets*/
+    public long getChunks() {
+        return chunks;
+    }
+
+    /*** @return number of DATA packets received more than once*/
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /*** @return number of sent STATUS packets*/
+    public long getStatuses() {
+        return statuses;
+    }
+
+    /*** @return number of ignored first packets of transfers longer than maxLength (or with wrong header)*/
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Waiting for the next transfer and receiving all of its chunks
+     *
+     * @return length of the data in the buffer
+     * @throws IOException when the sender stops sending in the middle of the transfer
+     */
+    public int receive() throws IOException {
+        DatagramPacket in = new DatagramPacket(packet, packet.length);
+        ByteBuffer data = ByteBuffer.wrap(packet);
+        boolean started = false;
+        int id = 0, length = 0, chunk = 0, count = 0, missing = 0, base = 0, highest = -1, since = 0, idle = 0;
+        BitSet got = null;
+        SocketAddress sender = null;
+        int timeout = socket.getSoTimeout();
+        socket.setSoTimeout(0);
+        try {
+            while(true) {
+                try {
+                    in.setLength(packet.length);
+                    socket.receive(in);
+                } catch (SocketTimeoutException ex) {
+                    idle += UdpBulk.STATUS_MS;
+                    if(idle >= UdpBulk.IDLE_MS) throw new SocketTimeoutException("Sender stopped in the middle of the transfer");
+                    sendStatus(id, got, base, count, sender);
+                    continue;
+                }
+                if(in.getLength() < UdpBulk.DATA_HEADER || packet[0] != UdpBulk.DATA) continue;
+                int packetId = data.getInt(1);
+                if(from != null && packetId == last) {
+                    UdpBulk.sendDone(socket, last, in.getSocketAddress());
+                    continue;
+                }
+                if(!started) {
+                    length = data.getInt(5);
+                    chunk = data.getShort(9) & 0xFFFF;
+                    if(length < 0 || length > maxLength || chunk == 0) {
+                        rejected++;
+                        continue;
+                    }
+                    id = packetId;
+                    sender = in.getSocketAddress();
+                    count = UdpBulk.chunks(length, chunk);
+                    got = new BitSet(count);
+                    missing = count;
+                    if(buffer.length < length) buffer = new byte[length];
+                    started = true;
+                    socket.setSoTimeout(UdpBulk.STATUS_MS);
+                } else if(packetId != id || !in.getSocketAddress().equals(sender)) {
+                    continue;
+                }
+                int seq = data.getInt(11);
+                if(seq < 0 || seq >= count || data.getInt(5) != length || (data.getShort(9) & 0xFFFF) != chunk) continue;
+                int size = Math.min(chunk, length - seq * chunk);
+                if(in.getLength() != UdpBulk.DATA_HEADER + size) continue;
+                idle = 0;
+                chunks++;
+                if(got.get(seq)) {
+                    duplicates++;
+                } else {
+                    System.arraycopy(packet, UdpBulk.DATA_HEADER, buffer, seq * chunk, size);
+                    got.set(seq);
+                    missing--;
+                    if(seq == base) base = got.nextClearBit(base);
+                    highest = Math.max(highest, seq);
+                }
+                if(missing == 0) {
+                    last = id;
+                    from = sender;
+                    UdpBulk.sendDone(socket, id, sender);
+                    return length;
+                }
+                if(++since >= UdpBulk.STATUS_EVERY || seq == count - 1) {
+                    since = 0;
+                    sendStatus(id, got, base, highest + 1, sender);
+                }
+            }
+        } finally {
+            socket.setSoTimeout(timeout);
+        }
+    }
+
+    /**
+     * Answering late chunks of the last transfer (its sender did not get DONE) until nothing comes for LINGER_MS.<br>
+     * Should be called before the socket is closed.
+     *
+     * @throws IOException
+     */
+    public void linger() throws IOException {
+        if(from == null) return;
+        DatagramPacket in = new DatagramPacket(packet, packet.length);
+        ByteBuffer data = ByteBuffer.wrap(packet);
+        int timeout = socket.getSoTimeout();
+        socket.setSoTimeout(UdpBulk.LINGER_MS);
+        try {
+            while(true) {
+                in.setLength(packet.length);
+                socket.receive(in);
+                if(in.getLength() >= UdpBulk.DATA_HEADER && packet[0] == UdpBulk.DATA && data.getInt(1) == last) {
+                    UdpBulk.sendDone(socket, last, in.getSocketAddress());
+                }
+            }
+        } catch (SocketTimeoutException ex) {
+            // sender got DONE
+        } finally {
+            socket.setSoTimeout(timeout);
+        }
+    }
+
+    /**
+     * Sending base and ranges of missing chunks below end
+     *
+     * @param end chunks from end are not reported (they can be still on the way)
+     */
+    private void sendStatus(int id, BitSet got, int base, int end, SocketAddress to) throws IOException {
+        ByteBuffer out = ByteBuffer.wrap(status);
+        out.put(UdpBulk.STATUS).putInt(id).putInt(base).putShort((short) 0);
+        int ranges = 0;
+        int start = got.nextClearBit(base);
+        while(start < end && ranges < UdpBulk.MAX_RANGES) {
+            int stop = got.nextSetBit(start);
+            if(stop < 0 || stop > end) stop = end;
+            out.putInt(start).putInt(stop - start);
+            ranges++;
+            start = got.nextClearBit(stop);
+        }
+        out.putShort(9, (short) ranges);
+        socket.send(new DatagramPacket(status, out.position(), to));
+        statuses++;
+    }
+}
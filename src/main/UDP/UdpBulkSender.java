@@ -0,0 +1,120 @@
+package main.UDP;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Sending side of the bulk UDP transfer (protocol is described in UdpBulk).<br>
+ * One transfer at a time, send returns when the receiver confirmed all chunks.
+ */
+public class UdpBulkSender {
+
+    private final DatagramSocket socket;
+    private final int chunk;
+    private final Random ids = new Random();
+    /*** packets -> all sent DATA packets, resent -> DATA packets sent again*/
+    private long packets, resent;
+
+    /*** @param socket socket used for sending and for the answers of the receiver*/
+    public UdpBulkSender(DatagramSocket socket) {
+        this(socket, UdpBulk.PACKET);
+    }
+
+    /**
+     * @param socket socket used for sending and for the answers of the receiver
+     * @param packetSize size of DATA packets (MTU of the path without IP and UDP headers)
+     */
+    public UdpBulkSender(DatagramSocket socket, int packetSize) {
+        if(packetSize <= UdpBulk.DATA_HEADER || packetSize > UdpBulk.MAX_PACKET) {
+            throw new IllegalArgumentException("Wrong size of the packet: " + packetSize);
+        }
+        this.socket = socket;
+        this.chunk = packetSize - UdpBulk.DATA_HEADER;
+    }
+
+    /*** @return number of all sent DATA packets*/
+    public long getPackets() {
+        return packets;
+    }
+
+    /*** @return number of DATA packets sent again after STATUS or timeout*/
+    public long getResent() {
+        return resent;
+    }
+
+    /**
+     * Sending the data and waiting until the receiver has all of it
+     *
+     * @param data array with the data
+     * @param offset index of the first byte
+     * @param length number of bytes
+     * @param to address of the receiver
+     * @throws IOException when the receiver does not answer
+     */
+    public void send(byte[] data, int offset, int length, SocketAddress to) throws IOException {
+        if(length < 0 || length > UdpBulk.MAX_LENGTH) throw new IOException("Wrong length of the data: " + length);
+        int id = ids.nextInt();
+        int count = UdpBulk.chunks(length, chunk);
+        long[] resentAt = new long[count];
+        byte[] packet = new byte[UdpBulk.DATA_HEADER + chunk];
+        DatagramPacket out = new DatagramPacket(packet, packet.length, to);
+        byte[] answer = new byte[UdpBulk.STATUS_HEADER + 8 * UdpBulk.MAX_RANGES];
+        DatagramPacket in = new DatagramPacket(answer, answer.length);
+        ByteBuffer status = ByteBuffer.wrap(answer);
+
+        int base = 0, next = 0, retries = 0;
+        int timeout = socket.getSoTimeout();
+        socket.setSoTimeout(UdpBulk.TIMEOUT_MS);
+        try {
+            while(true) {
+                while(next < count && next - base < UdpBulk.WINDOW) {
+                    sendChunk(id, next++, data, offset, length, out);
+                }
+                try {
+                    in.setLength(answer.length);
+                    socket.receive(in);
+                } catch (SocketTimeoutException ex) {
+                    if(++retries > UdpBulk.MAX_RETRIES) throw new SocketTimeoutException("Receiver does not answer");
+                    sendChunk(id, Math.min(base, count - 1), data, offset, length, out);
+                    resent++;
+                    continue;
+                }
+                if(in.getLength() < 5 || status.getInt(1) != id) continue;
+                if(answer[0] == UdpBulk.DONE) return;
+                if(answer[0] != UdpBulk.STATUS || in.getLength() < UdpBulk.STATUS_HEADER) continue;
+                retries = 0;
+                base = Math.max(base, Math.min(status.getInt(5), count));
+                int ranges = Math.min(status.getShort(9), (in.getLength() - UdpBulk.STATUS_HEADER) / 8);
+                long now = System.nanoTime();
+                for(int r = 0; r < ranges; r++) {
+                    int start = Math.max(base, status.getInt(UdpBulk.STATUS_HEADER + 8 * r));
+                    int end = (int) Math.min(next, (long) start + status.getInt(UdpBulk.STATUS_HEADER + 8 * r + 4));
+                    for(int seq = start; seq < end; seq++) {
+                        if(now - resentAt[seq] < UdpBulk.RESEND_MS * 1000000L) continue;
+                        resentAt[seq] = now;
+                        sendChunk(id, seq, data, offset, length, out);
+                        resent++;
+                    }
+                }
+            }
+        } finally {
+            socket.setSoTimeout(timeout);
+        }
+    }
+
+    private void sendChunk(int id, int seq, byte[] data, int offset, int length, DatagramPacket out) throws IOException {
+        int from = seq * chunk;
+        int size = Math.min(chunk, length - from);
+        byte[] packet = out.getData();
+        ByteBuffer.wrap(packet).put(UdpBulk.DATA).putInt(id).putInt(length).putShort((short) chunk).putInt(seq);
+        System.arraycopy(data, offset + from, packet, UdpBulk.DATA_HEADER, size);
+        out.setLength(UdpBulk.DATA_HEADER + size);
+        socket.send(out);
+        packets++;
+    }
+}
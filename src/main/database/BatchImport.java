@@ -0,0 +1,86 @@
+package main.database;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+
+/**
+ * Class used by DB_Handling for persisting rows loaded from files.<br>
+ * Two modes are available:<br>
+ * 1. per-row mode (batchSize &lt;= 1) - every row is committed in its own transaction, like it was done before<br>
+ * 2. bulk mode (batchSize &gt; 1) - rows are persisted in one transaction per chunk of batchSize entities.
+ * At the end of every chunk EntityManager is flushed and cleared, so Hibernate sends the inserts in JDBC batches
+ * (hibernate.jdbc.batch_size in persistence.xml) and the persistence context does not grow with the file.<br>
+ * After the import rows/sec achieved is printed, so both modes can be compared.
+ */
+class BatchImport {
+
+    /*** eM -> entity manager used for the whole import*/
+    private final EntityManager eM;
+    /*** batchSize -> number of entities in one chunk (one transaction), 1 or less means per-row mode*/
+    private final int batchSize;
+    /*** tx -> transaction of the current chunk, null when no chunk is open*/
+    private EntityTransaction tx;
+    /*** inChunk -> number of entities persisted in the current chunk*/
+    private int inChunk;
+    /*** rows -> number of entities persisted since the import started*/
+    private long rows;
+    /*** start -> time when the import started (ns)*/
+    private final long start;
+
+    /**
+     * @param eM instance of entity Manager, needed for transactions
+     * @param batchSize number of entities committed in one transaction, 1 or less for per-row mode
+     */
+    BatchImport(EntityManager eM, int batchSize) {
+        this.eM = eM;
+        this.batchSize = batchSize;
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * method used for persisting one entity, depending on the mode it is committed at once or at the end of the chunk
+     *
+     * @param entity entity that will be persisted
+     */
+    void persist(Object entity) {
+        if(batchSize <= 1) {
+            EntityTransaction eT = eM.getTransaction();
+            eT.begin();
+            eM.persist(entity);
+            eT.commit();
+            rows++;
+            return;
+        }
+        if(tx == null) {
+            tx = eM.getTransaction();
+            tx.begin();
+        }
+        eM.persist(entity);
+        rows++;
+        if(++inChunk == batchSize) commitChunk();
+    }
+
+    /**
+     * method used for finishing the import - the last (not full) chunk is committed and the rate is printed
+     *
+     * @param uPath Path of the imported file(String), used only in the message
+     * @return number of rows persisted during the import
+     */
+    long finish(String uPath) {
+        if(tx != null) commitChunk();
+        long nanos = Math.max(1, System.nanoTime() - start);
+        long rate = (long) (rows * 1e9 / nanos);
+        System.out.println("Imported " + rows + " rows from " + uPath + " in " + nanos / 1000000 + " ms (" + rate
+                + " rows/s, " + (batchSize <= 1 ? "per-row mode" : "batch size " + batchSize) + ")");
+        return rows;
+    }
+
+    /*** flushing and clearing the persistence context and committing the chunk*/
+    private void commitChunk() {
+        eM.flush();
+        eM.clear();
+        tx.commit();
+        tx = null;
+        inChunk = 0;
+    }
+}
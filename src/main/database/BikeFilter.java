@@ -0,0 +1,96 @@
+package main.database;
+
+import javax.persistence.Query;
+
+/**
+ * Class used for describing which bikes should be deleted by DB_Handling.deleteBikes.<br>
+ * Conditions that are set are joined with AND, conditions that are not set are skipped:<br>
+ * brand - exact name of the brand<br>
+ * minPrice, maxPrice - range of the price (inclusive)<br>
+ * ownerId - id of DB_Profile of the owner<br>
+ * available - value of is_available (1 or 0)<br>
+ * The same filter is used for JPQL statement (where) and for the list in memory (matches).
+ */
+public class BikeFilter {
+
+    private String brand;
+    private Float minPrice;
+    private Float maxPrice;
+    private Integer ownerId;
+    private Integer available;
+
+    /*** @return filter of the bikes of given brand*/
+    public static BikeFilter ofBrand(String brand) {
+        return new BikeFilter().brand(brand);
+    }
+
+    public BikeFilter brand(String brand) {
+        this.brand = brand;
+        return this;
+    }
+
+    public BikeFilter priceBetween(float minPrice, float maxPrice) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public BikeFilter owner(int ownerId) {
+        this.ownerId = ownerId;
+        return this;
+    }
+
+    public BikeFilter available(int available) {
+        this.available = available;
+        return this;
+    }
+
+    /*** @return true when no condition is set (such filter matches every bike)*/
+    public boolean isEmpty() {
+        return brand == null && minPrice == null && maxPrice == null && ownerId == null && available == null;
+    }
+
+    /**
+     * @param alias alias of DB_Bike used in the statement
+     * @return WHERE part of JPQL statement (empty when no condition is set)
+     */
+    String where(String alias) {
+        StringBuilder sb = new StringBuilder();
+        if(brand != null) and(sb).append(alias).append(".brand = :brand");
+        if(minPrice != null) and(sb).append(alias).append(".price >= :minPrice");
+        if(maxPrice != null) and(sb).append(alias).append(".price <= :maxPrice");
+        if(ownerId != null) and(sb).append(alias).append(".account.id = :ownerId");
+        if(available != null) and(sb).append(alias).append(".is_available = :available");
+        return sb.toString();
+    }
+
+    /**
+     * setting the parameters used in where
+     *
+     * @param query query created from where
+     */
+    void setParameters(Query query) {
+        if(brand != null) query.setParameter("brand", brand);
+        if(minPrice != null) query.setParameter("minPrice", minPrice);
+        if(maxPrice != null) query.setParameter("maxPrice", maxPrice);
+        if(ownerId != null) query.setParameter("ownerId", ownerId);
+        if(available != null) query.setParameter("available", available);
+    }
+
+    /**
+     * @param bike bike from the list in memory
+     * @return true if bike fulfills all conditions
+     */
+    boolean matches(DB_Bike bike) {
+        if(brand != null && !brand.equals(bike.getBrand())) return false;
+        if(minPrice != null && !(bike.getPrice() >= minPrice)) return false;
+        if(maxPrice != null && !(bike.getPrice() <= maxPrice)) return false;
+        if(ownerId != null && (bike.getAccount() == null || bike.getAccount().getId() != ownerId)) return false;
+        if(available != null && bike.getIs_available() != available) return false;
+        return true;
+    }
+
+    private static StringBuilder and(StringBuilder sb) {
+        return sb.append(sb.length() == 0 ? " WHERE " : " AND ");
+    }
+}
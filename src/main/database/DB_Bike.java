@@ -13,9 +13,11 @@ import javax.persistence.*;
  *
  */
 @Entity @Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@Table(indexes = {@Index(name = "IDX_BIKE_BRAND", columnList = "brand")})
 public class DB_Bike {
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bike_seq")
+    @SequenceGenerator(name = "bike_seq", sequenceName = "BIKE_SEQ", allocationSize = 50)
     private int id_bike;
     private String title;
     private String brand;
@@ -20,7 +20,8 @@ import javax.persistence.*;
 public class DB_Car {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_seq")
+    @SequenceGenerator(name = "car_seq", sequenceName = "CAR_SEQ", allocationSize = 50)
     private int id_car;
     private String title;
     private String brand;
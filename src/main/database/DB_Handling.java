@@ -3,6 +3,8 @@ package main.database;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 
 import javax.persistence.*;
@@ -14,7 +16,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -36,15 +38,30 @@ public class DB_Handling {
     private ArrayList<DB_Frame> dbF = new ArrayList<>();
     private ArrayList<DB_Car> dbC = new ArrayList<>();
     private ArrayList<DB_Bike> dbB = new ArrayList<>();
+    /**
+     * batchSize -> number of rows committed in one transaction by the load methods.<br>
+     * 1 (default) keeps per-row mode, bigger values turn on bulk import mode (see BatchImport)
+     */
+    private int batchSize = 1;
+    /*** PAGE_SIZE -> number of profiles read at once by query*/
+    public static final int PAGE_SIZE = 500;
 
     public static void main(String[] args) throws FileNotFoundException {
         DB_Handling db_H = new DB_Handling();
-        EntityManagerFactory eMF = Persistence.createEntityManagerFactory("DataBaseP");
+        db_H.setBatchSize(Integer.getInteger("db.batchSize", 1));
+        EntityManagerFactory eMF = PersistenceUnits.create();
         EntityManager entityManager = eMF.createEntityManager();
         db_H.loadProfiles("data/profiles", entityManager);
         db_H.loadFrames("data/frames", entityManager);
-        db_H.loadCars("data/cars", entityManager);
-        db_H.loadBikes("data/bikes", entityManager);
+        int threads = Integer.getInteger("db.threads", 1);
+        if(threads > 1) {
+            db_H.loadCarsParallel("data/cars", eMF, threads);
+            db_H.loadBikesParallel("data/bikes", eMF, threads);
+        }
+        else {
+            db_H.loadCars("data/cars", entityManager);
+            db_H.loadBikes("data/bikes", entityManager);
+        }
         db_H.deleteBikeBrand("Bikos", entityManager);
         db_H.updatePassword("Test",entityManager);
         db_H.query(entityManager, 21, 5000);
@@ -53,38 +70,29 @@ public class DB_Handling {
     }
 
     /**
-     * method used for loading data from file to the database (profiles)
+     * method used for loading data from file to the database (profiles)<br>
+     * rows are committed one by one or in chunks of batchSize rows (bulk import mode)
      *
      * @param uPath Path of the file(String)
      * @param eM instance of entity Manager, needed for transactions
      */
     public boolean loadProfiles(String uPath, EntityManager eM){
 
-        String nick, password, name, surname;
-        int age;
-        float money;
-
         File file = new File(uPath+".txt");
         if(file.exists()) {
             try (FileChannel fch = FileChannel.open(file.toPath());
-                 Scanner input = new Scanner(file)) {
+                 RecordReader input = new RecordReader(fch, RecordReader.DEFAULT_BUFFER)) {
                 FileLock lock = fch.tryLock(0L, Long.MAX_VALUE, true);
                 if (lock != null) {
                     System.out.println("Locked File " + uPath + ".txt");
-                    while (input.hasNextLine()) {
-                        nick = input.nextLine();
-                        password = input.nextLine();
-                        name = input.nextLine();
-                        surname = input.nextLine();
-                        age = Integer.parseInt(input.nextLine());
-                        money = Float.parseFloat(input.nextLine());
-                        DB_Profile dbp = new DB_Profile(nick, password, name, surname, age, money);
+                    BatchImport batch = new BatchImport(eM, this.getBatchSize());
+                    RecordReader.ProfileRecord r = new RecordReader.ProfileRecord();
+                    while (input.next(r)) {
+                        DB_Profile dbp = new DB_Profile(r.nick, r.password, r.name, r.surname, r.age, r.money);
                         this.getDbP().add(dbp);
-                        EntityTransaction eT = eM.getTransaction();
-                        eT.begin();
-                        eM.persist(dbp);
-                        eT.commit();
+                        batch.persist(dbp);
                     }
+                    batch.finish(uPath + ".txt");
                     lock.release();
                 }
             } catch (IOException ex) {
@@ -101,7 +109,8 @@ public class DB_Handling {
     }
 
     /**
-     * method used for loading data from file to the database (frames)
+     * method used for loading data from file to the database (frames)<br>
+     * rows are committed one by one or in chunks of batchSize rows (bulk import mode)
      *
      * @param uPath Path of the file(String)
      * @param eM instance of entity Manager, needed for transactions
@@ -113,18 +122,15 @@ public class DB_Handling {
             ReadWriteLock lock = new ReentrantReadWriteLock();
             lock.readLock().lock();
             System.out.println("Locked File " + uPath + ".txt");
-            try {
-                Scanner input = new Scanner(file);
-                while (input.hasNextLine()) {
-                    String line = input.nextLine();
-                    String[] row = line.split(",");
-                    DB_Frame frame = new DB_Frame(Integer.parseInt(row[0]), row[1]);
+            try (RecordReader input = new RecordReader(file.toPath())) {
+                BatchImport batch = new BatchImport(eM, this.getBatchSize());
+                RecordReader.FrameRecord r = new RecordReader.FrameRecord();
+                while (input.next(r)) {
+                    DB_Frame frame = new DB_Frame(r.frameID, r.material);
                     this.getDbF().add(frame);
-                    EntityTransaction tx = eM.getTransaction();
-                    tx.begin();
-                    eM.persist(frame);
-                    tx.commit();
+                    batch.persist(frame);
                 }
+                batch.finish(uPath + ".txt");
             } catch (IOException e) {
                 e.printStackTrace();
             } finally {
@@ -140,7 +146,8 @@ public class DB_Handling {
     }
 
     /**
-     * method used for loading data from file to the database (cars)
+     * method used for loading data from file to the database (cars)<br>
+     * rows are committed one by one or in chunks of batchSize rows (bulk import mode)
      *
      * @param uPath Path of the file(String)
      * @param eM instance of entity Manager, needed for transactions
@@ -148,38 +155,23 @@ public class DB_Handling {
      */
     public boolean loadCars(String uPath, EntityManager eM) throws FileNotFoundException {
 
-        String title, brand, transmission, country;
-        int is_auction, id_account, available, year_of, power, passengers;
-        float price, weight;
-
         File file = new File(uPath+".txt");
         if(file.exists()) {
             try (FileChannel fch = FileChannel.open(file.toPath());
-                 Scanner in = new Scanner(file)) {
+                 RecordReader in = new RecordReader(fch, RecordReader.DEFAULT_BUFFER)) {
                 FileLock lock = fch.tryLock(0L, Long.MAX_VALUE, true);
                 if (lock != null) {
                     System.out.println("Locked File " + uPath + ".txt");
-                    while (in.hasNextLine()) {
-                        title = in.nextLine();
-                        brand = in.nextLine();
-                        is_auction = Integer.parseInt(in.nextLine());
-                        price = Float.parseFloat(in.nextLine());
-                        weight = Float.parseFloat(in.nextLine());
-                        id_account = Integer.parseInt(in.nextLine());
-                        available = Integer.parseInt(in.nextLine());
-                        year_of = Integer.parseInt(in.nextLine());
-                        power = Integer.parseInt(in.nextLine());
-                        passengers = Integer.parseInt(in.nextLine());
-                        transmission = in.nextLine();
-                        country = in.nextLine();
-                        DB_Profile profile = eM.getReference(DB_Profile.class, id_account);
-                        DB_Car car = new DB_Car(title, brand, is_auction, price, weight, profile, available, year_of, power, passengers, transmission, country);
+                    BatchImport batch = new BatchImport(eM, this.getBatchSize());
+                    RecordReader.CarRecord r = new RecordReader.CarRecord();
+                    while (in.next(r)) {
+                        DB_Profile profile = eM.getReference(DB_Profile.class, r.id_account);
+                        DB_Car car = new DB_Car(r.title, r.brand, r.is_auction, r.price, r.weight, profile, r.available,
+                                r.year_of, r.power, r.passengers, r.transmission, r.country);
                         this.getDbC().add(car);
-                        EntityTransaction tx = eM.getTransaction();
-                        tx.begin();
-                        eM.persist(car);
-                        tx.commit();
+                        batch.persist(car);
                     }
+                    batch.finish(uPath + ".txt");
                     lock.release();
                 }
             } catch (IOException e) {
@@ -196,46 +188,31 @@ public class DB_Handling {
     }
 
     /**
-     * method used for loading data from file to the database (bikes)
+     * method used for loading data from file to the database (bikes)<br>
+     * rows are committed one by one or in chunks of batchSize rows (bulk import mode)
      *
      * @param uPath Path of the file(String)
      * @param eM instance of entity Manager, needed for transactions
      */
     public boolean loadBikes(String uPath, EntityManager eM) {
 
-        int auction, available, gear, lights, bell, breaks, id_account, id_frame;
-        float weight, price;
-        String nameOI, brand;
-
         File file = new File(uPath+".txt");
         if(file.exists()) {
             ReadWriteLock lock = new ReentrantReadWriteLock();
             lock.readLock().lock();
             System.out.println("Locked File " + uPath + ".txt");
-            try {
-                Scanner input = new Scanner(file);
-                while (input.hasNextLine()) {
-                    nameOI = input.nextLine();
-                    brand = input.nextLine();
-                    auction = Integer.parseInt(input.nextLine());
-                    price = Float.parseFloat(input.nextLine());
-                    weight = Float.parseFloat(input.nextLine());
-                    id_account = Integer.parseInt(input.nextLine());
-                    available = Integer.parseInt(input.nextLine());
-                    gear = Integer.parseInt(input.nextLine());
-                    id_frame = Integer.parseInt(input.nextLine());
-                    lights = Integer.parseInt(input.nextLine());
-                    bell = Integer.parseInt(input.nextLine());
-                    breaks = Integer.parseInt(input.nextLine());
-                    DB_Profile profile = eM.getReference(DB_Profile.class, id_account);
-                    DB_Frame frame = eM.getReference(DB_Frame.class, id_frame);
-                    DB_Bike bike = new DB_Bike(nameOI, brand, auction, price, weight, profile, available, gear, frame, lights, bell, breaks);
+            try (RecordReader input = new RecordReader(file.toPath())) {
+                BatchImport batch = new BatchImport(eM, this.getBatchSize());
+                RecordReader.BikeRecord r = new RecordReader.BikeRecord();
+                while (input.next(r)) {
+                    DB_Profile profile = eM.getReference(DB_Profile.class, r.id_account);
+                    DB_Frame frame = eM.getReference(DB_Frame.class, r.id_frame);
+                    DB_Bike bike = new DB_Bike(r.title, r.brand, r.is_auction, r.price, r.weight, profile, r.available,
+                            r.gear, frame, r.are_lights, r.is_bell, r.are_breaks);
                     this.getDbB().add(bike);
-                    EntityTransaction tx = eM.getTransaction();
-                    tx.begin();
-                    eM.persist(bike);
-                    tx.commit();
+                    batch.persist(bike);
                 }
+                batch.finish(uPath + ".txt");
             } catch (IOException e) {
                 e.printStackTrace();
             } finally {
@@ -250,6 +227,127 @@ public class DB_Handling {
         }
     }
 
+    /**
+     * method used for loading only bikes of one brand from big file to the database<br>
+     * file is memory-mapped (see MappedRecordFile), brand is compared on the bytes of the file
+     * and other fields are read only for the bikes that match, so other records do not create any objects
+     *
+     * @param uPath Path of the file(String)
+     * @param brand name of a brand of the bikes that will be loaded
+     * @param eM instance of entity Manager, needed for transactions
+     */
+    public boolean loadBikesByBrand(String uPath, String brand, EntityManager eM) {
+
+        File file = new File(uPath+".txt");
+        if(!file.exists()) {
+            System.out.println("Specified path does not exist - " + uPath + ".txt");
+            return false;
+        }
+        try (MappedRecordFile input = new MappedRecordFile(file.toPath(), ParallelImport.RECORD_LINES)) {
+            byte[] wanted = brand.getBytes("UTF-8");
+            BatchImport batch = new BatchImport(eM, this.getBatchSize());
+            MappedRecordFile.Cursor c = input.cursor();
+            while (c.next()) {
+                if (!c.fieldEquals(MappedRecordFile.BRAND, wanted)) continue;
+                DB_Profile profile = eM.getReference(DB_Profile.class, c.getInt(MappedRecordFile.ID_ACCOUNT));
+                DB_Frame frame = eM.getReference(DB_Frame.class, c.getInt(MappedRecordFile.BIKE_ID_FRAME));
+                DB_Bike bike = new DB_Bike(c.getString(MappedRecordFile.TITLE), brand,
+                        c.getInt(MappedRecordFile.IS_AUCTION), c.getFloat(MappedRecordFile.PRICE),
+                        c.getFloat(MappedRecordFile.WEIGHT), profile, c.getInt(MappedRecordFile.IS_AVAILABLE),
+                        c.getInt(MappedRecordFile.BIKE_GEAR), frame, c.getInt(MappedRecordFile.BIKE_ARE_LIGHTS),
+                        c.getInt(MappedRecordFile.BIKE_IS_BELL), c.getInt(MappedRecordFile.BIKE_ARE_BREAKS));
+                this.getDbB().add(bike);
+                batch.persist(bike);
+            }
+            batch.finish(uPath + ".txt");
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * method used for loading data from file to the database (cars) on many threads<br>
+     * file is split at record boundaries and every partition is persisted through its own EntityManager
+     * (see ParallelImport). Profiles have to be loaded before, because cars reference them by id.
+     *
+     * @param uPath Path of the file(String)
+     * @param eMF entity manager factory, every partition creates its own EntityManager from it
+     * @param threads number of worker threads
+     */
+    public boolean loadCarsParallel(String uPath, EntityManagerFactory eMF, int threads) {
+        return loadParallel(uPath, eMF, threads, this.getDbC(), new ParallelImport.RowParser<DB_Car>() {
+            @Override
+            public DB_Car next(RecordReader in, EntityManager eM) throws IOException {
+                // parser is shared by all partitions, so the record is local
+                RecordReader.CarRecord r = new RecordReader.CarRecord();
+                if(!in.next(r)) return null;
+                DB_Profile profile = eM.getReference(DB_Profile.class, r.id_account);
+                return new DB_Car(r.title, r.brand, r.is_auction, r.price, r.weight, profile, r.available,
+                        r.year_of, r.power, r.passengers, r.transmission, r.country);
+            }
+        });
+    }
+
+    /**
+     * method used for loading data from file to the database (bikes) on many threads<br>
+     * file is split at record boundaries and every partition is persisted through its own EntityManager
+     * (see ParallelImport). Profiles and frames have to be loaded before, because bikes reference them by id.
+     *
+     * @param uPath Path of the file(String)
+     * @param eMF entity manager factory, every partition creates its own EntityManager from it
+     * @param threads number of worker threads
+     */
+    public boolean loadBikesParallel(String uPath, EntityManagerFactory eMF, int threads) {
+        return loadParallel(uPath, eMF, threads, this.getDbB(), new ParallelImport.RowParser<DB_Bike>() {
+            @Override
+            public DB_Bike next(RecordReader in, EntityManager eM) throws IOException {
+                // parser is shared by all partitions, so the record is local
+                RecordReader.BikeRecord r = new RecordReader.BikeRecord();
+                if(!in.next(r)) return null;
+                DB_Profile profile = eM.getReference(DB_Profile.class, r.id_account);
+                DB_Frame frame = eM.getReference(DB_Frame.class, r.id_frame);
+                return new DB_Bike(r.title, r.brand, r.is_auction, r.price, r.weight, profile, r.available,
+                        r.gear, frame, r.are_lights, r.is_bell, r.are_breaks);
+            }
+        });
+    }
+
+    /**
+     * common part of loadCarsParallel and loadBikesParallel - locking the file, running the import
+     * and adding the rows to the list in the order of the file
+     */
+    private <T> boolean loadParallel(String uPath, EntityManagerFactory eMF, int threads, List<T> list,
+                                     ParallelImport.RowParser<T> parser) {
+        File file = new File(uPath+".txt");
+        if(!file.exists()) {
+            System.out.println("Specified path does not exist - " + uPath + ".txt");
+            return false;
+        }
+        try (FileChannel fch = FileChannel.open(file.toPath())) {
+            FileLock lock = fch.tryLock(0L, Long.MAX_VALUE, true);
+            if (lock == null) {
+                System.out.println("Unable to lock file " + uPath + ".txt");
+                return false;
+            }
+            System.out.println("Locked File " + uPath + ".txt");
+            try {
+                list.addAll(ParallelImport.run(file.toPath(), eMF, threads, this.getBatchSize(), parser));
+            } finally {
+                lock.release();
+                System.out.println("Released Lock on file " + uPath + ".txt");
+            }
+            return true;
+        } catch (IOException | ExecutionException ex) {
+            System.out.println("Parallel import of " + uPath + ".txt failed: " + ex.getMessage());
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     /**
      * method used for deleting bike by typing its brand<br>
      * it's possible to delete more than one row at one time
@@ -259,35 +357,51 @@ public class DB_Handling {
      */
     public boolean deleteBikeBrand(String brand, EntityManager eM){
 
-        int flag = 0;
         if(this.getDbB().size() > 0) {
-            // remove from database
-            for (int i = 1; i <= this.getDbB().size(); i++) {
-                DB_Bike bikeCheck = eM.find(DB_Bike.class, i);
-                if (bikeCheck != null) {
-                    if (bikeCheck.getBrand().equals(brand)) {
-                        eM.getTransaction().begin();
-                        eM.remove(bikeCheck);
-                        eM.getTransaction().commit();
-                        System.out.println("Bike " + brand + " was successfully deleted");
-                        flag = 1;
-                        i -= 1;
-                        break;
-                    } else if (i == this.getDbB().size()) System.out.println("Such brand does not exist");
-                }
-            }
-            // remove form array list
-            for (int i = 0; i <= this.getDbB().size() - 1; i++) {
-                if (this.getDbB().get(i).getBrand().equals(brand)) {
-                    this.getDbB().remove(i);
-                    i -= 1;
-                }
+            int deleted = deleteBikes(BikeFilter.ofBrand(brand), eM);
+            if(deleted > 0) {
+                System.out.println("Bike " + brand + " was successfully deleted (" + deleted + " rows)");
+                return true;
             }
+            System.out.println("Such brand does not exist");
         }
         else System.out.println("Unable to delete bike, list of bikes is empty");
+        return false;
+    }
+
+    /**
+     * method used for deleting all bikes that match the filter (brand, price range, owner, availability)<br>
+     * rows are deleted by one DELETE statement (brand is indexed, see DB_Bike), list of bikes in memory
+     * is filtered in one pass
+     *
+     * @param filter conditions of the bikes that will be deleted
+     * @param eM instance of entity Manager, needed for transactions
+     * @return number of deleted rows
+     * @throws IllegalArgumentException when filter has no condition (it would delete every bike)
+     */
+    public int deleteBikes(BikeFilter filter, EntityManager eM){
+
+        if(filter.isEmpty()) throw new IllegalArgumentException("Filter has no condition, refusing to delete all bikes");
+        Query query = eM.createQuery("DELETE FROM DB_Bike b" + filter.where("b"));
+        filter.setParameters(query);
+        EntityTransaction eT = eM.getTransaction();
+        eT.begin();
+        int deleted;
+        try {
+            deleted = query.executeUpdate();
+            eT.commit();
+        } finally {
+            if(eT.isActive()) eT.rollback();
+        }
 
-        if (flag == 1) return true;
-        else return false;
+        // bulk delete does not touch the persistence context, deleted bikes are only dropped from the list
+        // (detach would cascade to the owner and frame proxies that are shared with the kept bikes)
+        ArrayList<DB_Bike> kept = new ArrayList<>(this.getDbB().size());
+        for (DB_Bike bike : this.getDbB()) {
+            if (!filter.matches(bike)) kept.add(bike);
+        }
+        this.setDbB(kept);
+        return deleted;
     }
 
     /**
@@ -316,21 +430,85 @@ public class DB_Handling {
     }
 
     /**
-     * method used for querying the dattabase (using SELECT statement)
+     * method used for querying the dattabase (using SELECT statement)<br>
+     * profiles are read page by page (see queryPage) and detached after printing, so not all of them are in memory
      *
      * @param eM instance of entity Manager, needed for transactions
      * @param parameter1 value of age argument, written by user
      * @param parameter2 value of money argument, written by user
      */
     public boolean query(EntityManager eM, int parameter1, float parameter2){
-        String queryString = "SELECT p FROM DB_Profile p WHERE p.age > :age AND p.money < :money";
-        Query query = eM.createQuery(queryString);
-        query.setParameter("age", parameter1);
-        query.setParameter("money", parameter2);
-        List<DB_Profile> profiles = query.getResultList();
-        for(int i=0; i<profiles.size(); i++){
-            System.out.println(profiles.get(i).toString());
-        }
+        int afterId = 0;
+        List<DB_Profile> profiles;
+        do {
+            profiles = queryPage(eM, parameter1, parameter2, afterId, PAGE_SIZE);
+            for(DB_Profile profile : profiles){
+                System.out.println(profile.toString());
+                afterId = profile.getId();
+                eM.detach(profile);
+            }
+        } while(profiles.size() == PAGE_SIZE);
         return true;
     }
+
+    /**
+     * method used for reading one page of the query result (keyset pagination - seek on id)<br>
+     * next page is read by passing id of the last profile of the previous page as afterId
+     *
+     * @param eM instance of entity Manager, needed for transactions
+     * @param age profiles older than age are returned
+     * @param money profiles with less money are returned
+     * @param afterId only profiles with bigger id are returned (0 for the first page)
+     * @param pageSize maximum number of profiles returned
+     * @return profiles sorted by id
+     */
+    public List<DB_Profile> queryPage(EntityManager eM, int age, float money, int afterId, int pageSize){
+        TypedQuery<DB_Profile> query = eM.createQuery(
+                "SELECT p FROM DB_Profile p WHERE p.age > :age AND p.money < :money AND p.id > :afterId ORDER BY p.id",
+                DB_Profile.class);
+        query.setParameter("age", age);
+        query.setParameter("money", money);
+        query.setParameter("afterId", afterId);
+        query.setMaxResults(pageSize);
+        return query.getResultList();
+    }
+
+    /**
+     * method used for streaming the query result - forward-only Hibernate ScrollableResults with given fetch size<br>
+     * every profile is passed to the handler and then detached, so memory does not depend on the number of rows
+     *
+     * @param eM instance of entity Manager, needed for transactions
+     * @param age profiles older than age are returned
+     * @param money profiles with less money are returned
+     * @param fetchSize number of rows read from the database at once
+     * @param handler called for every profile
+     * @return number of profiles
+     */
+    public long queryStream(EntityManager eM, int age, float money, int fetchSize, ProfileHandler handler){
+        Session session = eM.unwrap(Session.class);
+        org.hibernate.query.Query<DB_Profile> query = session.createQuery(
+                "SELECT p FROM DB_Profile p WHERE p.age > :age AND p.money < :money", DB_Profile.class);
+        query.setParameter("age", age);
+        query.setParameter("money", money);
+        query.setFetchSize(fetchSize);
+        query.setReadOnly(true);
+        long count = 0;
+        ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while(results.next()){
+                DB_Profile profile = (DB_Profile) results.get(0);
+                handler.handle(profile);
+                session.detach(profile);
+                count++;
+            }
+        } finally {
+            results.close();
+        }
+        return count;
+    }
+
+    /*** Interface used by queryStream, handle is called for every profile returned by the query*/
+    public interface ProfileHandler {
+        void handle(DB_Profile profile);
+    }
 }
@@ -6,6 +6,9 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 
 /**
  * Class used for creating DB Profile entity (table).<br>
@@ -18,10 +21,13 @@ import javax.persistence.Id;
  */
 @Entity
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @ToString
+@Table(indexes = {@Index(name = "IDX_PROFILE_AGE", columnList = "age"),
+        @Index(name = "IDX_PROFILE_MONEY", columnList = "money")})
 public class DB_Profile {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "profile_seq")
+    @SequenceGenerator(name = "profile_seq", sequenceName = "PROFILE_SEQ", allocationSize = 50)
     private int id;
     private String nick;
     private String password;
@@ -0,0 +1,195 @@
+package main.database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Class used for reading big dumps in the format of data/bikes.txt and data/cars.txt without loading them on the heap.<br>
+ * File is memory-mapped with FileChannel.map, files bigger than 2 GB are mapped as many regions of REGION bytes.<br>
+ * Cursor finds only the offsets of the lines of the current record, nothing is copied while scanning.<br>
+ * Fields are materialized lazily - only when getString, getInt or getFloat is called, so records can be
+ * filtered (fieldEquals) or counted without creating any objects.<br>
+ * Indexes of the fields are given by the constants below (the same order as in the files).
+ */
+public class MappedRecordFile implements Closeable {
+
+    /*** REGION -> size of one mapped region (bytes)*/
+    public static final long REGION = 1L << 30;
+    /*** UTF8 -> charset of the text fields*/
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /*** fields common for bikes and cars (data/bikes.txt and data/cars.txt)*/
+    public static final int TITLE = 0, BRAND = 1, IS_AUCTION = 2, PRICE = 3, WEIGHT = 4, ID_ACCOUNT = 5, IS_AVAILABLE = 6;
+    /*** fields of bikes (data/bikes.txt)*/
+    public static final int BIKE_GEAR = 7, BIKE_ID_FRAME = 8, BIKE_ARE_LIGHTS = 9, BIKE_IS_BELL = 10, BIKE_ARE_BREAKS = 11;
+    /*** fields of cars (data/cars.txt)*/
+    public static final int CAR_YEAR_OF = 7, CAR_POWER = 8, CAR_PASSENGERS = 9, CAR_TRANSMISSION = 10, CAR_COUNTRY = 11;
+
+    /*** channel -> channel of the mapped file*/
+    private final FileChannel channel;
+    /*** regions -> mapped parts of the file, region i starts at byte i * REGION*/
+    private final MappedByteBuffer[] regions;
+    /*** size -> size of the file (bytes)*/
+    private final long size;
+    /*** linesPerRecord -> number of lines of one record (12 for bikes and cars)*/
+    private final int linesPerRecord;
+
+    /**
+     * @param path path of the file
+     * @param linesPerRecord number of lines of one record
+     * @throws IOException
+     */
+    public MappedRecordFile(Path path, int linesPerRecord) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.linesPerRecord = linesPerRecord;
+        this.regions = new MappedByteBuffer[(int) ((size + REGION - 1) / REGION)];
+        for(int i = 0; i < regions.length; i++) {
+            long start = i * REGION;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION, size - start));
+        }
+    }
+
+    /*** @return size of the file (bytes)*/
+    public long size() {
+        return size;
+    }
+
+    /*** @return new cursor placed before the first record*/
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Counting records which have given field equal to value, without materializing any field
+     *
+     * @param field index of the field
+     * @param value wanted value
+     * @return number of records
+     */
+    public long count(int field, String value) {
+        byte[] bytes = value.getBytes(UTF8);
+        long count = 0;
+        Cursor c = cursor();
+        while(c.next()) {
+            if(c.fieldEquals(field, bytes)) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*** @return byte at given position of the file*/
+    private byte get(long pos) {
+        return regions[(int) (pos / REGION)].get((int) (pos % REGION));
+    }
+
+    /**
+     * @param from position where searching starts
+     * @return position of the next '\n' or -1 when there is none
+     */
+    private long nextLineEnd(long from) {
+        for(int r = (int) (from / REGION); r < regions.length; r++) {
+            MappedByteBuffer region = regions[r];
+            int limit = region.limit();
+            for(int i = (int) Math.max(0, from - r * REGION); i < limit; i++) {
+                if(region.get(i) == '\n') return r * REGION + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Cursor over the records of the file.<br>
+     * It keeps only the offsets of the lines of current record (two long arrays), fields are read on demand.
+     */
+    public class Cursor {
+
+        /*** starts, ends -> offsets of the lines of current record (end without line separator)*/
+        private final long[] starts = new long[linesPerRecord];
+        private final long[] ends = new long[linesPerRecord];
+        /*** next -> offset of the next record*/
+        private long next;
+        /*** scratch -> buffer used for parsing numbers and creating Strings of one field*/
+        private byte[] scratch = new byte[64];
+
+        /**
+         * Moving to the next record
+         *
+         * @return false if there are no more records
+         */
+        public boolean next() {
+            if(next >= size) return false;
+            long pos = next;
+            for(int k = 0; k < linesPerRecord; k++) {
+                if(pos >= size) throw new NoSuchElementException("No line found");
+                long end = nextLineEnd(pos);
+                long lineEnd = end < 0 ? size : end;
+                starts[k] = pos;
+                ends[k] = (lineEnd > pos && get(lineEnd - 1) == '\r') ? lineEnd - 1 : lineEnd;
+                pos = lineEnd + 1;
+            }
+            next = pos;
+            return true;
+        }
+
+        /*** @return offset of the current record in the file*/
+        public long offset() {
+            return starts[0];
+        }
+
+        /**
+         * @param field index of the field
+         * @param value wanted value (UTF-8 bytes)
+         * @return true if field has exactly this value
+         */
+        public boolean fieldEquals(int field, byte[] value) {
+            long start = starts[field];
+            if(ends[field] - start != value.length) return false;
+            for(int i = 0; i < value.length; i++) {
+                if(get(start + i) != value[i]) return false;
+            }
+            return true;
+        }
+
+        /*** @return field as String*/
+        public String getString(int field) {
+            int len = copy(field);
+            return new String(scratch, 0, len, UTF8);
+        }
+
+        /*** @return field parsed as int, like Integer.parseInt*/
+        public int getInt(int field) {
+            return RecordReader.parseInt(scratch, 0, copy(field));
+        }
+
+        /*** @return field parsed as float, like Float.parseFloat*/
+        public float getFloat(int field) {
+            return RecordReader.parseFloat(scratch, 0, copy(field));
+        }
+
+        /**
+         * Copying bytes of one field into scratch buffer
+         *
+         * @return length of the field
+         */
+        private int copy(int field) {
+            long start = starts[field];
+            int len = (int) (ends[field] - start);
+            if(len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+            for(int i = 0; i < len; i++) {
+                scratch[i] = get(start + i);
+            }
+            return len;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package main.database;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class used for parallel import of the files with fixed number of lines per record (cars.txt and bikes.txt).<br>
+ * 1. File is split into partitions at record boundaries (one pass counting the lines)<br>
+ * 2. Every partition is parsed by one task of the worker pool through its own RecordReader<br>
+ * 3. Every task persists its rows through its own EntityManager created from the shared EntityManagerFactory<br>
+ * Foreign keys are resolved with getReference by ids from the file, so profiles and frames have to be committed before.<br>
+ * Rows of all partitions are returned in the order of the file, the same as in sequential import.
+ */
+class ParallelImport {
+
+    /*** RECORD_LINES -> number of lines of one record in cars.txt and bikes.txt*/
+    static final int RECORD_LINES = 12;
+    /*** CHECKPOINT -> every CHECKPOINT-th record start is remembered while the file is split*/
+    private static final int CHECKPOINT = 1024;
+
+    /**
+     * Interface used for creating one entity from the reader, implemented in DB_Handling for cars and bikes
+     * @param <T> type of the entity
+     */
+    interface RowParser<T> {
+        /**
+         * @param in reader of the partition
+         * @param eM entity manager of the partition, used for references to other entities
+         * @return next entity or null when the partition ended
+         * @throws IOException
+         */
+        T next(RecordReader in, EntityManager eM) throws IOException;
+    }
+
+    /**
+     * Splitting the file into at most partitions parts, every part starts at the beginning of a record
+     *
+     * @param path path of the file
+     * @param linesPerRecord number of lines of one record
+     * @param partitions wanted number of partitions
+     * @return offsets of partitions, partition i is from offsets[i] to offsets[i+1]
+     * @throws IOException
+     */
+    static long[] split(Path path, int linesPerRecord, int partitions) throws IOException {
+        long[] checkpoints = new long[64];
+        int count = 1;
+        long lines = 0, size;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = ch.size();
+            ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+            byte[] data = buf.array();
+            long offset = 0;
+            int n;
+            while((n = ch.read(buf, offset)) > 0) {
+                for(int i = 0; i < n; i++) {
+                    if(data[i] == '\n' && ++lines % ((long) linesPerRecord * CHECKPOINT) == 0 && offset + i + 1 < size) {
+                        if(count == checkpoints.length) {
+                            long[] bigger = new long[count * 2];
+                            System.arraycopy(checkpoints, 0, bigger, 0, count);
+                            checkpoints = bigger;
+                        }
+                        checkpoints[count++] = offset + i + 1;
+                    }
+                }
+                offset += n;
+                buf.clear();
+            }
+        }
+        int parts = Math.max(1, Math.min(partitions, count));
+        long[] offsets = new long[parts + 1];
+        for(int p = 0; p < parts; p++) {
+            offsets[p] = checkpoints[(int) ((long) p * count / parts)];
+        }
+        offsets[parts] = size;
+        return offsets;
+    }
+
+    /**
+     * Running the import of the whole file on the pool of threads
+     *
+     * @param path path of the file
+     * @param eMF factory used for creating EntityManager of every partition
+     * @param threads number of worker threads
+     * @param batchSize number of rows committed in one transaction (see BatchImport)
+     * @param parser parser of one record
+     * @param <T> type of the entity
+     * @return all persisted entities in the order of the file
+     * @throws IOException
+     * @throws ExecutionException when any of the partitions failed
+     * @throws InterruptedException
+     */
+    static <T> List<T> run(final Path path, final EntityManagerFactory eMF, int threads, final int batchSize,
+                           final RowParser<T> parser) throws IOException, ExecutionException, InterruptedException {
+        long start = System.nanoTime();
+        final long[] offsets = split(path, RECORD_LINES, threads * 4);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<T>>> parts = new ArrayList<>();
+        try {
+            for(int p = 0; p < offsets.length - 1; p++) {
+                final int part = p;
+                parts.add(pool.submit(new Callable<List<T>>() {
+                    @Override
+                    public List<T> call() throws IOException {
+                        List<T> rows = new ArrayList<>();
+                        EntityManager eM = eMF.createEntityManager();
+                        try (RecordReader in = new RecordReader(FileChannel.open(path, StandardOpenOption.READ),
+                                offsets[part], offsets[part + 1], RecordReader.DEFAULT_BUFFER)) {
+                            BatchImport batch = new BatchImport(eM, batchSize);
+                            T row;
+                            while((row = parser.next(in, eM)) != null) {
+                                rows.add(row);
+                                batch.persist(row);
+                            }
+                            batch.finish(path + " [partition " + part + "]");
+                        } finally {
+                            if(eM.getTransaction().isActive()) eM.getTransaction().rollback();
+                            eM.close();
+                        }
+                        return rows;
+                    }
+                }));
+            }
+            List<T> all = new ArrayList<>();
+            for(Future<List<T>> part : parts) {
+                all.addAll(part.get());
+            }
+            long nanos = Math.max(1, System.nanoTime() - start);
+            System.out.println("Parallel import of " + path + ": " + all.size() + " rows, " + (offsets.length - 1)
+                    + " partitions, " + threads + " threads, " + nanos / 1000000 + " ms ("
+                    + (long) (all.size() * 1e9 / nanos) + " rows/s)");
+            return all;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package main.database;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Choice of the persistence unit from persistence.xml.<br>
+ * System property olx.db selects the database:<br>
+ * 1. server (default) - unit DataBaseP, network Derby on localhost:1527<br>
+ * 2. memory - unit DataBaseMemory, embedded in-memory Derby, no server needed (tests, benchmarks)<br>
+ * All EntityManagerFactory objects of the application are created here. Embedded Derby writes its log to
+ * derby.log in the temporary directory (not to the working directory), unless DERBY_LOG is set.
+ */
+public final class PersistenceUnits {
+
+    /*** PROPERTY -> name of the system property with the database*/
+    public static final String PROPERTY = "olx.db";
+    /*** SERVER -> unit with network Derby*/
+    public static final String SERVER = "DataBaseP";
+    /*** MEMORY -> unit with embedded in-memory Derby*/
+    public static final String MEMORY = "DataBaseMemory";
+    /*** DERBY_LOG -> system property with the file of the log of embedded Derby*/
+    public static final String DERBY_LOG = "derby.stream.error.file";
+
+    private PersistenceUnits() {}
+
+    /*** @return name of the persistence unit selected by the system property*/
+    public static String unitName() {
+        String db = System.getProperty(PROPERTY, "server");
+        switch (db) {
+            case "server":
+                return SERVER;
+            case "memory":
+                return MEMORY;
+            default:
+                throw new IllegalArgumentException("Unknown value of " + PROPERTY + ": " + db + " (server or memory)");
+        }
+    }
+
+    /*** @return factory of the persistence unit selected by the system property*/
+    public static EntityManagerFactory create() {
+        return Persistence.createEntityManagerFactory(prepare(unitName()));
+    }
+
+    /*** @return factory of the unit with embedded in-memory Derby (whatever the system property is)*/
+    public static EntityManagerFactory createMemory() {
+        return Persistence.createEntityManagerFactory(prepare(MEMORY));
+    }
+
+    /**
+     * @param properties properties that override properties of the unit
+     * @return factory of the persistence unit selected by the system property
+     */
+    public static EntityManagerFactory create(Map<String, ?> properties) {
+        return Persistence.createEntityManagerFactory(prepare(unitName()), properties);
+    }
+
+    /*** moving the log of embedded Derby to the temporary directory before Derby boots*/
+    private static String prepare(String unit) {
+        if(MEMORY.equals(unit) && System.getProperty(DERBY_LOG) == null) {
+            System.setProperty(DERBY_LOG, new File(System.getProperty("java.io.tmpdir"), "derby.log").getPath());
+        }
+        return unit;
+    }
+}
@@ -0,0 +1,425 @@
+package main.database;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Class used for reading the data/*.txt files line by line, instead of java.util.Scanner.<br>
+ * File is read through FileChannel into one reusable byte buffer, so the memory used does not depend on the file size
+ * (buffer grows only when a single line is longer than it).<br>
+ * Ints and floats are parsed straight from the bytes, Strings are created only for text fields.<br>
+ * Results are the same as Scanner.nextLine() + Integer.parseInt/Float.parseFloat - for anything unusual
+ * (exponents, very long numbers, whitespace) parsing falls back to those methods, so also the exceptions are the same.<br>
+ * Typed records (ProfileRecord, CarRecord, BikeRecord, FrameRecord) are reused between calls of next().
+ */
+public class RecordReader implements Closeable {
+
+    /*** DEFAULT_BUFFER -> default size of the read buffer (bytes)*/
+    public static final int DEFAULT_BUFFER = 64 * 1024;
+    /*** UTF8 -> charset of the text fields*/
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    /*** FLOAT_POW10 -> powers of 10 that are exact in float*/
+    private static final float[] FLOAT_POW10 = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+    /*** channel -> channel of the file that is read*/
+    private final FileChannel channel;
+    /*** filePos, fileEnd -> position of the next read and end of the part of the file that is read*/
+    private long filePos;
+    private final long fileEnd;
+    /*** data -> read buffer, bytes from pos to limit are not consumed yet*/
+    private byte[] data;
+    private int pos;
+    private int limit;
+    /*** eof -> true when whole file was read into the buffer*/
+    private boolean eof;
+    /*** lineStart, lineEnd -> bounds of the last line found in the buffer (without line separator)*/
+    private int lineStart;
+    private int lineEnd;
+
+    /**
+     * @param path path of the file that will be read
+     * @throws IOException
+     */
+    public RecordReader(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), DEFAULT_BUFFER);
+    }
+
+    /**
+     * Reader working on already opened channel (for example one that is locked), whole file is read
+     *
+     * @param channel opened file channel, it is closed together with the reader
+     * @param bufferSize starting size of the read buffer
+     */
+    public RecordReader(FileChannel channel, int bufferSize) {
+        this(channel, 0, Long.MAX_VALUE, bufferSize);
+    }
+
+    /**
+     * Reader working only on the part of the file from byte from to byte to (exclusive).<br>
+     * Used for partitioned import, where from and to have to be at the beginning of a record.
+     *
+     * @param channel opened file channel, it is closed together with the reader
+     * @param from index of the first byte that is read
+     * @param to index after the last byte that is read
+     * @param bufferSize starting size of the read buffer
+     */
+    public RecordReader(FileChannel channel, long from, long to, int bufferSize) {
+        this.channel = channel;
+        this.filePos = from;
+        this.fileEnd = to;
+        this.data = new byte[Math.max(bufferSize, 16)];
+    }
+
+    /**
+     * @return true if there is anything more to read (same as Scanner.hasNextLine())
+     * @throws IOException
+     */
+    public boolean hasNextLine() throws IOException {
+        while(pos >= limit) {
+            if(eof) return false;
+            fill();
+        }
+        return true;
+    }
+
+    /**
+     * @return next line as String (without line separator)
+     * @throws IOException
+     */
+    public String nextLine() throws IOException {
+        findLine();
+        return new String(data, lineStart, lineEnd - lineStart, UTF8);
+    }
+
+    /**
+     * @return next line parsed as int, like Integer.parseInt(nextLine())
+     * @throws IOException
+     */
+    public int nextInt() throws IOException {
+        findLine();
+        return parseInt(data, lineStart, lineEnd);
+    }
+
+    /**
+     * @return next line parsed as float, like Float.parseFloat(nextLine())
+     * @throws IOException
+     */
+    public float nextFloat() throws IOException {
+        findLine();
+        return parseFloat(data, lineStart, lineEnd);
+    }
+
+    /*** skipping one line without creating anything
+     * @throws IOException */
+    public void skipLine() throws IOException {
+        findLine();
+    }
+
+    /**
+     * Reading one profile (6 lines: nick, password, name, surname, age, money)
+     *
+     * @param r record that will be filled
+     * @return false if there are no more records
+     * @throws IOException
+     */
+    public boolean next(ProfileRecord r) throws IOException {
+        if(!hasNextLine()) return false;
+        r.nick = nextLine();
+        r.password = nextLine();
+        r.name = nextLine();
+        r.surname = nextLine();
+        r.age = nextInt();
+        r.money = nextFloat();
+        return true;
+    }
+
+    /**
+     * Reading one car (12 lines, format of data/cars.txt)
+     *
+     * @param r record that will be filled
+     * @return false if there are no more records
+     * @throws IOException
+     */
+    public boolean next(CarRecord r) throws IOException {
+        if(!hasNextLine()) return false;
+        r.title = nextLine();
+        r.brand = nextLine();
+        r.is_auction = nextInt();
+        r.price = nextFloat();
+        r.weight = nextFloat();
+        r.id_account = nextInt();
+        r.available = nextInt();
+        r.year_of = nextInt();
+        r.power = nextInt();
+        r.passengers = nextInt();
+        r.transmission = nextLine();
+        r.country = nextLine();
+        return true;
+    }
+
+    /**
+     * Reading one bike (12 lines, format of data/bikes.txt)
+     *
+     * @param r record that will be filled
+     * @return false if there are no more records
+     * @throws IOException
+     */
+    public boolean next(BikeRecord r) throws IOException {
+        if(!hasNextLine()) return false;
+        r.title = nextLine();
+        r.brand = nextLine();
+        r.is_auction = nextInt();
+        r.price = nextFloat();
+        r.weight = nextFloat();
+        r.id_account = nextInt();
+        r.available = nextInt();
+        r.gear = nextInt();
+        r.id_frame = nextInt();
+        r.are_lights = nextInt();
+        r.is_bell = nextInt();
+        r.are_breaks = nextInt();
+        return true;
+    }
+
+    /**
+     * Reading one frame (one line: id,material)
+     *
+     * @param r record that will be filled
+     * @return false if there are no more records
+     * @throws IOException
+     */
+    public boolean next(FrameRecord r) throws IOException {
+        if(!hasNextLine()) return false;
+        findLine();
+        int comma = indexOf(',', lineStart, lineEnd);
+        if(comma < 0) throw new ArrayIndexOutOfBoundsException(1);
+        int next = indexOf(',', comma + 1, lineEnd);
+        r.frameID = parseInt(data, lineStart, comma);
+        r.material = new String(data, comma + 1, (next < 0 ? lineEnd : next) - comma - 1, UTF8);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Finding next line in the buffer (reading more of the file when needed) and setting lineStart, lineEnd
+     * @throws IOException
+     */
+    private void findLine() throws IOException {
+        int scan = pos;
+        while(true) {
+            for(int i = scan; i < limit; i++) {
+                if(data[i] == '\n') {
+                    lineStart = pos;
+                    lineEnd = (i > pos && data[i - 1] == '\r') ? i - 1 : i;
+                    pos = i + 1;
+                    return;
+                }
+            }
+            if(eof) {
+                if(pos >= limit) throw new NoSuchElementException("No line found");
+                lineStart = pos;
+                lineEnd = data[limit - 1] == '\r' ? limit - 1 : limit;
+                pos = limit;
+                return;
+            }
+            int scanned = limit - pos;
+            fill();
+            scan = pos + scanned;
+        }
+    }
+
+    /**
+     * Moving not consumed bytes to the beginning of the buffer and reading next part of the file.<br>
+     * Buffer is doubled only when it is full of one unfinished line.
+     * @throws IOException
+     */
+    private void fill() throws IOException {
+        if(pos > 0) {
+            System.arraycopy(data, pos, data, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if(limit == data.length) {
+            byte[] bigger = new byte[data.length * 2];
+            System.arraycopy(data, 0, bigger, 0, limit);
+            data = bigger;
+        }
+        int room = (int) Math.min(data.length - limit, fileEnd - filePos);
+        int n = room > 0 ? channel.read(ByteBuffer.wrap(data, limit, room), filePos) : -1;
+        if(n < 0) eof = true;
+        else {
+            limit += n;
+            filePos += n;
+        }
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for(int i = from; i < to; i++) {
+            if(data[i] == c) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Parsing int from bytes, result is the same as Integer.parseInt(new String(b, from, to - from))
+     *
+     * @param b bytes
+     * @param from index of the first byte
+     * @param to index after the last byte
+     * @return parsed value
+     */
+    static int parseInt(byte[] b, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if(i < to && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+        // up to 9 digits can not overflow, longer numbers and wrong input go to Integer.parseInt
+        if(i == to || to - i > 9) return Integer.parseInt(new String(b, from, to - from, UTF8));
+        int result = 0;
+        for(; i < to; i++) {
+            int d = b[i] - '0';
+            if(d < 0 || d > 9) return Integer.parseInt(new String(b, from, to - from, UTF8));
+            result = result * 10 + d;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parsing float from bytes, result is the same as Float.parseFloat(new String(b, from, to - from)).<br>
+     * Fast path is used when all digits fit into 24 bits and there are at most 10 digits after the dot -
+     * then both numbers are exact floats and one division gives correctly rounded result.
+     *
+     * @param b bytes
+     * @param from index of the first byte
+     * @param to index after the last byte
+     * @return parsed value
+     */
+    static float parseFloat(byte[] b, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if(i < to && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+        int mantissa = 0, digits = 0, fraction = -1;
+        for(; i < to; i++) {
+            int d = b[i] - '0';
+            if(d >= 0 && d <= 9) {
+                mantissa = mantissa * 10 + d;
+                digits++;
+                if(mantissa >= (1 << 24)) return Float.parseFloat(new String(b, from, to - from, UTF8));
+                if(fraction >= 0) fraction++;
+            }
+            else if(b[i] == '.' && fraction < 0) fraction = 0;
+            else return Float.parseFloat(new String(b, from, to - from, UTF8));
+        }
+        if(digits == 0 || fraction > 10) return Float.parseFloat(new String(b, from, to - from, UTF8));
+        float result = fraction > 0 ? (float) mantissa / FLOAT_POW10[fraction] : (float) mantissa;
+        return negative ? -result : result;
+    }
+
+    /*** Profile record (data/profiles.txt)*/
+    public static class ProfileRecord {
+        public String nick, password, name, surname;
+        public int age;
+        public float money;
+    }
+
+    /*** Car record (data/cars.txt), owner is given by id of DB_Profile*/
+    public static class CarRecord {
+        public String title, brand, transmission, country;
+        public int is_auction, id_account, available, year_of, power, passengers;
+        public float price, weight;
+    }
+
+    /*** Bike record (data/bikes.txt), owner and frame are given by ids of DB_Profile and DB_Frame*/
+    public static class BikeRecord {
+        public String title, brand;
+        public int is_auction, id_account, available, gear, id_frame, are_lights, is_bell, are_breaks;
+        public float price, weight;
+    }
+
+    /*** Frame record (data/frames.txt)*/
+    public static class FrameRecord {
+        public int frameID;
+        public String material;
+    }
+
+    /**
+     * Throughput comparison of Scanner and RecordReader on bikes file.<br>
+     * args[0] - path of the file (default data/bikesBench.txt), args[1] - size in MB of the generated file
+     * when it does not exist (default 2048)
+     */
+    public static void main(String[] args) throws IOException {
+        File file = new File(args.length > 0 ? args[0] : "data/bikesBench.txt");
+        long size = (args.length > 1 ? Long.parseLong(args[1]) : 2048L) * 1024 * 1024;
+        if(!file.exists()) generateBikes(file, size);
+
+        long start = System.nanoTime();
+        long sum = 0, count = 0;
+        try (Scanner input = new Scanner(file)) {
+            while(input.hasNextLine()) {
+                String nameOI = input.nextLine();
+                String brand = input.nextLine();
+                sum += Integer.parseInt(input.nextLine());
+                sum += (long) Float.parseFloat(input.nextLine());
+                sum += (long) Float.parseFloat(input.nextLine());
+                for(int i = 0; i < 7; i++) sum += Integer.parseInt(input.nextLine());
+                sum += nameOI.length() + brand.length();
+                count++;
+            }
+        }
+        report("Scanner", file.length(), count, sum, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        sum = 0;
+        count = 0;
+        BikeRecord r = new BikeRecord();
+        try (RecordReader input = new RecordReader(file.toPath())) {
+            while(input.next(r)) {
+                sum += r.is_auction + (long) r.price + (long) r.weight + r.id_account + r.available + r.gear + r.id_frame
+                        + r.are_lights + r.is_bell + r.are_breaks + r.title.length() + r.brand.length();
+                count++;
+            }
+        }
+        report("RecordReader", file.length(), count, sum, System.nanoTime() - start);
+    }
+
+    private static void report(String name, long bytes, long records, long checksum, long nanos) {
+        System.out.println(name + ": " + records + " records in " + nanos / 1000000 + " ms, "
+                + (bytes * 1000L / nanos) + " MB/s, " + (records * 1000000000L / nanos) + " records/s (checksum "
+                + checksum + ")");
+    }
+
+    private static void generateBikes(File file, long size) throws IOException {
+        Random rand = new Random(42);
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file), 1 << 20)) {
+            long written = 0;
+            for(int i = 0; written < size; i++) {
+                String record = "Test_" + i + "\nBikeos\n" + rand.nextInt(2) + "\n" + (float) (rand.nextInt(1000000) / 100.0)
+                        + "\n" + (float) (rand.nextInt(100000) / 1000.0) + "\n" + (1 + rand.nextInt(19)) + "\n"
+                        + rand.nextInt(2) + "\n" + (1 + rand.nextInt(10)) + "\n" + (1 + rand.nextInt(5)) + "\n"
+                        + rand.nextInt(2) + "\n" + rand.nextInt(2) + "\n" + rand.nextInt(2) + "\n";
+                out.write(record);
+                written += record.length();
+            }
+        }
+    }
+}
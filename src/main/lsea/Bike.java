@@ -9,9 +9,6 @@ import main.threads.RateArr;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import java.io.*;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -201,55 +198,38 @@ public class Bike extends Item implements Comparator<Bike>,Serializable{
     public void save() {}
 
     /**
-     * overloaded save from Item class
+     * overloaded save from Item class<br>
+     * Ids of the owner and frame are taken from maps built once before writing, so saving is linear in the number of offers.
+     * File is written through SnapshotWriter (temporary file renamed over the target) and the speed (MB/s) is printed.
      * @param db_H object of class necessary for database handling
      * @param bikes list of all offers of bikes(List<Bike>)
      */
     public void save(DB_Handling db_H, List<Bike>bikes, String uPath) {
         File file = new File(uPath + ".txt");
-        try {
-            FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
-            FileLock fl = fc.tryLock();
-            FileWriter output = new FileWriter(file);
-            if(fl != null) {
-                System.out.println("File is locked");
-                for (int i = 0; i < bikes.size(); i++) {
-                    int flag = -1;
-                    if (bikes.get(i).getAccount() != null) {
-                        output.write(bikes.get(i).getNameOI() + "\n");
-                        output.write(bikes.get(i).getBrand() + "\n");
-                        output.write(bikes.get(i).getIs_auction() + "\n");
-                        output.write(bikes.get(i).getPrice() + "\n");
-                        output.write(bikes.get(i).getWeight() + "\n");
-                        for (int j = 0; j < db_H.getDbB().size(); j++) {
-                            if (db_H.getDbB().get(j).getAccount().getNick() == bikes.get(i).getAccount().getNick()) {
-                                flag = db_H.getDbB().get(j).getAccount().getId();
-                                output.write(flag + "\n");
-                                break;
-                            }
-                        }
-                        if (flag == -1) {
-                            output.write((db_H.getDbP().size() + 1) + "\n");
-                        }
-                        output.write(bikes.get(i).getIs_available() + "\n");
-                        output.write(bikes.get(i).getGear() + "\n");
-                        for (int j = 0; j < db_H.getDbB().size(); j++) {
-                            if (Frame.valueOf(db_H.getDbB().get(j).getFrame().getMaterial()) == bikes.get(i).getFrame()) {
-                                flag = db_H.getDbB().get(j).getFrame().getFrameID();
-                                output.write(flag + "\n");
-                                break;
-                            }
-                        }
-                        output.write(bikes.get(i).getAre_lights() + "\n");
-                        output.write(bikes.get(i).getIs_bell() + "\n");
-                        output.write(bikes.get(i).getAre_breaks() + "\n");
-                    }
+        try (SnapshotWriter output = new SnapshotWriter(file.toPath())) {
+            long start = System.nanoTime();
+            Map<String, Integer> profileIds = profileIds(db_H);
+            Map<Frame, Integer> frameIds = frameIds(db_H);
+            int newProfile = db_H.getDbP().size() + 1;
+            for (int i = 0; i < bikes.size(); i++) {
+                if (bikes.get(i).getAccount() != null) {
+                    Integer owner = profileIds.get(bikes.get(i).getAccount().getNick());
+                    output.write(bikes.get(i).getNameOI() + "\n");
+                    output.write(bikes.get(i).getBrand() + "\n");
+                    output.write(bikes.get(i).getIs_auction() + "\n");
+                    output.write(bikes.get(i).getPrice() + "\n");
+                    output.write(bikes.get(i).getWeight() + "\n");
+                    output.write((owner != null ? owner : newProfile) + "\n");
+                    output.write(bikes.get(i).getIs_available() + "\n");
+                    output.write(bikes.get(i).getGear() + "\n");
+                    output.write(frameIds.get(bikes.get(i).getFrame()) + "\n");
+                    output.write(bikes.get(i).getAre_lights() + "\n");
+                    output.write(bikes.get(i).getIs_bell() + "\n");
+                    output.write(bikes.get(i).getAre_breaks() + "\n");
                 }
-                fl.release();
-                System.out.println("File is unlocked");
-                System.out.println("Data were saved to Txt file");
             }
-            output.close();
+            printRate(output.commit(), start);
+            System.out.println("Data were saved to Txt file");
         }catch(IOException ex) {System.out.print(ex.getMessage());}
     }
 
@@ -260,35 +240,39 @@ public class Bike extends Item implements Comparator<Bike>,Serializable{
      * @return list with bikes (type Bikes)
      */
     public ArrayList<Bike> loadBikeDB(DB_Handling db_H, List<LSEA> profiles){
+        return loadBikeDB(db_H, ProfileRegistry.of(db_H, profiles));
+    }
+
+    /**
+     * Loading values from the database, owners are found in the registry by id of DB_Profile (or by nick)
+     * @param db_H object of class necessary for database handling
+     * @param registry registry of all accounts
+     * @return list with bikes (type Bikes)
+     */
+    public ArrayList<Bike> loadBikeDB(DB_Handling db_H, ProfileRegistry registry){
         ArrayList<Bike>bikes = new ArrayList<>();
         ArrayList<DB_Bike> dbB = db_H.getDbB();
-        String nameOI, brand,account;
+        String nameOI, brand;
         Frame frame;
         int auction,gear,lights,bell,breaks,available;
         float price, weight;
+        LSEA account;
         for(int i=0; i<dbB.size(); i++){
-            int flag = -1;
             nameOI = dbB.get(i).getTitle();
             brand = dbB.get(i).getBrand();
             auction = dbB.get(i).getIs_auction();
             price = dbB.get(i).getPrice();
             weight = dbB.get(i).getWeight();
-            account = dbB.get(i).getAccount().getNick();
+            account = registry.byId(dbB.get(i).getAccount().getId());
+            if(account == null) account = registry.byNick(dbB.get(i).getAccount().getNick());
             available = dbB.get(i).getIs_available();
             gear = dbB.get(i).getGear();
             frame = Frame.valueOf(dbB.get(i).getFrame().getMaterial());
             lights = dbB.get(i).getAre_lights();
             bell = dbB.get(i).getIs_bell();
             breaks = dbB.get(i).getAre_breaks();
-            for (int j=0; j<profiles.size(); j++) {
-                if(profiles.get(j).getNick().contains(account))
-                {
-                    flag = j;
-                    break;
-                }
-            }
-            if(flag!=-1){
-                bikes.add(new Bike(nameOI,brand,auction,price,weight,profiles.get(flag),available,gear,frame,lights,bell,breaks));
+            if(account != null){
+                bikes.add(new Bike(nameOI,brand,auction,price,weight,account,available,gear,frame,lights,bell,breaks));
             }
         }
         return bikes;
@@ -300,39 +284,41 @@ public class Bike extends Item implements Comparator<Bike>,Serializable{
      * @return list with bikes (type Bikes)
      */
     public List<Bike> load(List<LSEA> profiles){
+        return load(ProfileRegistry.of(profiles));
+    }
+
+    /**
+     * Loading values from the .txt file, owners are found in the registry by exact nick
+     * @param registry registry of all accounts
+     * @return list with bikes (type Bikes)
+     */
+    public List<Bike> load(ProfileRegistry registry){
         List<Bike>bikes = new ArrayList<Bike>();
         File file = new File("bikes.txt");
-        String nameOI, brand,account;
+        String nameOI, brand;
         Frame frame;
-        int auction,gear,lights,bell,breaks,available,flag=-1;
+        int auction,gear,lights,bell,breaks,available;
         float price, weight;
-        try {
-            Scanner input = new Scanner(file);
+        LSEA account;
+        try (RecordReader input = new RecordReader(file.toPath())) {
             while(input.hasNextLine()) {
                 nameOI = input.nextLine();
                 brand = input.nextLine();
-                auction = Integer.parseInt(input.nextLine());
-                price = Float.parseFloat(input.nextLine());
-                weight = Float.parseFloat(input.nextLine());
-                account = input.nextLine();
-                available = Integer.parseInt(input.nextLine());
-                gear = Integer.parseInt(input.nextLine());
+                auction = input.nextInt();
+                price = input.nextFloat();
+                weight = input.nextFloat();
+                account = registry.byNick(input.nextLine());
+                available = input.nextInt();
+                gear = input.nextInt();
                 frame = Frame.valueOf(input.nextLine());
-                lights = Integer.parseInt(input.nextLine());
-                bell = Integer.parseInt(input.nextLine());
-                breaks = Integer.parseInt(input.nextLine());
-                for (int i=0; i<profiles.size(); i++) {
-                    if(profiles.get(i).getNick().contains(account)){
-                        flag = i;
-                        break;
-                    }
-                }
-                if(flag!=-1){
+                lights = input.nextInt();
+                bell = input.nextInt();
+                breaks = input.nextInt();
+                if(account != null){
                     //when there is the person that poses this item
-                    bikes.add(new Bike(nameOI,brand,auction,price,weight,profiles.get(flag),available,gear,frame,lights,bell,breaks));
+                    bikes.add(new Bike(nameOI,brand,auction,price,weight,account,available,gear,frame,lights,bell,breaks));
                 }
             }
-            input.close();
         }catch(IOException ex){System.out.print(ex.getMessage());}
         return bikes;
 
@@ -378,21 +364,31 @@ public class Bike extends Item implements Comparator<Bike>,Serializable{
      *  In ThreadOne class all those offers are added into 5 different lists, basing on the rate value.
      */
     public RateArr rateBikes() {
+        return new RateArr(this, rate(this.getPrice(), this.getWeight(), this.getGear(), this.getIs_auction(),
+                this.getAre_lights(), this.getIs_bell(), this.getAre_breaks()));
+    }
+
+    /**
+     * Rate of the bike computed from its fields, the same as in rateBikes.<br>
+     * Used also by OfferStore, where bikes are not kept as objects.
+     * @return rate of the bike
+     */
+    public static int rate(float price, float weight, int gear, int is_auction, int are_lights, int is_bell, int are_breaks) {
         int rate = 0;
-        if(this.getPrice() < 1) rate += 5;
-        else if(this.getPrice() < 10) rate += 4;
-        else if(this.getPrice() < 100) rate += 3;
-        else if(this.getPrice() < 1000) rate += 2;
-        else if(this.getPrice() < 10000) rate += 1;
-        if(this.getWeight() < 1) rate += 3;
-        else if(this.getWeight() < 10) rate += 2;
-        else if(this.getWeight() < 100) rate += 1;
-        rate += Math.round(this.getGear()/2);
-        if(this.getIs_auction() == 1) rate *= 2;
-        if(this.getAre_lights() == 1) rate *= 2;
-        if(this.getIs_bell() == 1) rate *= 2;
-        if(this.getAre_breaks() == 1) rate *= 2;
-        return new RateArr(this,rate);
+        if(price < 1) rate += 5;
+        else if(price < 10) rate += 4;
+        else if(price < 100) rate += 3;
+        else if(price < 1000) rate += 2;
+        else if(price < 10000) rate += 1;
+        if(weight < 1) rate += 3;
+        else if(weight < 10) rate += 2;
+        else if(weight < 100) rate += 1;
+        rate += Math.round(gear/2);
+        if(is_auction == 1) rate *= 2;
+        if(are_lights == 1) rate *= 2;
+        if(is_bell == 1) rate *= 2;
+        if(are_breaks == 1) rate *= 2;
+        return rate;
     }
 
     /*** override of the method compare from the Comparator<Bike> interface
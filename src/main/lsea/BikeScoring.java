@@ -0,0 +1,174 @@
+package main.lsea;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Batch version of Bike.rateBikes working on primitive arrays, no object is created per bike.<br>
+ * Scores are the same as Bike.rate gives (bit for bit), but the loop has no branches:<br>
+ * 1. price and weight points are sums of comparisons (price &lt; 1 gives 5 points only because it is also
+ * &lt; 10, &lt; 100, &lt; 1000 and &lt; 10000)<br>
+ * 2. gear points are Math.round(gear/2) like in rateBikes<br>
+ * 3. every flag equal to 1 doubles the rate, so rate is shifted left by the number of such flags<br>
+ * Buckets are 0 - A (&gt;= 180), 1 - B (&gt;= 135), 2 - C (&gt;= 90), 3 - D (&gt;= 45), 4 - E, the same
+ * thresholds as in ThreadOne. Simple counted loops over arrays can be unrolled (and vectorized) by the JIT.
+ */
+public final class BikeScoring {
+
+    /*** CHUNK -> number of bikes copied to the arrays at once when scoring List&lt;Bike&gt;*/
+    private static final int CHUNK = 4096;
+
+    private BikeScoring() {}
+
+    /**
+     * Scoring bikes from index from (inclusive) to to (exclusive)
+     *
+     * @param price prices of the bikes
+     * @param weight weights of the bikes
+     * @param gear numbers of gears
+     * @param isAuction is_auction flags
+     * @param areLights are_lights flags
+     * @param isBell is_bell flags
+     * @param areBreaks are_breaks flags
+     * @param scores array where scores are written (the same indexes)
+     * @param buckets array where buckets are written (the same indexes)
+     */
+    public static void score(float[] price, float[] weight, int[] gear, int[] isAuction, int[] areLights,
+                             int[] isBell, int[] areBreaks, int from, int to, int[] scores, byte[] buckets) {
+        for(int i = from; i < to; i++) {
+            float p = price[i], w = weight[i];
+            int rate = (p < 1f ? 1 : 0) + (p < 10f ? 1 : 0) + (p < 100f ? 1 : 0) + (p < 1000f ? 1 : 0)
+                    + (p < 10000f ? 1 : 0) + (w < 1f ? 1 : 0) + (w < 10f ? 1 : 0) + (w < 100f ? 1 : 0)
+                    + Math.round((float) (gear[i] / 2));
+            rate <<= isOne(isAuction[i]) + isOne(areLights[i]) + isOne(isBell[i]) + isOne(areBreaks[i]);
+            scores[i] = rate;
+            buckets[i] = bucket(rate);
+        }
+    }
+
+    /**
+     * Scoring bikes stored with smaller types (like in OfferStore), from index from (inclusive) to to (exclusive).<br>
+     * gear/2 of a short always fits in a float, so Math.round is not needed here.
+     */
+    public static void score(float[] price, float[] weight, short[] gear, byte[] isAuction, byte[] areLights,
+                             byte[] isBell, byte[] areBreaks, int from, int to, int[] scores, byte[] buckets) {
+        for(int i = from; i < to; i++) {
+            float p = price[i], w = weight[i];
+            int rate = (p < 1f ? 1 : 0) + (p < 10f ? 1 : 0) + (p < 100f ? 1 : 0) + (p < 1000f ? 1 : 0)
+                    + (p < 10000f ? 1 : 0) + (w < 1f ? 1 : 0) + (w < 10f ? 1 : 0) + (w < 100f ? 1 : 0)
+                    + gear[i] / 2;
+            rate <<= isOne(isAuction[i]) + isOne(areLights[i]) + isOne(isBell[i]) + isOne(areBreaks[i]);
+            scores[i] = rate;
+            buckets[i] = bucket(rate);
+        }
+    }
+
+    /**
+     * Scoring list of bikes, fields are copied to reused arrays in chunks of CHUNK bikes
+     *
+     * @param bikes list with all offers of bikes
+     * @param scores array for scores (at least bikes.size())
+     * @param buckets array for buckets (at least bikes.size())
+     */
+    public static void score(List<Bike> bikes, int[] scores, byte[] buckets) {
+        int n = bikes.size();
+        float[] price = new float[CHUNK], weight = new float[CHUNK];
+        int[] gear = new int[CHUNK], auction = new int[CHUNK], lights = new int[CHUNK], bell = new int[CHUNK],
+                breaks = new int[CHUNK], s = new int[CHUNK];
+        byte[] b = new byte[CHUNK];
+        for(int from = 0; from < n; from += CHUNK) {
+            int len = Math.min(CHUNK, n - from);
+            for(int i = 0; i < len; i++) {
+                Bike bike = bikes.get(from + i);
+                price[i] = bike.getPrice();
+                weight[i] = bike.getWeight();
+                gear[i] = bike.getGear();
+                auction[i] = bike.getIs_auction();
+                lights[i] = bike.getAre_lights();
+                bell[i] = bike.getIs_bell();
+                breaks[i] = bike.getAre_breaks();
+            }
+            score(price, weight, gear, auction, lights, bell, breaks, 0, len, s, b);
+            System.arraycopy(s, 0, scores, from, len);
+            System.arraycopy(b, 0, buckets, from, len);
+        }
+    }
+
+    /**
+     * @param rate rate of the bike
+     * @return bucket of the rate: 0 - A, 1 - B, 2 - C, 3 - D, 4 - E
+     */
+    public static byte bucket(int rate) {
+        return (byte) ((rate < 180 ? 1 : 0) + (rate < 135 ? 1 : 0) + (rate < 90 ? 1 : 0) + (rate < 45 ? 1 : 0));
+    }
+
+    /*** @return 1 if flag is equal to 1, 0 otherwise (without branch)*/
+    private static int isOne(int flag) {
+        int x = flag ^ 1;
+        return 1 - ((x | -x) >>> 31);
+    }
+
+    /**
+     * Comparison of rateBikes (one RateArr per bike) with batch scoring of arrays and of OfferStore.<br>
+     * Arguments: number of bikes (default 10 000 000). Every method is run 5 times, the best time is printed.
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        List<LSEA> profiles = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) profiles.add(new LSEA("user_" + i, "pass", "Name", "Surname", 30, 1000));
+        OfferStore store = OfferStore.generate(n, profiles, new Random(1));
+        List<Bike> bikes = new ArrayList<>(n);
+        float[] price = new float[n], weight = new float[n];
+        int[] gear = new int[n], auction = new int[n], lights = new int[n], bell = new int[n], breaks = new int[n];
+        for(int i = 0; i < n; i++) {
+            Bike b = store.toBike(i);
+            bikes.add(b);
+            price[i] = b.getPrice();
+            weight[i] = b.getWeight();
+            gear[i] = b.getGear();
+            auction[i] = b.getIs_auction();
+            lights[i] = b.getAre_lights();
+            bell[i] = b.getIs_bell();
+            breaks[i] = b.getAre_breaks();
+        }
+        int[] scores = new int[n], expected = new int[n];
+        byte[] buckets = new byte[n];
+
+        long best = Long.MAX_VALUE;
+        for(int rep = 0; rep < 5; rep++) {
+            long start = System.nanoTime();
+            for(int i = 0; i < n; i++) expected[i] = bikes.get(i).rateBikes().getRate();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("rateBikes:          " + best / 1000000 + " ms");
+
+        best = Long.MAX_VALUE;
+        for(int rep = 0; rep < 5; rep++) {
+            Arrays.fill(scores, -1);
+            long start = System.nanoTime();
+            score(price, weight, gear, auction, lights, bell, breaks, 0, n, scores, buckets);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("score(arrays):      " + best / 1000000 + " ms, identical: " + Arrays.equals(scores, expected));
+
+        best = Long.MAX_VALUE;
+        for(int rep = 0; rep < 5; rep++) {
+            Arrays.fill(scores, -1);
+            long start = System.nanoTime();
+            score(bikes, scores, buckets);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("score(List<Bike>):  " + best / 1000000 + " ms, identical: " + Arrays.equals(scores, expected));
+
+        best = Long.MAX_VALUE;
+        for(int rep = 0; rep < 5; rep++) {
+            Arrays.fill(scores, -1);
+            long start = System.nanoTime();
+            store.score(scores, buckets);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("score(OfferStore):  " + best / 1000000 + " ms, identical: " + Arrays.equals(scores, expected));
+    }
+}
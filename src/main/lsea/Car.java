@@ -12,9 +12,6 @@ import javax.persistence.EntityTransaction;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.io.*;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -203,49 +200,37 @@ public class Car extends Item implements Comparator<Car>,Serializable{
     public void save() {}
 
     /**
-     * overloaded save from Item class
+     * overloaded save from Item class<br>
+     * Ids of the owner are taken from maps built once before writing, so saving is linear in the number of offers.
+     * File is written through SnapshotWriter (temporary file renamed over the target) and the speed (MB/s) is printed.
      * @param db_H object of class necessary for database handling
      * @param cars list of all offers of cars (List<Car>)
      */
     public void save(DB_Handling db_H, List<Car>cars, String uPath) {
         File file = new File(uPath + ".txt");
-        try {
-            FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
-            FileLock fl = fc.tryLock();
-            FileWriter output = new FileWriter(file);
-            if(fl != null) {
-                System.out.println("File is locked");
-                for (int i = 0; i < cars.size(); i++) {
-                    int flag = -1;
-                    if (cars.get(i).getAccount() != null) {
-                        output.write(cars.get(i).getNameOI() + "\n");
-                        output.write(cars.get(i).getBrand() + "\n");
-                        output.write(cars.get(i).getIs_auction() + "\n");
-                        output.write(cars.get(i).getPrice() + "\n");
-                        output.write(cars.get(i).getWeight() + "\n");
-                        for (int j = 0; j < db_H.getDbC().size(); j++) {
-                            if (db_H.getDbC().get(j).getAccount().getNick() == cars.get(i).getAccount().getNick()) {
-                                flag = db_H.getDbC().get(j).getAccount().getId();
-                                output.write(flag + "\n");
-                                break;
-                            }
-                        }
-                        if (flag == -1) {
-                            output.write((db_H.getDbP().size() + 1) + "\n");
-                        }
-                        output.write(cars.get(i).getIs_available() + "\n");
-                        output.write(cars.get(i).getYear() + "\n");
-                        output.write(cars.get(i).getPower() + "\n");
-                        output.write(cars.get(i).getPassengers() + "\n");
-                        output.write(cars.get(i).getTransmission() + "\n");
-                        output.write(cars.get(i).getCountry() + "\n");
-                    }
+        try (SnapshotWriter output = new SnapshotWriter(file.toPath())) {
+            long start = System.nanoTime();
+            Map<String, Integer> profileIds = profileIds(db_H);
+            int newProfile = db_H.getDbP().size() + 1;
+            for (int i = 0; i < cars.size(); i++) {
+                if (cars.get(i).getAccount() != null) {
+                    Integer owner = profileIds.get(cars.get(i).getAccount().getNick());
+                    output.write(cars.get(i).getNameOI() + "\n");
+                    output.write(cars.get(i).getBrand() + "\n");
+                    output.write(cars.get(i).getIs_auction() + "\n");
+                    output.write(cars.get(i).getPrice() + "\n");
+                    output.write(cars.get(i).getWeight() + "\n");
+                    output.write((owner != null ? owner : newProfile) + "\n");
+                    output.write(cars.get(i).getIs_available() + "\n");
+                    output.write(cars.get(i).getYear() + "\n");
+                    output.write(cars.get(i).getPower() + "\n");
+                    output.write(cars.get(i).getPassengers() + "\n");
+                    output.write(cars.get(i).getTransmission() + "\n");
+                    output.write(cars.get(i).getCountry() + "\n");
                 }
-                fl.release();
-                System.out.println("File is unlocked");
-                System.out.println("Data were saved to Txt file");
             }
-            output.close();
+            printRate(output.commit(), start);
+            System.out.println("Data were saved to Txt file");
         }catch(IOException ex) {
             System.out.print(ex.getMessage());
         }
@@ -258,34 +243,38 @@ public class Car extends Item implements Comparator<Car>,Serializable{
      * @return list with cars (type Cars)
      */
     public ArrayList<Car> loadCarDB(DB_Handling db_H, List<LSEA> profiles){
+        return loadCarDB(db_H, ProfileRegistry.of(db_H, profiles));
+    }
+
+    /**
+     * Loading values from the database, owners are found in the registry by id of DB_Profile (or by nick)
+     * @param db_H object of class necessary for database handling
+     * @param registry registry of all accounts
+     * @return list with cars (type Cars)
+     */
+    public ArrayList<Car> loadCarDB(DB_Handling db_H, ProfileRegistry registry){
         ArrayList<Car>cars =new ArrayList<>();
         ArrayList<DB_Car> dbC=db_H.getDbC();
-        String nameOI, brand,transmission,country,account;
+        String nameOI, brand,transmission,country;
         int auction,power,year,passengers,available;
         float price, weight;
+        LSEA account;
         for(int i=0; i<dbC.size(); i++){
-            int flag=-1;
             nameOI = dbC.get(i).getTitle();
             brand = dbC.get(i).getBrand();
             auction = dbC.get(i).getIs_auction();
             price = dbC.get(i).getPrice();
             weight = dbC.get(i).getWeight();
-            account = dbC.get(i).getAccount().getNick();
+            account = registry.byId(dbC.get(i).getAccount().getId());
+            if(account == null) account = registry.byNick(dbC.get(i).getAccount().getNick());
             available = dbC.get(i).getIs_available();
             power = dbC.get(i).getPower();
             year = dbC.get(i).getYear_of();
             passengers = dbC.get(i).getPassengers();
             transmission = dbC.get(i).getTransmission();
             country = dbC.get(i).getCountry();
-            for (int j=0; j<profiles.size(); j++) {
-                if(profiles.get(j).getNick().contains(account))
-                {
-                    flag = j;
-                    break;
-                }
-            }
-            if(flag!=-1){
-                cars.add(new Car(nameOI,brand,auction,price,weight,profiles.get(flag),available,power,year,passengers,transmission,country));
+            if(account != null){
+                cars.add(new Car(nameOI,brand,auction,price,weight,account,available,power,year,passengers,transmission,country));
             }
         }
         return cars;
@@ -297,39 +286,40 @@ public class Car extends Item implements Comparator<Car>,Serializable{
      * @return list with bikes (type Bikes)
      */
     public List<Car> load(List<LSEA> profiles){
+        return load(ProfileRegistry.of(profiles));
+    }
+
+    /**
+     * Loading values from the .txt file, owners are found in the registry by exact nick
+     * @param registry registry of all accounts
+     * @return list with cars (type Cars)
+     */
+    public List<Car> load(ProfileRegistry registry){
         List<Car>cars = new ArrayList<>();
         File file = new File("cars.txt");
-        String nameOI, brand,transmission,country,account;
-        int auction,power,year,passengers,available,flag=-1;
+        String nameOI, brand,transmission,country;
+        int auction,power,year,passengers,available;
         float price, weight;
-        try {
-            Scanner input = new Scanner(file);
+        LSEA account;
+        try (RecordReader input = new RecordReader(file.toPath())) {
             while(input.hasNextLine()) {
                 nameOI = input.nextLine();
                 brand=input.nextLine();
-                auction = Integer.parseInt(input.nextLine());
-                price = Float.parseFloat(input.nextLine());
-                weight = Float.parseFloat(input.nextLine());
-                account = input.nextLine();
-                available = Integer.parseInt(input.nextLine());
-                power = Integer.parseInt(input.nextLine());
-                year = Integer.parseInt(input.nextLine());
-                passengers = Integer.parseInt(input.nextLine());
+                auction = input.nextInt();
+                price = input.nextFloat();
+                weight = input.nextFloat();
+                account = registry.byNick(input.nextLine());
+                available = input.nextInt();
+                power = input.nextInt();
+                year = input.nextInt();
+                passengers = input.nextInt();
                 transmission = input.nextLine();
                 country = input.nextLine();
-                for (int i=0; i<profiles.size(); i++) {
-                    if(profiles.get(i).getNick().contains(account))
-                    {
-                        flag = i;
-                        break;
-                    }
-                }
-                if(flag != -1){
+                if(account != null){
                     //when there is the person that poses this item
-                    cars.add(new Car(nameOI,brand,auction,price,weight,profiles.get(flag),available,power,year,passengers,transmission,country));
+                    cars.add(new Car(nameOI,brand,auction,price,weight,account,available,power,year,passengers,transmission,country));
                 }
             }
-            input.close();
         }catch(IOException ex){
             System.out.print(ex.getMessage());
         }
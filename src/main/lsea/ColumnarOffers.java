@@ -0,0 +1,673 @@
+package main.lsea;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Columnar file format of bike and car offers, used for analytics that touch only a few fields.<br>
+ * Every field of the offers is stored as one contiguous column (little endian):<br>
+ * INT - int[rows] (is_auction, is_available, gear, year, power, passengers, lights, bell, breaks)<br>
+ * FLOAT - float[rows] (price, weight)<br>
+ * DICT - int[rows] codes and a dictionary of distinct values (brand, owner nick, frame, transmission, country)<br>
+ * STRING - int[rows + 1] offsets and UTF-8 bytes (nameOI), null is stored as empty string, whole column must
+ * be smaller than 2 GB (writing fails otherwise)<br>
+ * Rows are divided into row groups of ROW_GROUP rows, for every group and every numeric (or DICT) column
+ * min and max are kept in the index, so scans can skip whole groups or count them without reading.<br>
+ * Layout of the file: header (MAGIC, VERSION, kind, rows, row group size, number of columns, offset of the footer),
+ * column data (aligned to 8 bytes), dictionaries, row-group index, footer (directory of the columns).<br>
+ * Reader maps only the columns that are asked for, so a scan of price reads rows * 4 bytes of the file.
+ */
+public class ColumnarOffers {
+
+    /*** MAGIC -> first 4 bytes of the file ("OLXC")*/
+    public static final int MAGIC = 0x4F4C5843;
+    public static final int VERSION = 1;
+    /*** ROW_GROUP -> default number of rows in one row group*/
+    public static final int ROW_GROUP = 65536;
+    /*** KIND_BIKE, KIND_CAR -> kind of offers stored in the file*/
+    public static final int KIND_BIKE = 0, KIND_CAR = 1;
+    /*** types of the columns*/
+    public static final byte INT = 0, FLOAT = 1, DICT = 2, STRING = 3;
+    /*** HEADER -> size of the header (bytes)*/
+    private static final int HEADER = 32;
+
+    /*** names of the columns, in the order of the fields in bikes.txt and cars.txt*/
+    public static final String NAME_OI = "nameOI", BRAND = "brand", IS_AUCTION = "is_auction", PRICE = "price",
+            WEIGHT = "weight", OWNER = "owner", IS_AVAILABLE = "is_available", GEAR = "gear", FRAME = "frame",
+            ARE_LIGHTS = "are_lights", IS_BELL = "is_bell", ARE_BREAKS = "are_breaks", YEAR = "year",
+            POWER = "power", PASSENGERS = "passengers", TRANSMISSION = "transmission", COUNTRY = "country";
+
+    private ColumnarOffers() {}
+
+    /**
+     * Writing bikes to the columnar file
+     *
+     * @param path path of the file (replaced atomically)
+     * @param bikes list with all of the bike offers
+     * @throws IOException
+     */
+    public static void writeBikes(Path path, List<Bike> bikes) throws IOException {
+        int n = bikes.size();
+        Builder b = new Builder(n);
+        int[] auction = b.ints(IS_AUCTION), available = b.ints(IS_AVAILABLE), gear = b.ints(GEAR),
+                lights = b.ints(ARE_LIGHTS), bell = b.ints(IS_BELL), breaks = b.ints(ARE_BREAKS);
+        float[] price = b.floats(PRICE), weight = b.floats(WEIGHT);
+        Dict brand = b.dict(BRAND), owner = b.dict(OWNER), frame = b.dict(FRAME);
+        byte[][] name = b.strings(NAME_OI);
+        for(int i = 0; i < n; i++) {
+            Bike bike = bikes.get(i);
+            name[i] = bytes(bike.getNameOI());
+            brand.add(i, bike.getBrand());
+            auction[i] = bike.getIs_auction();
+            price[i] = bike.getPrice();
+            weight[i] = bike.getWeight();
+            owner.add(i, bike.getAccount() == null ? null : bike.getAccount().getNick());
+            available[i] = bike.getIs_available();
+            gear[i] = bike.getGear();
+            frame.add(i, bike.getFrame() == null ? null : bike.getFrame().name());
+            lights[i] = bike.getAre_lights();
+            bell[i] = bike.getIs_bell();
+            breaks[i] = bike.getAre_breaks();
+        }
+        b.write(path, KIND_BIKE, ROW_GROUP);
+    }
+
+    /**
+     * Writing cars to the columnar file
+     *
+     * @param path path of the file (replaced atomically)
+     * @param cars list with all of the car offers
+     * @throws IOException
+     */
+    public static void writeCars(Path path, List<Car> cars) throws IOException {
+        int n = cars.size();
+        Builder b = new Builder(n);
+        int[] auction = b.ints(IS_AUCTION), available = b.ints(IS_AVAILABLE), year = b.ints(YEAR),
+                power = b.ints(POWER), passengers = b.ints(PASSENGERS);
+        float[] price = b.floats(PRICE), weight = b.floats(WEIGHT);
+        Dict brand = b.dict(BRAND), owner = b.dict(OWNER), transmission = b.dict(TRANSMISSION),
+                country = b.dict(COUNTRY);
+        byte[][] name = b.strings(NAME_OI);
+        for(int i = 0; i < n; i++) {
+            Car car = cars.get(i);
+            name[i] = bytes(car.getNameOI());
+            brand.add(i, car.getBrand());
+            auction[i] = car.getIs_auction();
+            price[i] = car.getPrice();
+            weight[i] = car.getWeight();
+            owner.add(i, car.getAccount() == null ? null : car.getAccount().getNick());
+            available[i] = car.getIs_available();
+            year[i] = car.getYear();
+            power[i] = car.getPower();
+            passengers[i] = car.getPassengers();
+            transmission.add(i, car.getTransmission());
+            country.add(i, car.getCountry());
+        }
+        b.write(path, KIND_CAR, ROW_GROUP);
+    }
+
+    /**
+     * @param path path of the columnar file
+     * @return reader of the file, columns are mapped when they are used
+     * @throws IOException when the file is not in this format
+     */
+    public static Reader open(Path path) throws IOException {
+        return new Reader(path);
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*** Dictionary column being built - codes of the rows and distinct values in the order of first use*/
+    private static final class Dict {
+        private final int[] codes;
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        Dict(int rows) {
+            this.codes = new int[rows];
+        }
+
+        /*** null values get code -1*/
+        void add(int row, String value) {
+            if(value == null) {
+                codes[row] = -1;
+                return;
+            }
+            Integer id = ids.get(value);
+            if(id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            codes[row] = id;
+        }
+    }
+
+    /*** Columns of one file before they are written*/
+    private static final class Builder {
+        private final int rows;
+        /*** columns -> arrays of the columns (int[], float[], Dict or byte[][]) by name, in the order of adding*/
+        private final Map<String, Object> columns = new LinkedHashMap<>();
+
+        Builder(int rows) {
+            this.rows = rows;
+        }
+
+        int[] ints(String name) {
+            int[] column = new int[rows];
+            columns.put(name, column);
+            return column;
+        }
+
+        float[] floats(String name) {
+            float[] column = new float[rows];
+            columns.put(name, column);
+            return column;
+        }
+
+        Dict dict(String name) {
+            Dict column = new Dict(rows);
+            columns.put(name, column);
+            return column;
+        }
+
+        byte[][] strings(String name) {
+            byte[][] column = new byte[rows][];
+            columns.put(name, column);
+            return column;
+        }
+
+        /**
+         * Writing all columns to the temporary file which is then moved over path
+         */
+        void write(Path path, int kind, int rowGroup) throws IOException {
+            Path target = path.toAbsolutePath();
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString() + ".", ".tmp");
+            try {
+                try (FileChannel ch = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    Out out = new Out(ch);
+                    out.position(HEADER);
+                    int count = columns.size();
+                    String[] names = columns.keySet().toArray(new String[count]);
+                    byte[] types = new byte[count];
+                    long[] data = new long[count], length = new long[count], dict = new long[count];
+                    int[] dictSize = new int[count];
+                    for(int c = 0; c < count; c++) {
+                        Object column = columns.get(names[c]);
+                        out.align();
+                        data[c] = out.position();
+                        dict[c] = -1;
+                        if(column instanceof int[]) {
+                            types[c] = INT;
+                            for(int v : (int[]) column) out.putInt(v);
+                        } else if(column instanceof float[]) {
+                            types[c] = FLOAT;
+                            for(float v : (float[]) column) out.putFloat(v);
+                        } else if(column instanceof Dict) {
+                            types[c] = DICT;
+                            for(int v : ((Dict) column).codes) out.putInt(v);
+                        } else {
+                            types[c] = STRING;
+                            byte[][] values = (byte[][]) column;
+                            // offsets are int and the column is mapped as one buffer, so it must stay below 2 GB
+                            long total = (rows + 1L) * 4;
+                            for(byte[] v : values) total += v == null ? 0 : v.length;
+                            if(total > Integer.MAX_VALUE) {
+                                throw new IOException("Column " + names[c] + " is bigger than 2 GB (" + total + " bytes)");
+                            }
+                            int offset = 0;
+                            out.putInt(0);
+                            for(byte[] v : values) {
+                                offset += v == null ? 0 : v.length;
+                                out.putInt(offset);
+                            }
+                            for(byte[] v : values) {
+                                if(v != null) out.put(v);
+                            }
+                        }
+                        length[c] = out.position() - data[c];
+                    }
+                    for(int c = 0; c < count; c++) {
+                        if(types[c] != DICT) continue;
+                        List<String> values = ((Dict) columns.get(names[c])).values;
+                        dict[c] = out.position();
+                        dictSize[c] = values.size();
+                        for(String v : values) out.putString(v);
+                    }
+                    int groups = (rows + rowGroup - 1) / rowGroup;
+                    out.align();
+                    long index = out.position();
+                    for(int g = 0; g < groups; g++) {
+                        int from = g * rowGroup, to = Math.min(rows, from + rowGroup);
+                        for(int c = 0; c < count; c++) {
+                            double min = Double.NaN, max = Double.NaN;
+                            Object column = columns.get(names[c]);
+                            for(int i = from; i < to; i++) {
+                                double v;
+                                if(column instanceof int[]) v = ((int[]) column)[i];
+                                else if(column instanceof float[]) v = ((float[]) column)[i];
+                                else if(column instanceof Dict) v = ((Dict) column).codes[i];
+                                else break;
+                                if(!(v >= min)) min = Double.isNaN(min) ? v : Math.min(min, v);
+                                if(!(v <= max)) max = Double.isNaN(max) ? v : Math.max(max, v);
+                            }
+                            out.putDouble(min);
+                            out.putDouble(max);
+                        }
+                    }
+                    long footer = out.position();
+                    out.putLong(index);
+                    for(int c = 0; c < count; c++) {
+                        out.putString(names[c]);
+                        out.put(new byte[]{types[c]});
+                        out.putLong(data[c]);
+                        out.putLong(length[c]);
+                        out.putLong(dict[c]);
+                        out.putInt(dictSize[c]);
+                    }
+                    out.flush();
+                    ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(rows).putInt(rowGroup).putInt(count)
+                            .putLong(footer).flip();
+                    while(header.hasRemaining()) ch.write(header, header.position());
+                    ch.force(true);
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch(AtomicMoveNotSupportedException ex) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /*** Sequential writer of little endian values through one big buffer*/
+    private static final class Out {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long flushed;
+
+        Out(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        long position() {
+            return flushed + buf.position();
+        }
+
+        void position(long pos) throws IOException {
+            flush();
+            flushed = pos;
+        }
+
+        void align() throws IOException {
+            while(position() % 8 != 0) put(new byte[]{0});
+        }
+
+        private void ensure(int n) throws IOException {
+            if(buf.remaining() < n) flush();
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buf.putInt(v);
+        }
+
+        void putFloat(float v) throws IOException {
+            ensure(4);
+            buf.putFloat(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(8);
+            buf.putLong(v);
+        }
+
+        void putDouble(double v) throws IOException {
+            ensure(8);
+            buf.putDouble(v);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            if(bytes.length > buf.capacity()) {
+                flush();
+                ByteBuffer big = ByteBuffer.wrap(bytes);
+                while(big.hasRemaining()) flushed += ch.write(big, flushed);
+                return;
+            }
+            ensure(bytes.length);
+            buf.put(bytes);
+        }
+
+        void putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            put(bytes);
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while(buf.hasRemaining()) flushed += ch.write(buf, flushed);
+            buf.clear();
+        }
+    }
+
+    /**
+     * Reader of the columnar file.<br>
+     * Directory and row-group index are read when the file is opened, columns are memory-mapped on first use.
+     */
+    public static class Reader implements Closeable {
+
+        private final FileChannel ch;
+        private final int kind, rows, rowGroup, groups;
+        private final Map<String, Integer> byName = new HashMap<>();
+        private final byte[] types;
+        private final long[] data, length;
+        private final String[][] dictionaries;
+        /*** index -> [group][column * 2] min, [group][column * 2 + 1] max*/
+        private final double[][] index;
+        private final MappedByteBuffer[] mapped;
+
+        Reader(Path path) throws IOException {
+            ch = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                ByteBuffer header = read(0, HEADER);
+                if(header.getInt() != MAGIC) throw new IOException(path + " is not a columnar offers file");
+                int version = header.getInt();
+                if(version != VERSION) throw new IOException("Unsupported columnar file version " + version);
+                kind = header.getInt();
+                rows = header.getInt();
+                rowGroup = header.getInt();
+                int count = header.getInt();
+                long footer = header.getLong();
+                groups = (rows + rowGroup - 1) / rowGroup;
+
+                ByteBuffer f = read(footer, (int) (ch.size() - footer));
+                long indexOffset = f.getLong();
+                types = new byte[count];
+                data = new long[count];
+                length = new long[count];
+                dictionaries = new String[count][];
+                mapped = new MappedByteBuffer[count];
+                long[] dict = new long[count];
+                int[] dictSize = new int[count];
+                for(int c = 0; c < count; c++) {
+                    byName.put(string(f), c);
+                    types[c] = f.get();
+                    data[c] = f.getLong();
+                    length[c] = f.getLong();
+                    dict[c] = f.getLong();
+                    dictSize[c] = f.getInt();
+                }
+                long dicts = indexOffset;
+                for(int c = 0; c < count; c++) {
+                    if(dict[c] >= 0) dicts = Math.min(dicts, dict[c]);
+                }
+                ByteBuffer d = read(dicts, (int) (indexOffset - dicts));
+                for(int c = 0; c < count; c++) {
+                    if(dict[c] < 0) continue;
+                    d.position((int) (dict[c] - dicts));
+                    dictionaries[c] = new String[dictSize[c]];
+                    for(int i = 0; i < dictSize[c]; i++) dictionaries[c][i] = string(d);
+                }
+                ByteBuffer idx = read(indexOffset, groups * count * 16);
+                index = new double[groups][count * 2];
+                for(int g = 0; g < groups; g++) {
+                    for(int k = 0; k < count * 2; k++) index[g][k] = idx.getDouble();
+                }
+            } catch(IOException | RuntimeException ex) {
+                ch.close();
+                throw ex;
+            }
+        }
+
+        /*** @return KIND_BIKE or KIND_CAR*/
+        public int kind() {
+            return kind;
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        public int rowGroups() {
+            return groups;
+        }
+
+        public int rowGroupSize() {
+            return rowGroup;
+        }
+
+        /*** @return true if the file has column of this name*/
+        public boolean hasColumn(String column) {
+            return byName.containsKey(column);
+        }
+
+        /*** @return values of INT column or codes of DICT column (mapped, nothing is copied)*/
+        public IntBuffer ints(String column) throws IOException {
+            int c = column(column, INT, DICT);
+            return map(c).asIntBuffer();
+        }
+
+        /*** @return values of FLOAT column (mapped, nothing is copied)*/
+        public FloatBuffer floats(String column) throws IOException {
+            return map(column(column, FLOAT, FLOAT)).asFloatBuffer();
+        }
+
+        /*** @return distinct values of DICT column, code of the row is the index in this array (-1 for null)*/
+        public String[] dictionary(String column) {
+            return dictionaries[column(column, DICT, DICT)].clone();
+        }
+
+        /**
+         * @param column name of DICT column
+         * @param value wanted value
+         * @return code of the value or -1 if no row has it
+         */
+        public int code(String column, String value) {
+            String[] dict = dictionaries[column(column, DICT, DICT)];
+            for(int i = 0; i < dict.length; i++) {
+                if(dict[i].equals(value)) return i;
+            }
+            return -1;
+        }
+
+        /*** @return value of STRING column in given row*/
+        public String string(String column, int row) throws IOException {
+            ByteBuffer b = map(column(column, STRING, STRING));
+            int from = b.getInt(row * 4), to = b.getInt(row * 4 + 4);
+            byte[] bytes = new byte[to - from];
+            ByteBuffer v = b.duplicate();
+            v.position((rows + 1) * 4 + from);
+            v.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /*** @return min of the column in row group (NaN for STRING columns and empty groups)*/
+        public double min(String column, int group) {
+            return index[group][column(column) * 2];
+        }
+
+        /*** @return max of the column in row group (NaN for STRING columns and empty groups)*/
+        public double max(String column, int group) {
+            return index[group][column(column) * 2 + 1];
+        }
+
+        /**
+         * Counting rows with lo &lt;= value &lt;= hi of one numeric column.<br>
+         * Row groups outside the range are skipped and groups inside the range are counted from the index,
+         * only groups on the border are scanned.
+         *
+         * @param column name of INT, FLOAT or DICT column
+         * @param lo lower bound (inclusive)
+         * @param hi upper bound (inclusive)
+         * @return number of rows
+         */
+        public long count(String column, double lo, double hi) throws IOException {
+            int c = column(column);
+            if(types[c] == STRING) throw new IllegalArgumentException(column + " is not a numeric column");
+            long count = 0;
+            IntBuffer ints = null;
+            FloatBuffer floats = null;
+            for(int g = 0; g < groups; g++) {
+                double min = index[g][c * 2], max = index[g][c * 2 + 1];
+                int from = g * rowGroup, to = Math.min(rows, from + rowGroup);
+                if(max < lo || min > hi) continue;
+                if(min >= lo && max <= hi) {
+                    count += to - from;
+                    continue;
+                }
+                if(types[c] == FLOAT) {
+                    if(floats == null) floats = floats(column);
+                    for(int i = from; i < to; i++) {
+                        float v = floats.get(i);
+                        if(v >= lo && v <= hi) count++;
+                    }
+                } else {
+                    if(ints == null) ints = ints(column);
+                    for(int i = from; i < to; i++) {
+                        int v = ints.get(i);
+                        if(v >= lo && v <= hi) count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ch.close();
+        }
+
+        private int column(String column) {
+            Integer c = byName.get(column);
+            if(c == null) throw new IllegalArgumentException("No column " + column);
+            return c;
+        }
+
+        private int column(String column, byte type, byte otherType) {
+            int c = column(column);
+            if(types[c] != type && types[c] != otherType) {
+                throw new IllegalArgumentException("Column " + column + " has type " + types[c]);
+            }
+            return c;
+        }
+
+        private ByteBuffer map(int c) throws IOException {
+            if(mapped[c] == null) {
+                if(length[c] > Integer.MAX_VALUE) throw new IOException("Column is bigger than 2 GB");
+                mapped[c] = ch.map(FileChannel.MapMode.READ_ONLY, data[c], length[c]);
+            }
+            return mapped[c].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private ByteBuffer read(long pos, int size) throws IOException {
+            ByteBuffer b = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            while(b.hasRemaining()) {
+                if(ch.read(b, pos + b.position()) < 0) throw new IOException("Columnar file is truncated");
+            }
+            b.flip();
+            return b;
+        }
+
+        private static String string(ByteBuffer b) {
+            byte[] bytes = new byte[b.getInt()];
+            b.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Benchmark of a scan touching two columns (average price of available bikes) on the columnar file
+     * against reading all offers from the row-oriented file of ItemCodec.<br>
+     * Arguments: number of bikes (default 1 000 000) and directory for the files (default data).
+     */
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Path dir = Paths.get(args.length > 1 ? args[1] : "data");
+        Random rand = new Random(1);
+        List<LSEA> profiles = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) profiles.add(new LSEA("user_" + i, "pass", "Name", "Surname", 30, 1000));
+        String[] brands = {"Bikeos", "Kross", "Giant", "Trek", "Romet"};
+        Frame[] frames = Frame.values();
+        List<Bike> bikes = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) {
+            bikes.add(new Bike("Test_" + i, brands[rand.nextInt(brands.length)], rand.nextInt(2),
+                    rand.nextInt(1000000) / 100f, rand.nextInt(100000) / 1000f, profiles.get(rand.nextInt(1000)),
+                    rand.nextInt(2), 1 + rand.nextInt(10), frames[rand.nextInt(frames.length)], rand.nextInt(2),
+                    rand.nextInt(2), rand.nextInt(2)));
+        }
+        Path columnar = dir.resolve("bikesBench.col"), rows = dir.resolve("bikesBench.dat");
+        writeBikes(columnar, bikes);
+        try (FileChannel ch = FileChannel.open(rows, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ItemCodec.write(ch, bikes, new ArrayList<Car>());
+        }
+        bikes = null;
+
+        long start = System.nanoTime();
+        double sum = 0;
+        long count = 0;
+        try (Reader r = open(columnar)) {
+            FloatBuffer price = r.floats(PRICE);
+            IntBuffer available = r.ints(IS_AVAILABLE);
+            for(int i = 0; i < r.rows(); i++) {
+                if(available.get(i) == 1) {
+                    sum += price.get(i);
+                    count++;
+                }
+            }
+        }
+        long columnScan = System.nanoTime() - start;
+        System.out.println("Columnar scan (" + Files.size(columnar) + " bytes file): average price "
+                + (float) (sum / count) + " of " + count + " bikes in " + columnScan / 1000000 + " ms");
+
+        start = System.nanoTime();
+        List<Bike> loaded = new ArrayList<>(n);
+        try (FileChannel ch = FileChannel.open(rows, StandardOpenOption.READ)) {
+            ItemCodec.read(ch, loaded, new ArrayList<Car>());
+        }
+        sum = 0;
+        count = 0;
+        for(Bike bike : loaded) {
+            if(bike.getIs_available() == 1) {
+                sum += bike.getPrice();
+                count++;
+            }
+        }
+        long rowScan = System.nanoTime() - start;
+        System.out.println("Row scan (" + Files.size(rows) + " bytes file): average price "
+                + (float) (sum / count) + " of " + count + " bikes in " + rowScan / 1000000 + " ms");
+
+        start = System.nanoTime();
+        try (Reader r = open(columnar)) {
+            long cheap = r.count(PRICE, 0, 100);
+            System.out.println("Bikes with price <= 100: " + cheap + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+        Files.delete(columnar);
+        Files.delete(rows);
+    }
+}
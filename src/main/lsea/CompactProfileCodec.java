@@ -0,0 +1,379 @@
+package main.lsea;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary format of the profiles sent by TCP and UDP instead of Java serialization.<br>
+ * Layout: MAGIC (4 bytes), VERSION (1 byte), count of the profiles, then for every profile: nick, password, name,
+ * surname, age, money, version of the profile and versions of the fields PASSWORD - MONEY.<br>
+ * Counts are varints (7 bits per byte), age is zigzag varint (small negative values also take one byte), money
+ * is written as raw bits of the float (4 bytes, big endian), version is varint and versions of the fields are
+ * varints of the difference to the version (one byte for most of them). Strings are written as varint
+ * length + 1 (0 for null) and UTF-8 bytes.<br>
+ * Only these fields are sent, so there are no class descriptors, no ejbClient and no paths of the files.
+ * Writer and Reader are the common varint encoding of the project, they are used also by ProfileFrames,
+ * DeltaSync and ItemCodec (Reader can read a channel in parts, Writer can be flushed to a channel and cleared).
+ */
+public final class CompactProfileCodec implements ProfileCodec {
+
+    /*** MAGIC -> first 4 bytes of the data ("OLXP")*/
+    public static final int MAGIC = 0x4F4C5850;
+    /*** VERSION -> version of the layout described above*/
+    public static final int VERSION = 1;
+
+    @Override
+    public byte[] encode(List<LSEA> profiles) throws IOException {
+        Writer out = new Writer(16 + profiles.size() * 48);
+        writeHeader(out, profiles.size());
+        for(LSEA p : profiles) writeProfile(out, p);
+        return out.toByteArray();
+    }
+
+    @Override
+    public List<LSEA> decode(byte[] data, int offset, int length) throws IOException {
+        Reader in = new Reader(data, offset, length);
+        readHeader(in);
+        int n = in.readCount();
+        List<LSEA> profiles = new ArrayList<>(Math.min(n, in.remaining()));
+        for(int i = 0; i < n; i++) profiles.add(readProfile(in));
+        return profiles;
+    }
+
+    /*** @return true if the data starts with MAGIC*/
+    public static boolean isCompact(byte[] data, int offset, int length) {
+        return length >= 4 && readMagic(data, offset) == MAGIC;
+    }
+
+    /**
+     * Writing MAGIC, VERSION and number of the profiles
+     *
+     * @param out writer
+     * @param count number of the profiles written after the header
+     */
+    public static void writeHeader(Writer out, int count) {
+        out.writeFixedInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(count);
+    }
+
+    /**
+     * Checking MAGIC and VERSION, the number of the profiles is read next
+     *
+     * @param in reader placed at the beginning of the data
+     * @throws IOException when the data is not in this format
+     */
+    public static void readHeader(Reader in) throws IOException {
+        int magic = in.readFixedInt();
+        if(magic != MAGIC) throw new IOException("Not compact profile data (magic " + Integer.toHexString(magic) + ")");
+        int version = in.readByte();
+        if(version != VERSION) throw new IOException("Unsupported profile data version " + version);
+    }
+
+    public static void writeProfile(Writer out, LSEA p) {
+        out.writeString(p.getNick());
+        out.writeString(p.getPassword());
+        out.writeString(p.getName());
+        out.writeString(p.getSurname());
+        out.writeSInt(p.getAge());
+        out.writeFloat(p.getMoney());
+        writeVersions(out, p);
+    }
+
+    /*** writing version of the profile and versions of its fields*/
+    public static void writeVersions(Writer out, LSEA p) {
+        long version = p.getVersion();
+        out.writeLong(version);
+        for(int f = 0; f < LSEA.FIELDS; f++) out.writeLong(version - p.getFieldVersion(f));
+    }
+
+    /**
+     * Reading versions written by writeVersions
+     *
+     * @param in reader
+     * @return version of the profile (index 0) and versions of the fields (index 1 + field)
+     * @throws IOException when a version of the field is bigger than the version of the profile
+     */
+    public static long[] readVersions(Reader in) throws IOException {
+        long[] versions = new long[1 + LSEA.FIELDS];
+        versions[0] = in.readLong();
+        for(int f = 1; f < versions.length; f++) {
+            long back = in.readLong();
+            if(back < 0 || back > versions[0]) throw new IOException("Wrong version of the field " + back);
+            versions[f] = versions[0] - back;
+        }
+        return versions;
+    }
+
+    /**
+     * Reading profile written by writeProfile
+     *
+     * @param in reader
+     * @return profile
+     * @throws IOException
+     */
+    public static LSEA readProfile(Reader in) throws IOException {
+        String nick = in.readString(), password = in.readString(), name = in.readString(), surname = in.readString();
+        int age = in.readSInt();
+        LSEA p = new LSEA(nick, password, name, surname, age, in.readFloat());
+        long[] versions = readVersions(in);
+        p.restoreVersion(versions[0], Arrays.copyOfRange(versions, 1, versions.length));
+        return p;
+    }
+
+    private static int readMagic(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16 | (data[offset + 2] & 0xFF) << 8 | (data[offset + 3] & 0xFF);
+    }
+
+    /*** Growing array of bytes with encoded values*/
+    public static final class Writer {
+        private byte[] buf;
+        private int size;
+
+        /*** @param capacity expected number of bytes*/
+        public Writer(int capacity) {
+            buf = new byte[Math.max(16, capacity)];
+        }
+
+        /*** @return number of written bytes*/
+        public int size() {
+            return size;
+        }
+
+        private void ensure(int n) {
+            if(buf.length - size < n) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
+        }
+
+        public void writeByte(int v) {
+            ensure(1);
+            buf[size++] = (byte) v;
+        }
+
+        /*** writing int on 4 bytes (big endian)*/
+        public void writeFixedInt(int v) {
+            ensure(4);
+            buf[size++] = (byte) (v >>> 24);
+            buf[size++] = (byte) (v >>> 16);
+            buf[size++] = (byte) (v >>> 8);
+            buf[size++] = (byte) v;
+        }
+
+        /*** writing long on 8 bytes (big endian)*/
+        public void writeFixedLong(long v) {
+            writeFixedInt((int) (v >>> 32));
+            writeFixedInt((int) v);
+        }
+
+        /*** writing int as varint, negative values take 5 bytes*/
+        public void writeInt(int v) {
+            ensure(5);
+            while((v & ~0x7F) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        /*** writing int as zigzag varint (0, -1, 1, -2, ...)*/
+        public void writeSInt(int v) {
+            writeInt((v << 1) ^ (v >> 31));
+        }
+
+        /*** writing long as varint*/
+        public void writeLong(long v) {
+            ensure(10);
+            while((v & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        public void writeFloat(float v) {
+            writeFixedInt(Float.floatToRawIntBits(v));
+        }
+
+        public void writeString(String s) {
+            if(s == null) {
+                writeInt(0);
+                return;
+            }
+            int n = s.length();
+            ensure(5 + n);
+            int start = size;
+            writeInt(n + 1);
+            for(int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if(c >= 0x80) {
+                    size = start;
+                    writeBytes(s.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                buf[size++] = (byte) c;
+            }
+        }
+
+        /*** writing varint length + 1 and the bytes*/
+        public void writeBytes(byte[] bytes) {
+            writeInt(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        /*** overwriting 4 bytes written before at position (big endian), e.g. length known after the payload*/
+        public void setFixedInt(int position, int v) {
+            if(position < 0 || position + 4 > size) throw new IndexOutOfBoundsException("Wrong position " + position);
+            buf[position] = (byte) (v >>> 24);
+            buf[position + 1] = (byte) (v >>> 16);
+            buf[position + 2] = (byte) (v >>> 8);
+            buf[position + 3] = (byte) v;
+        }
+
+        /*** @return copy of the written bytes*/
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+
+        /*** writing all written bytes to the stream*/
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(buf, 0, size);
+        }
+
+        /**
+         * Writing all written bytes to the channel
+         *
+         * @return number of written bytes
+         */
+        public int writeTo(WritableByteChannel ch) throws IOException {
+            ByteBuffer b = ByteBuffer.wrap(buf, 0, size);
+            while(b.hasRemaining()) ch.write(b);
+            return size;
+        }
+
+        /*** forgetting written bytes, the array is kept for the next values*/
+        public void clear() {
+            size = 0;
+        }
+    }
+
+    /*** Reading values written by Writer from the part of the array or from the channel*/
+    public static final class Reader {
+        private byte[] buf;
+        private int limit;
+        private int position;
+        /*** ch -> channel from which buf is refilled (null when reading the array)*/
+        private final ReadableByteChannel ch;
+
+        public Reader(byte[] buf, int offset, int length) {
+            if(offset < 0 || length < 0 || offset + length > buf.length) throw new IndexOutOfBoundsException("Wrong part of the array");
+            this.buf = buf;
+            this.position = offset;
+            this.limit = offset + length;
+            this.ch = null;
+        }
+
+        /**
+         * @param ch channel read from its current position
+         * @param bufferSize number of bytes read from the channel at once (bigger values are read whole)
+         */
+        public Reader(ReadableByteChannel ch, int bufferSize) {
+            this.buf = new byte[Math.max(16, bufferSize)];
+            this.ch = ch;
+        }
+
+        /*** @return number of unread bytes in the array (in the buffer for the channel)*/
+        public int remaining() {
+            return limit - position;
+        }
+
+        private void ensure(int n) throws IOException {
+            if(limit - position >= n) return;
+            if(ch == null) throw new EOFException("Profile data is truncated");
+            int rest = limit - position;
+            if(buf.length < n) buf = Arrays.copyOf(buf, n);
+            System.arraycopy(buf, position, buf, 0, rest);
+            position = 0;
+            limit = rest;
+            while(limit < n) {
+                int read = ch.read(ByteBuffer.wrap(buf, limit, buf.length - limit));
+                if(read < 0) throw new EOFException("Data is truncated");
+                limit += read;
+            }
+        }
+
+        public int readByte() throws IOException {
+            ensure(1);
+            return buf[position++] & 0xFF;
+        }
+
+        public int readFixedInt() throws IOException {
+            ensure(4);
+            int v = readMagic(buf, position);
+            position += 4;
+            return v;
+        }
+
+        public long readFixedLong() throws IOException {
+            long high = readFixedInt();
+            return high << 32 | (readFixedInt() & 0xFFFFFFFFL);
+        }
+
+        /*** reading varint written by Writer.writeInt*/
+        public int readInt() throws IOException {
+            int v = 0;
+            for(int shift = 0; shift < 35; shift += 7) {
+                ensure(1);
+                byte b = buf[position++];
+                v |= (b & 0x7F) << shift;
+                if(b >= 0) return v;
+            }
+            throw new IOException("Wrong varint");
+        }
+
+        public int readSInt() throws IOException {
+            int v = readInt();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        public long readLong() throws IOException {
+            long v = 0;
+            for(int shift = 0; shift < 70; shift += 7) {
+                ensure(1);
+                byte b = buf[position++];
+                v |= (long) (b & 0x7F) << shift;
+                if(b >= 0) return v;
+            }
+            throw new IOException("Wrong varint");
+        }
+
+        public float readFloat() throws IOException {
+            return Float.intBitsToFloat(readFixedInt());
+        }
+
+        /*** reading number of records, it can not be negative*/
+        public int readCount() throws IOException {
+            int n = readInt();
+            if(n < 0) throw new IOException("Wrong number of records " + n);
+            return n;
+        }
+
+        public String readString() throws IOException {
+            int len = readInt() - 1;
+            if(len == -1) return null;
+            if(len < 0) throw new IOException("Wrong length of string " + len);
+            ensure(len);
+            String s = new String(buf, position, len, StandardCharsets.UTF_8);
+            position += len;
+            return s;
+        }
+    }
+}
@@ -1,20 +1,25 @@
 package main.lsea;
 
 import lombok.*;
+import main.database.DB_Frame;
+import main.database.DB_Handling;
+import main.database.DB_Profile;
 import org.hibernate.validator.constraints.Range;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.nio.channels.*;
+import java.util.Map;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
 
 /**
  * This is abstract class. Two classes are inheriting from it (Bike and Car).<br>
@@ -62,39 +67,31 @@ abstract class Item implements Cloneable, Serializable{
     public abstract void save();
 
     /**
-     * Method that is saving serialized data into .dat file.
+     * Method that is saving offers into .dat file in the binary format of ItemCodec.<br>
+     * Owners are written once in the profile table of the file, not with every item.
      * @param bikes list with all of the bike offers
      * @param cars list with all of the car offers
      * @param uPath Path of the file(String)
      */
     public void saveS(List<Bike> bikes, List<Car> cars, String uPath) {
         File file = new File(uPath + ".dat");
-        try {
-            FileOutputStream fos = new FileOutputStream(file);
-            FileLock fl = fos.getChannel().tryLock();
-            ObjectOutputStream os = new ObjectOutputStream(fos);
+        try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock fl = fc.tryLock();
             if(fl != null) {
                 System.out.println("File is locked");
-                os.writeInt(bikes.size());
-                for(int i =0; i<bikes.size(); i++) {
-                    os.writeObject(bikes.get(i));
-                }
-                os.writeInt(cars.size());
-                for(int i =0; i<cars.size(); i++) {
-                    os.writeObject(cars.get(i));
-                }
-                TimeUnit.SECONDS.sleep(5);
+                fc.truncate(0);
+                ItemCodec.write(fc, bikes, cars);
                 fl.release();
                 System.out.print("File is unlocked");
             }
-            os.close();
-        } catch (IOException | InterruptedException ex) {
+        } catch (IOException ex) {
             System.out.print(ex.getMessage());
         }
     }
 
     /**
-     * Method that is loading serialized from .dat file and deserialize them.
+     * Method that is loading offers from .dat file.<br>
+     * Files written by ItemCodec are recognized by the header, older files are read with ObjectInputStream as before.
      * @param bikes list with all of the bike offers
      * @param cars list with all of the car offers
      * @param uPath Path of the file(String)
@@ -102,6 +99,12 @@ abstract class Item implements Cloneable, Serializable{
     public void loadS(List<Bike> bikes, List<Car> cars, String uPath) {
         File file = new File(uPath + ".dat");
         try {
+            if(ItemCodec.isCodecFile(file.toPath())) {
+                try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    ItemCodec.read(fc, bikes, cars);
+                }
+                return;
+            }
             FileInputStream fis = new FileInputStream(file);
             ObjectInputStream is = new ObjectInputStream(fis);
             int wait = is.readInt();
@@ -120,6 +123,47 @@ abstract class Item implements Cloneable, Serializable{
         }
     }
 
+    /**
+     * Map used by save methods of Car and Bike for finding id of the owner in one step
+     * @param db_H object of class necessary for database handling
+     * @return id of DB_Profile by nick of the profile
+     */
+    static Map<String, Integer> profileIds(DB_Handling db_H) {
+        Map<String, Integer> ids = new HashMap<>(Math.max(16, (int) (db_H.getDbP().size() / 0.75f) + 1));
+        for(DB_Profile profile : db_H.getDbP()) {
+            if(!ids.containsKey(profile.getNick())) ids.put(profile.getNick(), profile.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Map used by Bike.save for finding id of the frame in one step.<br>
+     * Materials which are not in Frame enum are skipped, frames without DB_Frame get id ordinal + 1 (order of frames.txt)
+     * @param db_H object of class necessary for database handling
+     * @return id of DB_Frame by Frame
+     */
+    static Map<Frame, Integer> frameIds(DB_Handling db_H) {
+        Map<Frame, Integer> ids = new EnumMap<>(Frame.class);
+        for(DB_Frame frame : db_H.getDbF()) {
+            if(Frame.contains(frame.getMaterial())) ids.put(Frame.valueOf(frame.getMaterial()), frame.getFrameID());
+        }
+        for(Frame frame : Frame.values()) {
+            if(!ids.containsKey(frame)) ids.put(frame, frame.ordinal() + 1);
+        }
+        return ids;
+    }
+
+    /**
+     * printing the speed of writing the file
+     * @param bytes size of written data
+     * @param start time when writing started (ns)
+     */
+    static void printRate(long bytes, long start) {
+        long nanos = Math.max(1, System.nanoTime() - start);
+        System.out.println("Written " + bytes + " bytes in " + nanos / 1000000 + " ms ("
+                + String.format("%.1f", bytes * 1e9 / nanos / (1 << 20)) + " MB/s)");
+    }
+
     /*** deep cloning
      * @return item, which is clone of item class object with LSEA addition
      */
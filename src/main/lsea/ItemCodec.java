@@ -0,0 +1,272 @@
+package main.lsea;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Binary format of the offers used by Item.saveS and Item.loadS instead of Java serialization.<br>
+ * Layout of the file:<br>
+ * header - MAGIC (4 bytes), VERSION (4 bytes)<br>
+ * profiles - count, then for every profile: nick, password, name, surname, age, money<br>
+ * bikes - count, then for every bike: nameOI, brand, is_auction, price, weight, owner, is_available, gear,
+ * frame (ordinal + 1, 0 for null), are_lights, is_bell, are_breaks<br>
+ * cars - count, then for every car: nameOI, brand, is_auction, price, weight, owner, is_available, year, power,
+ * passengers, transmission, country<br>
+ * Counts and ints are varints (7 bits per byte, so flags and small numbers take one byte), floats are 4 bytes
+ * (big endian). Strings are written as varint length + 1 (0 for null) and UTF-8 bytes. Owner is index in the
+ * profile table + 1 (0 for no owner), so every profile is written once no matter how many items it has.
+ * Profiles shared by many items are shared again after reading.<br>
+ * Values are written by CompactProfileCodec.Writer and read by CompactProfileCodec.Reader (the same varints
+ * as in profile messages), nothing is done by reflection.
+ */
+public final class ItemCodec {
+
+    /*** MAGIC -> first 4 bytes of the file ("OLXI")*/
+    public static final int MAGIC = 0x4F4C5849;
+    /*** VERSION -> version of the layout described above*/
+    public static final int VERSION = 1;
+    /*** BUFFER -> size of the buffer used for reading and writing (bytes)*/
+    private static final int BUFFER = 1 << 20;
+
+    private ItemCodec() {}
+
+    /**
+     * Checking if the file starts with MAGIC
+     *
+     * @param path path of the file
+     * @return false for files in other format (e.g. written by ObjectOutputStream) and for empty files
+     * @throws IOException
+     */
+    public static boolean isCodecFile(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while(head.hasRemaining() && ch.read(head) >= 0);
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Writing all offers to the channel from its current position
+     *
+     * @param ch channel of the file
+     * @param bikes list with all of the bike offers
+     * @param cars list with all of the car offers
+     * @return number of bytes written
+     * @throws IOException
+     */
+    public static long write(FileChannel ch, List<Bike> bikes, List<Car> cars) throws IOException {
+        Map<LSEA, Integer> ids = new IdentityHashMap<>();
+        List<LSEA> profiles = new ArrayList<>();
+        for(Bike bike : bikes) addProfile(bike.getAccount(), ids, profiles);
+        for(Car car : cars) addProfile(car.getAccount(), ids, profiles);
+
+        CompactProfileCodec.Writer out = new CompactProfileCodec.Writer(BUFFER + BUFFER / 4);
+        long written = 0;
+        out.writeFixedInt(MAGIC);
+        out.writeFixedInt(VERSION);
+        out.writeInt(profiles.size());
+        for(LSEA p : profiles) {
+            if(out.size() >= BUFFER) written += flush(out, ch);
+            out.writeString(p.getNick());
+            out.writeString(p.getPassword());
+            out.writeString(p.getName());
+            out.writeString(p.getSurname());
+            out.writeInt(p.getAge());
+            out.writeFloat(p.getMoney());
+        }
+        out.writeInt(bikes.size());
+        for(Bike b : bikes) {
+            if(out.size() >= BUFFER) written += flush(out, ch);
+            out.writeString(b.getNameOI());
+            out.writeString(b.getBrand());
+            out.writeInt(b.getIs_auction());
+            out.writeFloat(b.getPrice());
+            out.writeFloat(b.getWeight());
+            out.writeInt(owner(b.getAccount(), ids));
+            out.writeInt(b.getIs_available());
+            out.writeInt(b.getGear());
+            out.writeInt(b.getFrame() == null ? 0 : b.getFrame().ordinal() + 1);
+            out.writeInt(b.getAre_lights());
+            out.writeInt(b.getIs_bell());
+            out.writeInt(b.getAre_breaks());
+        }
+        out.writeInt(cars.size());
+        for(Car c : cars) {
+            if(out.size() >= BUFFER) written += flush(out, ch);
+            out.writeString(c.getNameOI());
+            out.writeString(c.getBrand());
+            out.writeInt(c.getIs_auction());
+            out.writeFloat(c.getPrice());
+            out.writeFloat(c.getWeight());
+            out.writeInt(owner(c.getAccount(), ids));
+            out.writeInt(c.getIs_available());
+            out.writeInt(c.getYear());
+            out.writeInt(c.getPower());
+            out.writeInt(c.getPassengers());
+            out.writeString(c.getTransmission());
+            out.writeString(c.getCountry());
+        }
+        return written + flush(out, ch);
+    }
+
+    /*** writing the buffered bytes to the channel, the writer is cleared for the next records*/
+    private static int flush(CompactProfileCodec.Writer out, FileChannel ch) throws IOException {
+        int n = out.writeTo(ch);
+        out.clear();
+        return n;
+    }
+
+    /**
+     * Reading offers written by write and adding them to the lists
+     *
+     * @param ch channel of the file, positioned at MAGIC
+     * @param bikes list where bikes are added
+     * @param cars list where cars are added
+     * @throws IOException when the file is not in this format or is damaged
+     */
+    public static void read(FileChannel ch, List<Bike> bikes, List<Car> cars) throws IOException {
+        CompactProfileCodec.Reader in = new CompactProfileCodec.Reader(ch, BUFFER);
+        int magic = in.readFixedInt(), version = in.readFixedInt();
+        if(magic != MAGIC) throw new IOException("Not an item file (magic " + Integer.toHexString(magic) + ")");
+        if(version != VERSION) throw new IOException("Unsupported item file version " + version);
+        Frame[] frames = Frame.values();
+
+        LSEA[] profiles = new LSEA[in.readCount()];
+        for(int i = 0; i < profiles.length; i++) {
+            String nick = in.readString(), password = in.readString(), name = in.readString(), surname = in.readString();
+            int age = in.readInt();
+            profiles[i] = new LSEA(nick, password, name, surname, age, in.readFloat());
+        }
+        int n = in.readCount();
+        for(int i = 0; i < n; i++) {
+            String nameOI = in.readString(), brand = in.readString();
+            int auction = in.readInt();
+            float price = in.readFloat(), weight = in.readFloat();
+            LSEA account = profile(profiles, in.readInt());
+            int available = in.readInt(), gear = in.readInt(), frame = in.readInt();
+            if(frame < 0 || frame > frames.length) throw new IOException("Wrong frame " + frame);
+            int lights = in.readInt(), bell = in.readInt(), breaks = in.readInt();
+            bikes.add(new Bike(nameOI, brand, auction, price, weight, account, available, gear,
+                    frame == 0 ? null : frames[frame - 1], lights, bell, breaks));
+        }
+        n = in.readCount();
+        for(int i = 0; i < n; i++) {
+            String nameOI = in.readString(), brand = in.readString();
+            int auction = in.readInt();
+            float price = in.readFloat(), weight = in.readFloat();
+            LSEA account = profile(profiles, in.readInt());
+            int available = in.readInt(), year = in.readInt(), power = in.readInt(), passengers = in.readInt();
+            String transmission = in.readString();
+            cars.add(new Car(nameOI, brand, auction, price, weight, account, available, year, power, passengers,
+                    transmission, in.readString()));
+        }
+    }
+
+    private static void addProfile(LSEA profile, Map<LSEA, Integer> ids, List<LSEA> profiles) {
+        if(profile != null && !ids.containsKey(profile)) {
+            ids.put(profile, profiles.size());
+            profiles.add(profile);
+        }
+    }
+
+    private static int owner(LSEA profile, Map<LSEA, Integer> ids) {
+        return profile == null ? 0 : ids.get(profile) + 1;
+    }
+
+    private static LSEA profile(LSEA[] profiles, int id) throws IOException {
+        if(id == 0) return null;
+        if(id < 0 || id > profiles.length) throw new IOException("Wrong owner id " + id);
+        return profiles[id - 1];
+    }
+
+    /**
+     * Benchmark of this format against Java serialization used before (like data/Items.dat).<br>
+     * Arguments: number of items (default 1 000 000, half bikes and half cars), number of profiles (default 1000)
+     * and directory for the files (default data). For 10 000 000 items run with -Xmx of a few GB.
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int nProfiles = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        Path dir = Paths.get(args.length > 2 ? args[2] : "data");
+        Random rand = new Random(1);
+        List<LSEA> profiles = new ArrayList<>();
+        for(int i = 0; i < nProfiles; i++) {
+            profiles.add(new LSEA("user_" + i, "pass_" + i, "Name", "Surname", 18 + rand.nextInt(60), rand.nextInt(100000)));
+        }
+        List<Bike> bikes = new ArrayList<>();
+        List<Car> cars = new ArrayList<>();
+        Frame[] frames = Frame.values();
+        for(int i = 0; i < items / 2; i++) {
+            bikes.add(new Bike("Test_" + i, "Bikeos", rand.nextInt(2), rand.nextInt(1000000) / 100f,
+                    rand.nextInt(100000) / 1000f, profiles.get(rand.nextInt(nProfiles)), rand.nextInt(2),
+                    1 + rand.nextInt(10), frames[rand.nextInt(frames.length)], rand.nextInt(2), rand.nextInt(2), rand.nextInt(2)));
+        }
+        for(int i = 0; i < items - items / 2; i++) {
+            cars.add(new Car("Test_" + i, "Carsos", rand.nextInt(2), rand.nextInt(1000000) / 100f,
+                    rand.nextInt(3000000) / 1000f, profiles.get(rand.nextInt(nProfiles)), rand.nextInt(2),
+                    1950 + rand.nextInt(70), 50 + rand.nextInt(500), 1 + rand.nextInt(8), "manual", "Poland"));
+        }
+
+        Path legacy = dir.resolve("ItemsBench.dat"), codec = dir.resolve("ItemsBench.bin");
+        long start = System.nanoTime();
+        try (ObjectOutputStream os = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(legacy.toFile()), BUFFER))) {
+            os.writeInt(bikes.size());
+            for(Bike bike : bikes) os.writeObject(bike);
+            os.writeInt(cars.size());
+            for(Car car : cars) os.writeObject(car);
+        }
+        long legacyWrite = System.nanoTime() - start;
+        start = System.nanoTime();
+        List<Bike> legacyBikes = new ArrayList<>();
+        List<Car> legacyCars = new ArrayList<>();
+        try (ObjectInputStream is = new ObjectInputStream(new BufferedInputStream(new FileInputStream(legacy.toFile()), BUFFER))) {
+            for(int i = is.readInt(); i > 0; i--) legacyBikes.add((Bike) is.readObject());
+            for(int i = is.readInt(); i > 0; i--) legacyCars.add((Car) is.readObject());
+        }
+        long legacyRead = System.nanoTime() - start;
+        legacyBikes = null;
+        legacyCars = null;
+
+        start = System.nanoTime();
+        try (FileChannel ch = FileChannel.open(codec, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(ch, bikes, cars);
+        }
+        long codecWrite = System.nanoTime() - start;
+        start = System.nanoTime();
+        List<Bike> codecBikes = new ArrayList<>(bikes.size());
+        List<Car> codecCars = new ArrayList<>(cars.size());
+        try (FileChannel ch = FileChannel.open(codec, StandardOpenOption.READ)) {
+            read(ch, codecBikes, codecCars);
+        }
+        long codecRead = System.nanoTime() - start;
+
+        System.out.println("Items: " + items + ", profiles: " + nProfiles);
+        System.out.println("ObjectOutputStream: " + Files.size(legacy) + " bytes, write " + legacyWrite / 1000000
+                + " ms, read " + legacyRead / 1000000 + " ms");
+        System.out.println("ItemCodec:          " + Files.size(codec) + " bytes, write " + codecWrite / 1000000
+                + " ms, read " + codecRead / 1000000 + " ms");
+        boolean equal = codecBikes.size() == bikes.size() && codecCars.size() == cars.size();
+        for(int i = 0; equal && i < bikes.size(); i++) equal = bikes.get(i).toString().equals(codecBikes.get(i).toString());
+        for(int i = 0; equal && i < cars.size(); i++) equal = cars.get(i).toString().equals(codecCars.get(i).toString());
+        System.out.println("Round trip equal: " + equal);
+        Files.delete(legacy);
+        Files.delete(codec);
+    }
+}
@@ -19,15 +19,14 @@ import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
-import javax.persistence.Persistence;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.io.*;
-import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
-import java.nio.file.StandardOpenOption;
 
 /**
  * LSEA class is the main class for my application. At the beginning user has to create his account.<br>
@@ -58,6 +57,9 @@ import java.nio.file.StandardOpenOption;
 @RequestScoped
 public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
 
+    /*** serialVersionUID -> correct serialization*/
+    private static final long serialVersionUID = 4637252619838712931L;
+
 //    @EJB
 //    public TestSessionBean testBean;
 //    public boolean beanStatus;
@@ -87,6 +89,16 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
     @Min(value = 0, message = "\tMoney cannot be negative")
     private float money;
 
+    /*** version -> logical clock of the changes of the profile, increased by the setters, used by delta sync (private, long value)*/
+    @Setter(AccessLevel.NONE)
+    private long version;
+    /*** clocks -> version of the last change of every replicated field (index PASSWORD - MONEY), null means all are equal to version*/
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long[] clocks;
+
+    /*** PASSWORD, NAME, SURNAME, AGE, MONEY -> indexes of the replicated fields in clocks, FIELDS -> number of them*/
+    public static final int PASSWORD = 0, NAME = 1, SURNAME = 2, AGE = 3, MONEY = 4, FIELDS = 5;
+
     /**
      * bPath -> default path to binary file<br>
      * tPath -> default path to txt files
@@ -103,6 +115,125 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
 //        this.beanStatus = this.testBean.getBeanStatus();
 //        this.beanMsg = this.testBean.getMsg();
     }
+
+    /*
+     * Setters of the replicated fields (used instead of the ones from lombok), version is increased when the value
+     * changes and the field remembers it as its clock. Nick is the key of the profile in delta sync, so a profile
+     * with a new nick is a new profile for the other node (only version is increased).
+     */
+    public void setNick(String nick) {
+        if(!Objects.equals(this.nick, nick)) version++;
+        this.nick = nick;
+    }
+
+    public void setPassword(String password) {
+        if(!Objects.equals(this.password, password)) touch(PASSWORD);
+        this.password = password;
+    }
+
+    public void setName(String name) {
+        if(!Objects.equals(this.name, name)) touch(NAME);
+        this.name = name;
+    }
+
+    public void setSurname(String surname) {
+        if(!Objects.equals(this.surname, surname)) touch(SURNAME);
+        this.surname = surname;
+    }
+
+    public void setAge(int age) {
+        if(this.age != age) touch(AGE);
+        this.age = age;
+    }
+
+    public void setMoney(float money) {
+        if(Float.floatToIntBits(this.money) != Float.floatToIntBits(money)) touch(MONEY);
+        this.money = money;
+    }
+
+    /**
+     * @param field index of the field (PASSWORD - MONEY)
+     * @return version of the last change of the field
+     */
+    public long getFieldVersion(int field) {
+        return clocks == null ? version : clocks[field];
+    }
+
+    private void touch(int field) {
+        long[] c = clocks();
+        c[field] = ++version;
+    }
+
+    private long[] clocks() {
+        if(clocks == null) {
+            clocks = new long[FIELDS];
+            Arrays.fill(clocks, version);
+        }
+        return clocks;
+    }
+
+    /**
+     * Setting versions of the profile received from other node (CompactProfileCodec)
+     * @param version version of the profile
+     * @param fieldVersions versions of the fields (index PASSWORD - MONEY)
+     */
+    void restoreVersion(long version, long[] fieldVersions) {
+        this.version = version;
+        this.clocks = fieldVersions.clone();
+    }
+
+    /**
+     * Merging profile with the same nick received from other node, field by field.<br>
+     * Every field takes the value with the bigger field version, so changes of different fields made on both nodes
+     * are all kept. When both nodes changed the same field with the same version, the bigger value wins (the same
+     * choice on both nodes). Version becomes the bigger of both, so the next local change is newer than all merged ones.
+     * Object stays the same, so items of this account do not have to be changed.
+     * @param from profile with the same nick
+     * @return true if any field or version changed
+     */
+    boolean merge(LSEA from) {
+        long[] mine = clocks();
+        boolean changed = false;
+        for(int f = 0; f < FIELDS; f++) {
+            long theirs = from.getFieldVersion(f);
+            if(theirs < mine[f] || theirs == mine[f] && compareField(f, from) <= 0) continue;
+            copyField(f, from);
+            mine[f] = theirs;
+            changed = true;
+        }
+        if(from.version > version) {
+            version = from.version;
+            changed = true;
+        }
+        return changed;
+    }
+
+    /*** @return comparison of the field of the other profile with the field of this one (null is the smallest)*/
+    private int compareField(int field, LSEA from) {
+        switch(field) {
+            case PASSWORD: return compare(from.password, password);
+            case NAME: return compare(from.name, name);
+            case SURNAME: return compare(from.surname, surname);
+            case AGE: return Integer.compare(from.age, age);
+            default: return Float.compare(from.money, money);
+        }
+    }
+
+    private static int compare(String a, String b) {
+        if(a == null || b == null) return a == null ? (b == null ? 0 : -1) : 1;
+        return a.compareTo(b);
+    }
+
+    private void copyField(int field, LSEA from) {
+        switch(field) {
+            case PASSWORD: password = from.password; break;
+            case NAME: name = from.name; break;
+            case SURNAME: surname = from.surname; break;
+            case AGE: age = from.age; break;
+            default: money = from.money;
+        }
+    }
+
 //    @PostConstruct
 //    public boolean test(){
 //        return this.beanStatus;
@@ -125,6 +256,18 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
      * @return Object of a LSEA class
      */
     public LSEA createProfile(List<LSEA> profiles, EntityManager eM, DB_Handling db_H) {
+        return createProfile(ProfileRegistry.of(profiles), eM, db_H);
+    }
+
+    /**
+     * Creating profile of the user, uniqueness of the nick is checked in the registry (exact nick).<br>
+     * New profile is added to the registry.
+     * @param registry registry of all profiles
+     * @param eM instance of entity Manager, needed for transactions
+     * @param db_H object of class necessary for database handling
+     * @return Object of a LSEA class
+     */
+    public LSEA createProfile(ProfileRegistry registry, EntityManager eM, DB_Handling db_H) {
         String nick = "", password, name, surname;
         int age;
         float money;
@@ -135,12 +278,9 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
             flag = 0;
             System.out.print("Nick: ");
             nick = S.nextLine();
-            for(int i=0; i<profiles.size(); i++) {
-                if(profiles.get(i).getNick().contains(nick)){
-                    flag = 1;
-                    System.out.println("Account with this nick already exists.");
-                    break;
-                }
+            if(registry.contains(nick)){
+                flag = 1;
+                System.out.println("Account with this nick already exists.");
             }
         }
         System.out.println("Password: ");
@@ -160,7 +300,9 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
         eM.persist(prof);
         eT.commit();
         System.out.println("Account was successfully created.");
-        return new LSEA(nick,password,name,surname,age,money);
+        LSEA profile = new LSEA(nick,password,name,surname,age,money);
+        registry.add(profile, prof.getId());
+        return profile;
     }
 
     /**
@@ -204,7 +346,7 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
 
         //Inserting data to database from txt files;
         DB_Handling db_H = new DB_Handling();
-        EntityManagerFactory eMF = Persistence.createEntityManagerFactory("DataBaseP");
+        EntityManagerFactory eMF = PersistenceUnits.create();
         EntityManager entityManager = eMF.createEntityManager();
         db_H.loadProfiles("data/profiles", entityManager);
         db_H.loadFrames("data/frames", entityManager);
@@ -229,18 +371,22 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
         Client_UDP client_UDP = new Client_UDP();
         Server_TCP server_TCP = new Server_TCP();
         Server_UDP server_UDP = new Server_UDP();
+        ProfileDigest replica = null;
 
         profiles=newObject.loadDB(db_H);
         Bike nBike = new Bike();
         Car nCar = new Car();
-        cars=nCar.loadCarDB(db_H,profiles);
-        bikes=nBike.loadBikeDB(db_H,profiles);
+        ProfileRegistry registry = ProfileRegistry.of(db_H, profiles);
+        cars=nCar.loadCarDB(db_H,registry);
+        bikes=nBike.loadBikeDB(db_H,registry);
 
         Collections.sort(profiles);
-        Collections.sort(bikes, nBike);
-        Collections.sort(cars, nCar);
+        OfferIndex<Bike> bikeIndex = OfferIndex.bikes(bikes);
+        OfferIndex<Car> carIndex = OfferIndex.cars(cars);
+        bikes = bikeIndex.asList();
+        cars = carIndex.asList();
 
-        newObject=newObject.createProfile(profiles, entityManager, db_H);
+        newObject=newObject.createProfile(registry, entityManager, db_H);
         profiles.add(newObject);
 
         /* Multithreading
@@ -279,6 +425,12 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
             System.out.println("14 - Delete bike by brand");
             System.out.println("15 - Change password to your account");
             System.out.println("16 - Run the query");
+            System.out.println("17 - UDP bulk server");
+            System.out.println("18 - UDP bulk client");
+            System.out.println("19 - TCP delta sync server");
+            System.out.println("20 - TCP delta sync client");
+            System.out.println("21 - TCP sync server (many clients at once)");
+            System.out.println("22 - TCP sync client");
             //System.out.println("10-info about sizes of all of the rateBike lists and listA printed");
             wait = S.nextLine();
             switch(wait){
@@ -299,12 +451,10 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
                     }
                     break;
                 case "3":
-                    cars.add(nCar.createOfferCar(newObject, entityManager, db_H));
-                    Collections.sort(cars, nCar);
+                    carIndex.add(nCar.createOfferCar(newObject, entityManager, db_H));
                     break;
                 case "4":
-                    bikes.add(nBike.createOfferBike(newObject, entityManager, db_H));
-                    Collections.sort(bikes, nBike);
+                    bikeIndex.add(nBike.createOfferBike(newObject, entityManager, db_H));
                     break;
                 // deep cloning 5 and 6 (buyItem() method in Bike and Car class)
                 case "5":
@@ -379,11 +529,8 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
                 case "14":
                     System.out.println("Type in brand name that you want to delete from database");
                     String brandName = S.nextLine();
-                    for(int i=0; i<=bikes.size()-1; i++){
-                        if(bikes.get(i).getBrand().equals(brandName)){
-                            bikes.remove(i);
-                            i = 0;
-                        }
+                    for(Bike bike : bikeIndex){
+                        if(bike.getBrand().equals(brandName)) bikeIndex.remove(bike);
                     }
                     db_H.deleteBikeBrand(brandName, entityManager);
                     break;
@@ -412,6 +559,26 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
                     catch(NumberFormatException e){
                         System.out.println("Wrong type of input");
                     }
+                    break;
+                case "17":
+                    server_UDP.receiveUDP_bulk(profiles);
+                    break;
+                case "18":
+                    client_UDP.send_UDP_bulk(profiles);
+                    break;
+                case "19":
+                    if(replica == null) replica = new ProfileDigest(profiles);
+                    server_TCP.TCP_delta_receive(replica);
+                    break;
+                case "20":
+                    if(replica == null) replica = new ProfileDigest(profiles);
+                    client_TCP.TCP_delta_sync(replica);
+                    break;
+                case "21":
+                    server_TCP.TCP_sync_receive(profiles, S);
+                    break;
+                case "22":
+                    client_TCP.TCP_sync(profiles);
                     break;
 					/*
 					//Multithreading checking
@@ -434,40 +601,66 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
             }
         }
 
-        newObject.save(profiles,"data/profiles");
-        nCar.save(db_H,cars,"data/cars");
-        nBike.save(db_H,bikes,"data/bikes");
+        saveAll(newObject, nCar, nBike, db_H, profiles, cars, bikes);
 
         S.close();
     }
 
     /**
-     * Basic save method where we save our profiles from the list to the .txt file.
+     * Saving profiles, cars and bikes to the .txt files at the same time (one thread per file).<br>
+     * Every file is written to its own temporary file (SnapshotWriter), so saves do not interfere with each other.
+     */
+    private static void saveAll(final LSEA profile, final Car car, final Bike bike, final DB_Handling db_H,
+                                final List<LSEA> profiles, final List<Car> cars, final List<Bike> bikes) {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        List<Callable<Object>> saves = new ArrayList<>();
+        saves.add(Executors.callable(new Runnable() {
+            @Override
+            public void run() {
+                profile.save(profiles, "data/profiles");
+            }
+        }));
+        saves.add(Executors.callable(new Runnable() {
+            @Override
+            public void run() {
+                car.save(db_H, cars, "data/cars");
+            }
+        }));
+        saves.add(Executors.callable(new Runnable() {
+            @Override
+            public void run() {
+                bike.save(db_H, bikes, "data/bikes");
+            }
+        }));
+        try {
+            pool.invokeAll(saves);
+        } catch(InterruptedException ex) {
+            System.out.print(ex.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Basic save method where we save our profiles from the list to the .txt file.<br>
+     * File is written through SnapshotWriter, so after a failed save the old file is still complete.
      *
      * @param profiles it is a list with all of the profiles in the database(type List<LSEA>).
      * @param uPath Path of the file(String)
      */
     public void save(List<LSEA> profiles, String uPath) {
         File file = new File(uPath + ".txt");
-        try {
-            FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
-            FileLock fl = fc.tryLock();
-            FileWriter output = new FileWriter(file);
-            if(fl != null) {
-                System.out.println("File is locked");
-                for(int i=0; i<profiles.size(); i++) {
-                    output.write(profiles.get(i).getNick() + "\n");
-                    output.write(profiles.get(i).getPassword() + "\n");
-                    output.write(profiles.get(i).getName() + "\n");
-                    output.write(profiles.get(i).getSurname() + "\n");
-                    output.write(profiles.get(i).getAge() + "\n");
-                    output.write(profiles.get(i).getMoney() + "\n");
-                }
-                fl.release();
-                System.out.println("File is unlocked");
-                System.out.println("Data were saved to Txt file");
+        try (SnapshotWriter output = new SnapshotWriter(file.toPath())) {
+            for(int i=0; i<profiles.size(); i++) {
+                output.write(profiles.get(i).getNick() + "\n");
+                output.write(profiles.get(i).getPassword() + "\n");
+                output.write(profiles.get(i).getName() + "\n");
+                output.write(profiles.get(i).getSurname() + "\n");
+                output.write(profiles.get(i).getAge() + "\n");
+                output.write(profiles.get(i).getMoney() + "\n");
             }
-            output.close();
+            output.commit();
+            System.out.println("Data were saved to Txt file");
         }catch(IOException ex){
             System.out.print(ex.getMessage());
         }
@@ -495,13 +688,12 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
                     os.writeInt(profiles.get(i).getAge());
                     os.writeFloat(profiles.get(i).getMoney());
                 }
-                TimeUnit.SECONDS.sleep(5);
                 fl.release();
                 System.out.println("File is unlocked");
                 System.out.println("Data were saved to binary file");
             }
             os.close();
-        }catch (IOException | InterruptedException ex){
+        }catch (IOException ex){
             System.out.print(ex.getMessage());
         }
     }
@@ -538,21 +730,11 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
     public List<LSEA> load(String uPath){
         List<LSEA>profiles =new ArrayList<>();
         File file = new File(uPath+".txt");
-        String nick, password, name, surname;
-        int age;
-        float money;
-        try {
-            Scanner input = new Scanner(file);
-            while(input.hasNextLine()) {
-                nick=input.nextLine();
-                password=input.nextLine();
-                name=input.nextLine();
-                surname=input.nextLine();
-                age=Integer.parseInt(input.nextLine());
-                money=Float.parseFloat(input.nextLine());
-                profiles.add(new LSEA(nick,password,name,surname,age,money));
+        try (RecordReader input = new RecordReader(file.toPath())) {
+            RecordReader.ProfileRecord r = new RecordReader.ProfileRecord();
+            while(input.next(r)) {
+                profiles.add(new LSEA(r.nick,r.password,r.name,r.surname,r.age,r.money));
             }
-            input.close();
         }catch(IOException ex){System.out.print(ex.getMessage());}
         return profiles;
     }
@@ -600,11 +782,13 @@ public class LSEA implements Comparable<LSEA>, Cloneable, Serializable{
         return result;
     }
 
-    /*** shallow cloning
+    /*** shallow cloning (versions of the fields are copied)
      * @return LSEA clone */
     @Override
     protected Object clone() throws CloneNotSupportedException {
-        return super.clone();
+        LSEA copy = (LSEA) super.clone();
+        if(clocks != null) copy.clocks = clocks.clone();
+        return copy;
     }
 
     /*** overriding toString method to print values from the class*/
@@ -0,0 +1,231 @@
+package main.lsea;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Offers kept sorted all the time, used in LSEA instead of sorting the whole list after every new offer.<br>
+ * Offers are keys of ConcurrentSkipListMap, so adding and removing is O(log n) and readers can iterate while an
+ * offer is added (iteration is weakly consistent, it never throws ConcurrentModificationException).<br>
+ * Order is the same as Bike.compare (name, then price descending) and Car.compare (name, then price ascending).
+ * Those comparators never return 0, so offers with equal name and price are ordered by the sequence number given
+ * when they were added, and the offer is found for removal by reference (identity map).<br>
+ * Writers are synchronized, readers are not.
+ *
+ * @param <T> type of the offers (Bike or Car)
+ */
+public class OfferIndex<T> implements Iterable<T> {
+
+    /*** BIKE_ORDER -> order of Bike.compare, 0 only for equal names and prices*/
+    public static final Comparator<Bike> BIKE_ORDER = new Comparator<Bike>() {
+        @Override
+        public int compare(Bike o1, Bike o2) {
+            int result = o1.getNameOI().compareTo(o2.getNameOI());
+            if(result != 0) return result;
+            if(o1.getPrice() > o2.getPrice()) return -1;
+            return o1.getPrice() < o2.getPrice() ? 1 : 0;
+        }
+    };
+
+    /*** CAR_ORDER -> order of Car.compare, 0 only for equal names and prices*/
+    public static final Comparator<Car> CAR_ORDER = new Comparator<Car>() {
+        @Override
+        public int compare(Car o1, Car o2) {
+            int result = o1.getNameOI().compareTo(o2.getNameOI());
+            if(result != 0) return result;
+            if(o1.getPrice() > o2.getPrice()) return 1;
+            return o1.getPrice() < o2.getPrice() ? -1 : 0;
+        }
+    };
+
+    private final ConcurrentSkipListMap<Key<T>, T> offers;
+    /*** keys -> key of every offer, by reference (guarded by this)*/
+    private final Map<T, Key<T>> keys = new IdentityHashMap<>();
+    private long seq;
+    private volatile int size;
+    /*** version -> changed by every add and remove, used to rebuild the array of asList*/
+    private volatile long version;
+    private volatile Snapshot snapshot = new Snapshot(0, new Object[0]);
+
+    /*** @param order order of the offers (ties are ordered by the sequence of adding)*/
+    public OfferIndex(final Comparator<? super T> order) {
+        offers = new ConcurrentSkipListMap<>(new Comparator<Key<T>>() {
+            @Override
+            public int compare(Key<T> a, Key<T> b) {
+                int result = order.compare(a.offer, b.offer);
+                return result != 0 ? result : Long.compare(a.seq, b.seq);
+            }
+        });
+    }
+
+    /*** @return index of the bikes in the order of Bike.compare*/
+    public static OfferIndex<Bike> bikes(Collection<Bike> bikes) {
+        OfferIndex<Bike> index = new OfferIndex<>(BIKE_ORDER);
+        index.addAll(bikes);
+        return index;
+    }
+
+    /*** @return index of the cars in the order of Car.compare*/
+    public static OfferIndex<Car> cars(Collection<Car> cars) {
+        OfferIndex<Car> index = new OfferIndex<>(CAR_ORDER);
+        index.addAll(cars);
+        return index;
+    }
+
+    /**
+     * @param offer new offer
+     * @return false if this offer (the same object) is already in the index
+     */
+    public synchronized boolean add(T offer) {
+        if(keys.containsKey(offer)) return false;
+        Key<T> key = new Key<>(offer, seq++);
+        keys.put(offer, key);
+        offers.put(key, offer);
+        size++;
+        version++;
+        return true;
+    }
+
+    /*** @param offers new offers*/
+    public synchronized void addAll(Collection<? extends T> offers) {
+        for(T offer : offers) add(offer);
+    }
+
+    /**
+     * @param offer removed offer (compared by reference)
+     * @return true if offer was in the index
+     */
+    public synchronized boolean remove(T offer) {
+        Key<T> key = keys.remove(offer);
+        if(key == null) return false;
+        offers.remove(key);
+        size--;
+        version++;
+        return true;
+    }
+
+    /*** @return true if this offer (the same object) is in the index*/
+    public synchronized boolean contains(T offer) {
+        return keys.containsKey(offer);
+    }
+
+    /*** @return number of offers*/
+    public int size() {
+        return size;
+    }
+
+    /*** @return first offer in the order or null if index is empty*/
+    public T first() {
+        Map.Entry<Key<T>, T> e = offers.firstEntry();
+        return e == null ? null : e.getValue();
+    }
+
+    /*** @return offers in the order, weakly consistent (sees some of the changes made while iterating)*/
+    @Override
+    public Iterator<T> iterator() {
+        return Collections.unmodifiableCollection(offers.values()).iterator();
+    }
+
+    /**
+     * Read-only list view of the offers for code using positions (e.g. choosing offer by number).<br>
+     * Array of the offers is copied only when the index changed since the last read, not after every add.
+     *
+     * @return live view of the index
+     */
+    public List<T> asList() {
+        return new View();
+    }
+
+    private Object[] array() {
+        Snapshot s = snapshot;
+        long v = version;
+        if(s.version != v) {
+            s = new Snapshot(v, offers.values().toArray());
+            snapshot = s;
+        }
+        return s.offers;
+    }
+
+    private static final class Key<T> {
+        private final T offer;
+        private final long seq;
+
+        Key(T offer, long seq) {
+            this.offer = offer;
+            this.seq = seq;
+        }
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final Object[] offers;
+
+        Snapshot(long version, Object[] offers) {
+            this.version = version;
+            this.offers = offers;
+        }
+    }
+
+    private final class View extends AbstractList<T> implements RandomAccess {
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) array()[index];
+        }
+
+        @Override
+        public int size() {
+            return array().length;
+        }
+    }
+
+    /**
+     * Comparison of adding offers one by one to the list sorted after every add (old LSEA.main) and to the index.<br>
+     * Arguments: number of offers at the start (default 1 000 000) and number of added offers (default 1000).
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int added = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        LSEA owner = new LSEA("user", "pass", "Name", "Surname", 30, 1000);
+        Random rand = new Random(1);
+        List<Bike> bikes = new ArrayList<>(n + added);
+        for(int i = 0; i < n + added; i++) {
+            bikes.add(new Bike("Test_" + rand.nextInt(n), "Bikeos", rand.nextInt(2), rand.nextInt(1000000) / 100f,
+                    rand.nextInt(100000) / 1000f, owner, 1, 1 + rand.nextInt(10), Frame.carbon, 1, 1, 1));
+        }
+        Bike nBike = new Bike();
+
+        List<Bike> list = new ArrayList<>(bikes.subList(0, n));
+        Collections.sort(list, nBike);
+        long start = System.nanoTime();
+        for(int i = n; i < n + added; i++) {
+            list.add(bikes.get(i));
+            Collections.sort(list, nBike);
+        }
+        long sorting = System.nanoTime() - start;
+
+        OfferIndex<Bike> index = bikes(bikes.subList(0, n));
+        start = System.nanoTime();
+        for(int i = n; i < n + added; i++) index.add(bikes.get(i));
+        long indexing = System.nanoTime() - start;
+
+        boolean same = true;
+        Iterator<Bike> it = index.iterator();
+        for(Bike b : list) {
+            Bike o = it.next();
+            if(!b.getNameOI().equals(o.getNameOI()) || b.getPrice() != o.getPrice()) same = false;
+        }
+        System.out.println(added + " offers added to " + n + ": list sorted after every add " + sorting / 1000000
+                + " ms, index " + indexing / 1000000 + " ms, same order: " + same);
+    }
+}
@@ -0,0 +1,377 @@
+package main.lsea;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Store of bike offers kept as primitive arrays (struct of arrays) instead of one Bike object per offer.<br>
+ * One offer takes 28 bytes of arrays plus the bytes of its name:<br>
+ * price, weight - float[]<br>
+ * owner - int[] index in the table of owners (LSEA objects are not duplicated)<br>
+ * brand - int[] index in the string table, every distinct brand is kept once<br>
+ * name - int[] reference to UTF-8 bytes of the name in pages of PAGE bytes<br>
+ * gear - short[], frame, is_auction, is_available, are_lights, is_bell, are_breaks - byte[]<br>
+ * Offers are read through Cursor, a flyweight which points at one row, so rating all offers does not create
+ * any object per row. Bike objects can still be created for single rows with toBike.
+ */
+public class OfferStore {
+
+    /*** PAGE -> size of one page of names (bytes), name reference is page &lt;&lt; 20 | offset in the page*/
+    private static final int PAGE = 1 << 20;
+    private static final Frame[] FRAMES = Frame.values();
+
+    private int size;
+    private float[] price, weight;
+    private int[] owner, brand, name;
+    private short[] gear;
+    private byte[] frame, auction, available, lights, bell, breaks;
+
+    /*** strings, stringIds -> string table of brands*/
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    /*** owners, ownerIds -> table of owners, offers keep only the index*/
+    private final List<LSEA> owners = new ArrayList<>();
+    private final Map<LSEA, Integer> ownerIds = new IdentityHashMap<>();
+    /*** pages -> UTF-8 bytes of the names, every name is stored as length (2 bytes) and bytes*/
+    private final List<byte[]> pages = new ArrayList<>();
+    private int pageUsed = PAGE;
+
+    /*** @param capacity number of offers that can be added before arrays are resized*/
+    public OfferStore(int capacity) {
+        int c = Math.max(16, capacity);
+        price = new float[c];
+        weight = new float[c];
+        owner = new int[c];
+        brand = new int[c];
+        name = new int[c];
+        gear = new short[c];
+        frame = new byte[c];
+        auction = new byte[c];
+        available = new byte[c];
+        lights = new byte[c];
+        bell = new byte[c];
+        breaks = new byte[c];
+    }
+
+    /**
+     * @param bikes list of bikes
+     * @return store with all bikes from the list
+     */
+    public static OfferStore of(List<Bike> bikes) {
+        OfferStore store = new OfferStore(bikes.size());
+        for(Bike b : bikes) {
+            store.add(b.getNameOI(), b.getBrand(), b.getIs_auction(), b.getPrice(), b.getWeight(), b.getAccount(),
+                    b.getIs_available(), b.getGear(), b.getFrame(), b.getAre_lights(), b.getIs_bell(), b.getAre_breaks());
+        }
+        return store;
+    }
+
+    /**
+     * Adding one offer, parameters are the same as in the constructor of Bike
+     *
+     * @return row of the new offer
+     * @throws IllegalArgumentException when flags are not in byte range, gear not in short range or name is too long
+     */
+    public int add(String nameOI, String brand, int is_auction, float price, float weight, LSEA account,
+                   int is_available, int gear, Frame frame, int are_lights, int is_bell, int are_breaks) {
+        if(size == this.price.length) grow();
+        int row = size;
+        this.name[row] = putName(nameOI);
+        this.brand[row] = intern(brand);
+        this.auction[row] = toByte(is_auction);
+        this.price[row] = price;
+        this.weight[row] = weight;
+        this.owner[row] = ownerId(account);
+        this.available[row] = toByte(is_available);
+        if(gear != (short) gear) throw new IllegalArgumentException("Gear out of range: " + gear);
+        this.gear[row] = (short) gear;
+        this.frame[row] = (byte) (frame == null ? -1 : frame.ordinal());
+        this.lights[row] = toByte(are_lights);
+        this.bell[row] = toByte(is_bell);
+        this.breaks[row] = toByte(are_breaks);
+        size++;
+        return row;
+    }
+
+    /**
+     * Generating offers the same way as Bike.genBikes, without creating Bike objects
+     *
+     * @param n number of offers
+     * @param profiles list of all accounts (type LSEA)
+     * @param rand random generator
+     * @return store with generated offers
+     */
+    public static OfferStore generate(int n, List<LSEA> profiles, Random rand) {
+        OfferStore store = new OfferStore(n);
+        for(int i = 0; i < n; i++) {
+            store.add("Test_" + i, "Bikeos", rand.nextInt(2), (float) (rand.nextInt(1000000) / 100.0),
+                    (float) (rand.nextInt(100000) / 1000.0), profiles.get(rand.nextInt(profiles.size())),
+                    rand.nextInt(2), 1 + rand.nextInt(10), Frame.carbon, rand.nextInt(2), rand.nextInt(2), rand.nextInt(2));
+        }
+        return store;
+    }
+
+    /*** @return number of offers*/
+    public int size() {
+        return size;
+    }
+
+    /*** @return new cursor placed before the first offer*/
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @param row row of the offer
+     * @return new Bike object with values of the row
+     */
+    public Bike toBike(int row) {
+        Cursor c = new Cursor();
+        c.seek(row);
+        return new Bike(c.getNameOI(), c.getBrand(), c.getIs_auction(), c.getPrice(), c.getWeight(), c.getAccount(),
+                c.getIs_available(), c.getGear(), c.getFrame(), c.getAre_lights(), c.getIs_bell(), c.getAre_breaks());
+    }
+
+    /**
+     * Scoring all offers with BikeScoring, straight from the arrays of the store
+     *
+     * @param scores array for scores (at least size())
+     * @param buckets array for buckets (at least size()), 0 - A ... 4 - E
+     */
+    public void score(int[] scores, byte[] buckets) {
+        BikeScoring.score(price, weight, gear, auction, lights, bell, breaks, 0, size, scores, buckets);
+    }
+
+    /*** @return approximate number of bytes used by the arrays, names and tables of the store*/
+    public long memoryBytes() {
+        long arrays = (long) price.length * (4 + 4 + 4 + 4 + 4 + 2 + 6);
+        return arrays + (long) pages.size() * PAGE + strings.size() * 64L + owners.size() * 16L;
+    }
+
+    private void grow() {
+        int c = price.length + (price.length >> 1);
+        price = Arrays.copyOf(price, c);
+        weight = Arrays.copyOf(weight, c);
+        owner = Arrays.copyOf(owner, c);
+        brand = Arrays.copyOf(brand, c);
+        name = Arrays.copyOf(name, c);
+        gear = Arrays.copyOf(gear, c);
+        frame = Arrays.copyOf(frame, c);
+        auction = Arrays.copyOf(auction, c);
+        available = Arrays.copyOf(available, c);
+        lights = Arrays.copyOf(lights, c);
+        bell = Arrays.copyOf(bell, c);
+        breaks = Arrays.copyOf(breaks, c);
+    }
+
+    private static byte toByte(int v) {
+        if(v != (byte) v) throw new IllegalArgumentException("Flag out of range: " + v);
+        return (byte) v;
+    }
+
+    private int intern(String s) {
+        if(s == null) return -1;
+        Integer id = stringIds.get(s);
+        if(id == null) {
+            id = strings.size();
+            strings.add(s);
+            stringIds.put(s, id);
+        }
+        return id;
+    }
+
+    private int ownerId(LSEA account) {
+        if(account == null) return -1;
+        Integer id = ownerIds.get(account);
+        if(id == null) {
+            id = owners.size();
+            owners.add(account);
+            ownerIds.put(account, id);
+        }
+        return id;
+    }
+
+    /*** @return reference of the name (-1 for null)*/
+    private int putName(String s) {
+        if(s == null) return -1;
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length > 0xFFFF) throw new IllegalArgumentException("Name is too long: " + bytes.length + " bytes");
+        if(pageUsed + 2 + bytes.length > PAGE) {
+            if(pages.size() == 2048) throw new IllegalStateException("Store of names is full");
+            pages.add(new byte[PAGE]);
+            pageUsed = 0;
+        }
+        byte[] page = pages.get(pages.size() - 1);
+        int ref = (pages.size() - 1) << 20 | pageUsed;
+        page[pageUsed] = (byte) (bytes.length >>> 8);
+        page[pageUsed + 1] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, page, pageUsed + 2, bytes.length);
+        pageUsed += 2 + bytes.length;
+        return ref;
+    }
+
+    /**
+     * Flyweight view of one offer of the store.<br>
+     * Getters have the same names as in Bike, only getNameOI, getBrand and getAccount return objects.
+     */
+    public class Cursor {
+
+        private int row = -1;
+
+        /**
+         * Moving to the next offer
+         *
+         * @return false if there are no more offers
+         */
+        public boolean next() {
+            if(row + 1 >= size) return false;
+            row++;
+            return true;
+        }
+
+        /*** @param row row of the offer that cursor will point at*/
+        public void seek(int row) {
+            if(row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+            this.row = row;
+        }
+
+        public int row() {
+            return row;
+        }
+
+        public String getNameOI() {
+            int ref = name[row];
+            if(ref < 0) return null;
+            byte[] page = pages.get(ref >>> 20);
+            int off = ref & (PAGE - 1);
+            int len = (page[off] & 0xFF) << 8 | (page[off + 1] & 0xFF);
+            return new String(page, off + 2, len, StandardCharsets.UTF_8);
+        }
+
+        public String getBrand() {
+            return brand[row] < 0 ? null : strings.get(brand[row]);
+        }
+
+        public LSEA getAccount() {
+            return owner[row] < 0 ? null : owners.get(owner[row]);
+        }
+
+        /*** @return index of the owner in the table of owners (-1 for no owner)*/
+        public int getOwnerId() {
+            return owner[row];
+        }
+
+        public int getIs_auction() {
+            return auction[row];
+        }
+
+        public float getPrice() {
+            return price[row];
+        }
+
+        public float getWeight() {
+            return weight[row];
+        }
+
+        public int getIs_available() {
+            return available[row];
+        }
+
+        public int getGear() {
+            return gear[row];
+        }
+
+        public Frame getFrame() {
+            return frame[row] < 0 ? null : FRAMES[frame[row]];
+        }
+
+        public int getAre_lights() {
+            return lights[row];
+        }
+
+        public int getIs_bell() {
+            return bell[row];
+        }
+
+        public int getAre_breaks() {
+            return breaks[row];
+        }
+
+        /*** @return rate of the offer, the same as Bike.rateBikes gives*/
+        public int rate() {
+            return Bike.rate(price[row], weight[row], gear[row], auction[row], lights[row], bell[row], breaks[row]);
+        }
+    }
+
+    /**
+     * Measuring memory and time of generating offers into the store and into List&lt;Bike&gt; (Bike.genBikes).<br>
+     * Arguments: number of offers (default 25 200 000) and "list" to measure also the list
+     * (needs a few GB of heap for the default number).
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 25200000;
+        boolean list = args.length > 1 && args[1].equals("list");
+        List<LSEA> profiles = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) profiles.add(new LSEA("user_" + i, "pass", "Name", "Surname", 30, 1000));
+
+        long before = usedMemory();
+        long start = System.nanoTime();
+        OfferStore store = generate(n, profiles, new Random(1));
+        long generation = System.nanoTime() - start;
+        long memory = usedMemory() - before;
+        start = System.nanoTime();
+        long[] buckets = new long[5];
+        Cursor c = store.cursor();
+        while(c.next()) {
+            int rate = c.rate();
+            if(rate >= 180) buckets[0]++;
+            else if(rate >= 135) buckets[1]++;
+            else if(rate >= 90) buckets[2]++;
+            else if(rate >= 45) buckets[3]++;
+            else buckets[4]++;
+        }
+        long rating = System.nanoTime() - start;
+        System.out.println("OfferStore: " + n + " offers, " + memory / (1 << 20) + " MB, generated in "
+                + generation / 1000000 + " ms, rated in " + rating / 1000000 + " ms " + Arrays.toString(buckets));
+        store = null;
+
+        if(list) {
+            before = usedMemory();
+            start = System.nanoTime();
+            List<Bike> bikes = new ArrayList<>();
+            Random rand = new Random(1);
+            for(int i = 0; i < n; i++) {
+                bikes.add(new Bike("Test_" + i, "Bikeos", rand.nextInt(2), (float) (rand.nextInt(1000000) / 100.0),
+                        (float) (rand.nextInt(100000) / 1000.0), profiles.get(rand.nextInt(profiles.size())),
+                        rand.nextInt(2), 1 + rand.nextInt(10), Frame.carbon, rand.nextInt(2), rand.nextInt(2), rand.nextInt(2)));
+            }
+            generation = System.nanoTime() - start;
+            memory = usedMemory() - before;
+            start = System.nanoTime();
+            Arrays.fill(buckets, 0);
+            for(Bike bike : bikes) {
+                int rate = bike.rateBikes().getRate();
+                if(rate >= 180) buckets[0]++;
+                else if(rate >= 135) buckets[1]++;
+                else if(rate >= 90) buckets[2]++;
+                else if(rate >= 45) buckets[3]++;
+                else buckets[4]++;
+            }
+            rating = System.nanoTime() - start;
+            System.out.println("List<Bike>: " + n + " offers, " + memory / (1 << 20) + " MB, generated in "
+                    + generation / 1000000 + " ms, rated in " + rating / 1000000 + " ms " + Arrays.toString(buckets));
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
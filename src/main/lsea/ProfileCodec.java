@@ -0,0 +1,28 @@
+package main.lsea;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Encoding of the list of profiles sent between the clients and the servers (TCP and UDP).<br>
+ * Implementations: CompactProfileCodec (default) and SerializedProfileCodec (Java serialization used before),
+ * the codec is chosen by ProfileCodecs.
+ */
+public interface ProfileCodec {
+
+    /**
+     * @param profiles profiles that will be sent
+     * @return bytes of all profiles
+     * @throws IOException
+     */
+    byte[] encode(List<LSEA> profiles) throws IOException;
+
+    /**
+     * @param data received bytes
+     * @param offset index of the first byte
+     * @param length number of bytes
+     * @return profiles in the same order as they were encoded
+     * @throws IOException when the data is not in the format of the codec or is truncated
+     */
+    List<LSEA> decode(byte[] data, int offset, int length) throws IOException;
+}
@@ -0,0 +1,95 @@
+package main.lsea;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Choice of the codec of the profiles sent by TCP and UDP.<br>
+ * System property olx.codec selects the codec used for sending:<br>
+ * 1. compact (default) - CompactProfileCodec<br>
+ * 2. serialized - SerializedProfileCodec (Java serialization, for old servers)<br>
+ * Servers find the codec by the first bytes of the data, so they read both formats.
+ */
+public final class ProfileCodecs {
+
+    /*** PROPERTY -> name of the system property with the codec*/
+    public static final String PROPERTY = "olx.codec";
+
+    private static final ProfileCodec COMPACT = new CompactProfileCodec(), SERIALIZED = new SerializedProfileCodec();
+
+    private ProfileCodecs() {}
+
+    /*** @return codec selected by the system property*/
+    public static ProfileCodec selected() {
+        String name = System.getProperty(PROPERTY, "compact");
+        switch (name) {
+            case "compact":
+                return COMPACT;
+            case "serialized":
+                return SERIALIZED;
+            default:
+                throw new IllegalArgumentException("Unknown value of " + PROPERTY + ": " + name + " (compact or serialized)");
+        }
+    }
+
+    /**
+     * @param data received bytes
+     * @param offset index of the first byte
+     * @param length number of bytes
+     * @return codec which wrote the data
+     * @throws IOException when the data is in none of the formats
+     */
+    public static ProfileCodec detect(byte[] data, int offset, int length) throws IOException {
+        if(CompactProfileCodec.isCompact(data, offset, length)) return COMPACT;
+        if(length >= 2 && ((data[offset] & 0xFF) << 8 | (data[offset + 1] & 0xFF)) == SerializedProfileCodec.STREAM_MAGIC) return SERIALIZED;
+        throw new IOException("Unknown format of profile data (" + length + " bytes)");
+    }
+
+    /**
+     * Decoding data in any of the formats
+     *
+     * @param data received bytes
+     * @param offset index of the first byte
+     * @param length number of bytes
+     * @return profiles
+     * @throws IOException
+     */
+    public static List<LSEA> decode(byte[] data, int offset, int length) throws IOException {
+        return detect(data, offset, length).decode(data, offset, length);
+    }
+
+    /**
+     * Benchmark of the codecs: bytes per profile and time of encoding and decoding of one profile.<br>
+     * Arguments: number of profiles sent at once (default 1000) and number of repetitions (default 2000).
+     */
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        List<LSEA> profiles = new ArrayList<>();
+        for(int i = 0; i < n; i++) {
+            profiles.add(new LSEA("user_" + i, "pass_" + i, "Name" + i % 100, "Surname" + i % 1000, 18 + i % 60, 100.5f * i));
+        }
+        for(ProfileCodec codec : new ProfileCodec[]{SERIALIZED, COMPACT}) {
+            byte[] data = codec.encode(profiles);
+            if(!profiles.toString().equals(codec.decode(data, 0, data.length).toString())) {
+                System.out.println(codec.getClass().getSimpleName() + ": decoded profiles are different");
+            }
+            long sink = 0;
+            // warm-up
+            for(int r = 0; r < repeats / 4 + 1; r++) {
+                sink += codec.encode(profiles).length;
+                sink += codec.decode(data, 0, data.length).size();
+            }
+            long start = System.nanoTime();
+            for(int r = 0; r < repeats; r++) sink += codec.encode(profiles).length;
+            long encode = System.nanoTime() - start;
+            start = System.nanoTime();
+            for(int r = 0; r < repeats; r++) sink += codec.decode(data, 0, data.length).size();
+            long decode = System.nanoTime() - start;
+            long ops = (long) repeats * n;
+            System.out.println(String.format("%-22s %8.1f bytes/profile %8d ns/op encode %8d ns/op decode (%d)",
+                    codec.getClass().getSimpleName(), (double) data.length / n, encode / ops, decode / ops, sink % 10));
+        }
+    }
+}
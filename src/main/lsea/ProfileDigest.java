@@ -0,0 +1,213 @@
+package main.lsea;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Digest of the list of profiles, used by delta sync (main.TCP.DeltaSync) to find profiles which differ between
+ * two nodes without sending all of them.<br>
+ * Every profile is put to one of LEAVES buckets by the hash of its nick. Fingerprint of a profile is a 64-bit hash
+ * of its fields and version (as written by CompactProfileCodec), digest of a bucket is the sum of the fingerprints
+ * in it and digest of a range of buckets is the sum of the buckets. Nodes compare big ranges first and go down only
+ * into the ranges which differ, so the cost depends on the number of changed profiles, not on all of them.<br>
+ * refresh() finds changed profiles by their version, only those are hashed again. Nicks have to be unique
+ * (ProfileRegistry) and profiles are not removed from the list.<br>
+ * Profiles of the other node are added or merged by apply. Merge goes field by field (LSEA.merge): every field
+ * keeps the value with the bigger version of the field and the bigger value when the versions are equal, so changes
+ * of different fields made on both nodes are all kept and both nodes end up with the same profile. Only when both
+ * nodes changed the same field between two syncs one of the changes is lost (the one with smaller field version).
+ */
+public class ProfileDigest {
+
+    /*** BITS -> number of bits of the hash of the nick used for the bucket*/
+    public static final int BITS = 16;
+    /*** LEAVES -> number of buckets*/
+    public static final int LEAVES = 1 << BITS;
+
+    private final List<LSEA> profiles;
+    /*** entries -> state of every profile from the last refresh, by the object of the profile*/
+    private final Map<LSEA, Entry> entries = new IdentityHashMap<>();
+    private final Map<String, Entry> byNick = new HashMap<>();
+    /*** buckets -> first entry of every bucket (entries of one bucket are linked)*/
+    private final Entry[] buckets = new Entry[LEAVES];
+    private final long[] leaves = new long[LEAVES];
+
+    /*** @param profiles list of the profiles of this node, profiles received from other node are added to it*/
+    public ProfileDigest(List<LSEA> profiles) {
+        this.profiles = profiles;
+        refresh();
+    }
+
+    /**
+     * Updating digests of the profiles which were added or changed since the last refresh
+     *
+     * @return number of the profiles hashed again
+     */
+    public synchronized int refresh() {
+        int changed = 0;
+        for(LSEA p : profiles) {
+            Entry e = entries.get(p);
+            if(e == null) {
+                e = new Entry(p);
+                entries.put(p, e);
+            } else if(e.version == p.getVersion() && Objects.equals(e.nick, p.getNick())) {
+                continue;
+            } else {
+                unindex(e);
+            }
+            index(e);
+            changed++;
+        }
+        return changed;
+    }
+
+    /**
+     * @param level level of the range, there are 2^level ranges on the level (0 - all buckets, BITS - one bucket)
+     * @param node index of the range on the level
+     * @return sum of the fingerprints of the profiles in the range
+     */
+    public synchronized long digest(int level, int node) {
+        if(level < 0 || level > BITS || node < 0 || node >= 1 << level) throw new IllegalArgumentException("Wrong range " + level + "/" + node);
+        int span = LEAVES >> level;
+        long sum = 0;
+        for(int i = node * span, end = i + span; i < end; i++) sum += leaves[i];
+        return sum;
+    }
+
+    /*** @return profiles in the bucket*/
+    public synchronized List<LSEA> bucket(int leaf) {
+        List<LSEA> list = new ArrayList<>();
+        for(Entry e = buckets[leaf]; e != null; e = e.next) list.add(e.profile);
+        return list;
+    }
+
+    /*** @return fingerprint of the profile from the last refresh (0 if it is not known yet)*/
+    public synchronized long fingerprint(LSEA p) {
+        Entry e = entries.get(p);
+        return e == null ? 0 : e.fingerprint;
+    }
+
+    /*** @return profile with this nick or null*/
+    public synchronized LSEA byNick(String nick) {
+        Entry e = byNick.get(nick);
+        return e == null ? null : e.profile;
+    }
+
+    /**
+     * Adding profile of the other node or merging it with the local profile with the same nick
+     *
+     * @param remote profile received from the other node
+     * @return true if local profiles changed
+     */
+    public synchronized boolean apply(LSEA remote) {
+        Entry e = byNick.get(remote.getNick());
+        if(e == null) {
+            profiles.add(remote);
+            e = new Entry(remote);
+            entries.put(remote, e);
+            index(e);
+            return true;
+        }
+        unindex(e);
+        boolean changed = e.profile.merge(remote);
+        index(e);
+        return changed;
+    }
+
+    /*** @return version of the profile (index 0) and versions of its fields (index 1 + field), as CompactProfileCodec.readVersions*/
+    public static long[] versions(LSEA p) {
+        long[] versions = new long[1 + LSEA.FIELDS];
+        versions[0] = p.getVersion();
+        for(int f = 0; f < LSEA.FIELDS; f++) versions[1 + f] = p.getFieldVersion(f);
+        return versions;
+    }
+
+    /**
+     * Checking if merging the first profile into the second one can change it (used only for profiles with different
+     * fingerprints)
+     *
+     * @param versions versions of the first profile (see versions, values after them are not compared)
+     * @param other versions of the second profile
+     * @return true if the first profile has a newer version of some field or of the profile, or all versions are equal
+     * (then the values decide, so both profiles have to be merged)
+     */
+    public static boolean hasChanges(long[] versions, long[] other) {
+        boolean same = true;
+        for(int i = 0; i <= LSEA.FIELDS; i++) {
+            if(versions[i] > other[i]) return true;
+            same &= versions[i] == other[i];
+        }
+        return same;
+    }
+
+    /*** @return bucket of the nick*/
+    public static int bucket(String nick) {
+        long h = 0xcbf29ce484222325L;
+        if(nick != null) {
+            for(int i = 0; i < nick.length(); i++) {
+                h = (h ^ nick.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        return (int) (mix(h) >>> (64 - BITS));
+    }
+
+    private void index(Entry e) {
+        LSEA p = e.profile;
+        e.nick = p.getNick();
+        e.version = p.getVersion();
+        e.fingerprint = fingerprint(p, new CompactProfileCodec.Writer(64));
+        e.bucket = bucket(e.nick);
+        e.next = buckets[e.bucket];
+        buckets[e.bucket] = e;
+        leaves[e.bucket] += e.fingerprint;
+        if(!byNick.containsKey(e.nick)) byNick.put(e.nick, e);
+    }
+
+    private void unindex(Entry e) {
+        if(buckets[e.bucket] == e) {
+            buckets[e.bucket] = e.next;
+        } else {
+            Entry prev = buckets[e.bucket];
+            while(prev.next != e) prev = prev.next;
+            prev.next = e.next;
+        }
+        e.next = null;
+        leaves[e.bucket] -= e.fingerprint;
+        if(byNick.get(e.nick) == e) byNick.remove(e.nick);
+    }
+
+    /*** FNV-1a of the profile written by CompactProfileCodec (with version)*/
+    private static long fingerprint(LSEA p, CompactProfileCodec.Writer out) {
+        CompactProfileCodec.writeProfile(out, p);
+        byte[] bytes = out.toByteArray();
+        long h = 0xcbf29ce484222325L;
+        for(byte b : bytes) h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        return mix(h);
+    }
+
+    /*** finalizer of MurmurHash3, spreads the bits of the hash*/
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /*** State of one profile from the last refresh*/
+    private static final class Entry {
+        private final LSEA profile;
+        private String nick;
+        private long version, fingerprint;
+        private int bucket;
+        private Entry next;
+
+        Entry(LSEA profile) {
+            this.profile = profile;
+        }
+    }
+}
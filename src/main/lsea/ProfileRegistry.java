@@ -0,0 +1,146 @@
+package main.lsea;
+
+import main.database.DB_Handling;
+import main.database.DB_Profile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Class used for finding owners of the items and checking if the nick is unique.<br>
+ * Profiles are kept in two hash maps:<br>
+ * byNick - exact nick of the profile (not a substring, so "Adam" does not match "Adam98")<br>
+ * byId - id of DB_Profile, filled only when registry is created from the database<br>
+ * Lookup and uniqueness check are O(1), so loading n items with m profiles costs O(n + m) instead of O(n * m).
+ */
+public class ProfileRegistry {
+
+    /*** byNick -> profiles by their exact nick*/
+    private final Map<String, LSEA> byNick;
+    /*** byId -> profiles by id of the DB_Profile they were loaded from*/
+    private final Map<Integer, LSEA> byId = new HashMap<>();
+
+    /*** @param expected expected number of profiles, used for sizing the maps*/
+    public ProfileRegistry(int expected) {
+        this.byNick = new HashMap<>(Math.max(16, (int) (expected / 0.75f) + 1));
+    }
+
+    /**
+     * @param profiles list of all accounts (type LSEA)
+     * @return registry with all profiles from the list, when nick repeats the first profile is kept
+     */
+    public static ProfileRegistry of(List<LSEA> profiles) {
+        ProfileRegistry registry = new ProfileRegistry(profiles.size());
+        for(LSEA profile : profiles) {
+            registry.add(profile);
+        }
+        return registry;
+    }
+
+    /**
+     * Creating registry with ids of the DB_Profiles, profiles are matched with DB_Profiles by nick
+     *
+     * @param db_H object of class necessary for database handling
+     * @param profiles list of all accounts (type LSEA), e.g. loaded by LSEA.loadDB
+     * @return registry with all profiles
+     */
+    public static ProfileRegistry of(DB_Handling db_H, List<LSEA> profiles) {
+        ProfileRegistry registry = of(profiles);
+        for(DB_Profile dbProfile : db_H.getDbP()) {
+            LSEA profile = registry.byNick(dbProfile.getNick());
+            if(profile != null) registry.byId.put(dbProfile.getId(), profile);
+        }
+        return registry;
+    }
+
+    /**
+     * @param profile new profile
+     * @return false if profile with this nick is already in the registry (nothing is changed then)
+     */
+    public boolean add(LSEA profile) {
+        if(byNick.containsKey(profile.getNick())) return false;
+        byNick.put(profile.getNick(), profile);
+        return true;
+    }
+
+    /**
+     * @param profile new profile
+     * @param id id of the DB_Profile of this profile
+     * @return false if profile with this nick is already in the registry (nothing is changed then)
+     */
+    public boolean add(LSEA profile, int id) {
+        if(!add(profile)) return false;
+        byId.put(id, profile);
+        return true;
+    }
+
+    /*** @return profile with exactly this nick or null*/
+    public LSEA byNick(String nick) {
+        return byNick.get(nick);
+    }
+
+    /*** @return profile loaded from DB_Profile with this id or null*/
+    public LSEA byId(int id) {
+        return byId.get(id);
+    }
+
+    /*** @return true if there is a profile with exactly this nick*/
+    public boolean contains(String nick) {
+        return byNick.containsKey(nick);
+    }
+
+    /*** @return number of profiles*/
+    public int size() {
+        return byNick.size();
+    }
+
+    /**
+     * Benchmark of owner resolution: lookups in the registry against the linear scan used before.<br>
+     * Arguments: number of profiles (default 1 000 000) and number of items (default 10 000 000).
+     * Linear scan is measured only on a sample of items and extrapolated, full run would take hours.
+     */
+    public static void main(String[] args) {
+        int nProfiles = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int nItems = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+        int sample = 200;
+        List<LSEA> profiles = new ArrayList<>(nProfiles);
+        for(int i = 0; i < nProfiles; i++) {
+            profiles.add(new LSEA("user_" + i, "pass", "Name", "Surname", 18 + i % 60, i));
+        }
+        Random rand = new Random(1);
+        String[] owners = new String[1 << 16];
+        for(int i = 0; i < owners.length; i++) {
+            owners[i] = "user_" + rand.nextInt(nProfiles);
+        }
+
+        long start = System.nanoTime();
+        ProfileRegistry registry = of(profiles);
+        long build = System.nanoTime() - start;
+        start = System.nanoTime();
+        long found = 0;
+        for(int i = 0; i < nItems; i++) {
+            if(registry.byNick(owners[i & (owners.length - 1)]) != null) found++;
+        }
+        long lookup = System.nanoTime() - start;
+        System.out.println("Registry: " + nProfiles + " profiles built in " + build / 1000000 + " ms, "
+                + nItems + " lookups in " + lookup / 1000000 + " ms (" + found + " found)");
+
+        start = System.nanoTime();
+        found = 0;
+        for(int i = 0; i < sample; i++) {
+            String account = owners[i];
+            for(int j = 0; j < profiles.size(); j++) {
+                if(profiles.get(j).getNick().contains(account)) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        long scan = System.nanoTime() - start;
+        System.out.println("Linear scan: " + sample + " lookups in " + scan / 1000000 + " ms, "
+                + nItems + " lookups would take about " + scan / sample * nItems / 1000000000L + " s");
+    }
+}
@@ -0,0 +1,41 @@
+package main.lsea;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Profiles written by ObjectOutputStream one after another, like Client_TCP and Client_UDP did before.<br>
+ * Kept for old clients and for comparing with CompactProfileCodec.
+ */
+public final class SerializedProfileCodec implements ProfileCodec {
+
+    /*** STREAM_MAGIC -> first 2 bytes of the data written by ObjectOutputStream*/
+    public static final int STREAM_MAGIC = 0xACED;
+
+    @Override
+    public byte[] encode(List<LSEA> profiles) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for(LSEA p : profiles) out.writeObject(p);
+        }
+        return bytes.toByteArray();
+    }
+
+    /*** reading objects until the end of the data*/
+    @Override
+    public List<LSEA> decode(byte[] data, int offset, int length) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data, offset, length);
+        List<LSEA> profiles = new ArrayList<>();
+        try (ObjectInputStream in = new ObjectInputStream(bytes)) {
+            while(bytes.available() > 0) profiles.add((LSEA) in.readObject());
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("Wrong object in the data: " + ex.getMessage());
+        }
+        return profiles;
+    }
+}
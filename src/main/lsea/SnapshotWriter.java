@@ -0,0 +1,162 @@
+package main.lsea;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+/**
+ * Writer used for saving profiles, cars and bikes to the .txt files without ever leaving a truncated file.<br>
+ * 1. Data are written to a temporary file in the same directory as the target<br>
+ * 2. Characters are collected in a big buffer and encoded to UTF-8 in one go, so the channel gets one write per
+ * BUFFER characters instead of one write per line<br>
+ * 3. commit() forces the data to the disk once, gives the temporary file the permissions of the target and
+ * atomically renames it over the target, then the directory is forced so the rename survives a crash<br>
+ * If commit() is not called (e.g. exception while writing), close() deletes the temporary file and the target
+ * stays as it was. Every writer has its own temporary file, so many files (or even the same file) can be saved
+ * concurrently, the last commit wins.
+ */
+public class SnapshotWriter extends Writer {
+
+    /*** BUFFER -> number of characters encoded and written to the channel at once*/
+    public static final int BUFFER = 1 << 20;
+
+    /*** target -> file that is replaced by commit*/
+    private final Path target;
+    /*** temp -> temporary file in the directory of the target*/
+    private final Path temp;
+    private final FileChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect((int) (BUFFER * encoder.maxBytesPerChar()));
+    /*** written -> number of bytes written to the temporary file*/
+    private long written;
+    private boolean committed, closed;
+
+    /**
+     * @param target file that will be replaced
+     * @throws IOException when temporary file cannot be created
+     */
+    public SnapshotWriter(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        this.target = absolute;
+        this.temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString() + ".", ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if(!chars.hasRemaining()) drain(false);
+        chars.put((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        while(len > 0) {
+            if(!chars.hasRemaining()) drain(false);
+            int n = Math.min(len, chars.remaining());
+            chars.put(cbuf, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        while(len > 0) {
+            if(!chars.hasRemaining()) drain(false);
+            int n = Math.min(len, chars.remaining());
+            chars.put(str, off, off + n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /*** writing buffered characters to the temporary file (no fsync, see commit)*/
+    @Override
+    public void flush() throws IOException {
+        drain(false);
+    }
+
+    /**
+     * Finishing the snapshot - data are written and forced to the disk, then temporary file replaces the target
+     *
+     * @return number of bytes of the new file
+     * @throws IOException when writing or renaming failed (target is not changed then)
+     */
+    public long commit() throws IOException {
+        if(closed) throw new IOException("Snapshot of " + target + " is already closed");
+        drain(true);
+        channel.force(true);
+        channel.close();
+        copyPermissions();
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException ex) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        closed = true;
+        forceDirectory();
+        return written;
+    }
+
+    /*** temporary file is created with 600, so the permissions of the replaced target are given to it*/
+    private void copyPermissions() throws IOException {
+        if(!Files.exists(target)) return;
+        PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if(view == null) return;
+        Files.setPosixFilePermissions(temp, view.readAttributes().permissions());
+    }
+
+    /*** forcing the directory entry of the rename to the disk (not possible on every platform, e.g. Windows)*/
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch(IOException ex) {
+            // the file itself is already durable, only the rename may be lost on power failure
+        }
+    }
+
+    /*** closing the writer, without commit the temporary file is deleted*/
+    @Override
+    public void close() throws IOException {
+        if(closed) return;
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            if(!committed) Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Encoding buffered characters and writing them with one channel write
+     *
+     * @param endOfInput true when no more characters will come
+     */
+    private void drain(boolean endOfInput) throws IOException {
+        chars.flip();
+        CoderResult result = encoder.encode(chars, bytes, endOfInput);
+        if(result.isError()) result.throwException();
+        if(endOfInput) encoder.flush(bytes);
+        bytes.flip();
+        while(bytes.hasRemaining()) {
+            written += channel.write(bytes);
+        }
+        bytes.clear();
+        chars.compact();
+    }
+}
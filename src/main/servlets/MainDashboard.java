@@ -14,46 +14,71 @@ import java.util.List;
 
 @WebServlet(name = "MainDashboard")
 public class MainDashboard extends HttpServlet {
+    private static final int PAGE_SIZE = 100;
+
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         doGet(request, response);
     }
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        EntityManagerFactory eMF = Persistence.createEntityManagerFactory("DataBaseP");
-        EntityManager eM = eMF.createEntityManager();
+        EntityManager eM = PersistenceListener.getFactory(getServletContext()).createEntityManager();
         String action = request.getServletPath();
 
-        switch (action) {
-            case "/new":
-                showNewForm(request, response);
-                break;
-            case "/insert":
-                insertUser(request, response, eM);
-                break;
-            case "/delete":
-                deleteUser(request, response, eM);
-                break;
-            case "/edit":
-                showEditForm(request, response, eM);
-                break;
-            case "/update":
-                updateUser(request, response, eM);
-                break;
-            default:
-                listUser(request, response, eM);
-                break;
+        try {
+            switch (action) {
+                case "/new":
+                    showNewForm(request, response);
+                    break;
+                case "/insert":
+                    insertUser(request, response, eM);
+                    break;
+                case "/delete":
+                    deleteUser(request, response, eM);
+                    break;
+                case "/edit":
+                    showEditForm(request, response, eM);
+                    break;
+                case "/update":
+                    updateUser(request, response, eM);
+                    break;
+                default:
+                    listUser(request, response, eM);
+                    break;
+            }
+        } finally {
+            if (eM.getTransaction().isActive()) eM.getTransaction().rollback();
+            eM.close();
         }
     }
 
     private void listUser(HttpServletRequest request, HttpServletResponse response, EntityManager eM) throws IOException, ServletException {
-        String queryString = "SELECT p FROM DB_Profile p";
-        Query query = eM.createQuery(queryString);
+        // keyset pagination - page starts after the id of the last profile of the previous page
+        int afterId = afterId(request.getParameter("after"));
+        String queryString = "SELECT p FROM DB_Profile p WHERE p.id > :afterId ORDER BY p.id";
+        TypedQuery<DB_Profile> query = eM.createQuery(queryString, DB_Profile.class);
+        query.setParameter("afterId", afterId);
+        query.setMaxResults(PAGE_SIZE);
         List<DB_Profile> listProf = query.getResultList();
 
         request.setAttribute("listProf", listProf);
+        if (listProf.size() == PAGE_SIZE) {
+            request.setAttribute("nextAfter", listProf.get(listProf.size() - 1).getId());
+        }
         request.getRequestDispatcher("register-success.jsp").forward(request, response);
     }
 
+    /**
+     * @param after value of "after" parameter typed by user
+     * @return id after which the page starts, 0 (first page) when parameter is missing or not a number
+     */
+    private static int afterId(String after) {
+        if (after == null || after.isEmpty()) return 0;
+        try {
+            return Math.max(0, Integer.parseInt(after.trim()));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
 
     private void insertUser(HttpServletRequest request, HttpServletResponse response, EntityManager eM) throws IOException {
         String nick = request.getParameter("nick");
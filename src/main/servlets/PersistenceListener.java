@@ -0,0 +1,42 @@
+package main.servlets;
+
+import main.database.PersistenceUnits;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Listener that owns the EntityManagerFactory of the web application.<br>
+ * Factory (and its pool of JDBC connections configured in persistence.xml) is created once when the application
+ * starts and closed when it stops. Servlets create one EntityManager per request from it and close it at the end.
+ */
+@WebListener
+public class PersistenceListener implements ServletContextListener {
+
+    /*** FACTORY -> name of the ServletContext attribute with the EntityManagerFactory*/
+    private static final String FACTORY = "entityManagerFactory";
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        EntityManagerFactory eMF = PersistenceUnits.create();
+        sce.getServletContext().setAttribute(FACTORY, eMF);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        EntityManagerFactory eMF = (EntityManagerFactory) sce.getServletContext().getAttribute(FACTORY);
+        sce.getServletContext().removeAttribute(FACTORY);
+        if (eMF != null && eMF.isOpen()) eMF.close();
+    }
+
+    /**
+     * @param context context of the web application
+     * @return EntityManagerFactory shared by all requests
+     */
+    public static EntityManagerFactory getFactory(ServletContext context) {
+        return (EntityManagerFactory) context.getAttribute(FACTORY);
+    }
+}
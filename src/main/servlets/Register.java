@@ -3,9 +3,7 @@ package main.servlets;
 import main.database.DB_Profile;
 
 import javax.persistence.EntityManager;
-import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
-import javax.persistence.Persistence;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -25,9 +23,6 @@ public class Register extends HttpServlet {
     }
 
     private void register(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
-        EntityManagerFactory eMF = Persistence.createEntityManagerFactory("DataBaseP");
-        EntityManager eM = eMF.createEntityManager();
-
         String nick = request.getParameter("nick");
         String password = request.getParameter("password");
         String name = request.getParameter("name");
@@ -37,10 +32,16 @@ public class Register extends HttpServlet {
 
         DB_Profile prof = new DB_Profile(nick, password, name, surname, age, money);
 
-        EntityTransaction eT = eM.getTransaction();
-        eT.begin();
-        eM.persist(prof);
-        eT.commit();
+        EntityManager eM = PersistenceListener.getFactory(getServletContext()).createEntityManager();
+        try {
+            EntityTransaction eT = eM.getTransaction();
+            eT.begin();
+            eM.persist(prof);
+            eT.commit();
+        } finally {
+            if (eM.getTransaction().isActive()) eM.getTransaction().rollback();
+            eM.close();
+        }
 
         request.setAttribute("prof", prof);
         request.getRequestDispatcher("register-success.jsp").forward(request, response);
@@ -1,3 +1,4 @@
+import main.database.BikeFilter;
 import main.database.DB_Bike;
 import main.database.DB_Frame;
 import main.database.DB_Handling;
@@ -12,7 +13,9 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 import java.io.FileNotFoundException;
 
@@ -25,6 +28,8 @@ public class TestingDBMethods {
     EntityManager eM = Mockito.mock(EntityManager.class);
     EntityTransaction eT = Mockito.mock(EntityTransaction.class);
     Query query = Mockito.mock(Query.class);
+    @Mock
+    TypedQuery<DB_Profile> typedQuery;
     DB_Handling db_H = new DB_Handling();
     LSEA prof = new LSEA("Blazej", "Csdafasdfa", "Blaze", "CVwikfdalfds", 21, 3000000.0f);
     Car car = new Car("BlazeCar", "Lambo", 1, 1000000.78f, 3122.5f,prof,1, 2000, 300, 5, "great", "Poland");
@@ -62,6 +67,25 @@ public class TestingDBMethods {
         assertEquals(true,db_H.loadBikes("data/bikes", eM));
     }
 
+    @Test
+    public void loadingListOfBikesToDBInBatchModeTest() {
+        Mockito.when(eM.getTransaction()).thenReturn(eT);
+        db_H.setBatchSize(2);
+        assertEquals(true, db_H.loadBikes("data/bikes", eM));
+        // 5 bikes in the file -> chunks of 2, 2 and 1
+        Mockito.verify(eT, Mockito.times(3)).commit();
+        Mockito.verify(eM, Mockito.times(3)).clear();
+    }
+
+    @Test
+    public void loadingBikesOfOneBrandToDBTest() {
+        Mockito.when(eM.getTransaction()).thenReturn(eT);
+        assertEquals(true, db_H.loadBikesByBrand("data/bikes", "Giant", eM));
+        assertEquals(1, db_H.getDbB().size());
+        assertEquals("Bikos", db_H.getDbB().get(0).getTitle());
+        assertEquals("Giant", db_H.getDbB().get(0).getBrand());
+    }
+
     @Test
     public void loadingListOfBikesToDBWithNonExistingPathTest() {
         Mockito.when(eM.getTransaction()).thenReturn(eT);
@@ -100,37 +124,79 @@ public class TestingDBMethods {
     @Test
     public void deletingBikeByBrandTest() {
         db_H.getDbB().add(db_bike);
-        Mockito.when(eM.find(DB_Bike.class, db_H.getDbB().size())).thenReturn(db_bike);
+        Mockito.when(eM.createQuery("DELETE FROM DB_Bike b WHERE b.brand = :brand")).thenReturn(query);
+        Mockito.when(query.executeUpdate()).thenReturn(1);
         Mockito.when(eM.getTransaction()).thenReturn(eT);
         String brand = "brand";
         assertEquals(true, db_H.deleteBikeBrand(brand, eM));
+        assertEquals(0, db_H.getDbB().size());
     }
 
     @Test
     public void deletingBikeByBrandWithNonExistingBrandTest() {
         db_H.getDbB().add(db_bike);
-        Mockito.when(eM.find(DB_Bike.class, db_H.getDbB().size())).thenReturn(db_bike);
+        Mockito.when(eM.createQuery("DELETE FROM DB_Bike b WHERE b.brand = :brand")).thenReturn(query);
+        Mockito.when(query.executeUpdate()).thenReturn(0);
         Mockito.when(eM.getTransaction()).thenReturn(eT);
         String brand = "non_existing_brand";
         assertEquals(false, db_H.deleteBikeBrand(brand, eM));
+        assertEquals(1, db_H.getDbB().size());
     }
 
     @Test
     public void deletingBikeByBrandWithoutFirstlyAddingItToArrayListTest() {
-        Mockito.when(eM.find(DB_Bike.class, db_H.getDbB().size())).thenReturn(db_bike);
+        Mockito.when(eM.createQuery("DELETE FROM DB_Bike b WHERE b.brand = :brand")).thenReturn(query);
+        Mockito.when(query.executeUpdate()).thenReturn(1);
         Mockito.when(eM.getTransaction()).thenReturn(eT);
         String brand = "brand";
         assertEquals(false, db_H.deleteBikeBrand(brand, eM));
     }
 
+    @Test
+    public void deletingBikesByPriceRangeAndAvailabilityTest() {
+        db_H.getDbB().add(db_bike);
+        db_H.getDbB().add(new DB_Bike("expensive","brand",1,5000,1,db_prof,1,1,db_frame,1,1,1));
+        Mockito.when(eM.createQuery("DELETE FROM DB_Bike b WHERE b.price >= :minPrice AND b.price <= :maxPrice"
+                + " AND b.is_available = :available")).thenReturn(query);
+        Mockito.when(query.executeUpdate()).thenReturn(1);
+        Mockito.when(eM.getTransaction()).thenReturn(eT);
+        assertEquals(1, db_H.deleteBikes(new BikeFilter().priceBetween(0, 100).available(1), eM));
+        assertEquals(1, db_H.getDbB().size());
+        assertEquals("expensive", db_H.getDbB().get(0).getTitle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deletingBikesWithEmptyFilterTest() {
+        db_H.getDbB().add(db_bike);
+        db_H.deleteBikes(new BikeFilter(), eM);
+    }
+
+    @Test
+    public void deletingBikesRollbackTest() {
+        db_H.getDbB().add(db_bike);
+        Mockito.when(eM.createQuery("DELETE FROM DB_Bike b WHERE b.brand = :brand")).thenReturn(query);
+        Mockito.when(query.executeUpdate()).thenThrow(new PersistenceException("locked"));
+        Mockito.when(eM.getTransaction()).thenReturn(eT);
+        Mockito.when(eT.isActive()).thenReturn(true);
+        try {
+            db_H.deleteBikes(BikeFilter.ofBrand("brand"), eM);
+            Assert.fail();
+        } catch (PersistenceException ex) {
+            assertEquals("locked", ex.getMessage());
+        }
+        Mockito.verify(eT).rollback();
+        assertEquals(1, db_H.getDbB().size());
+    }
+
     @Test
     public void queryingTest() {
         int param1 = 22;
         float param2 = 5000.1f;
-        String queryString = "SELECT p FROM DB_Profile p WHERE p.age > :age AND p.money < :money";
-        Mockito.when(eM.createQuery(queryString)).thenReturn(query);
+        String queryString = "SELECT p FROM DB_Profile p WHERE p.age > :age AND p.money < :money AND p.id > :afterId ORDER BY p.id";
+        Mockito.when(eM.createQuery(queryString, DB_Profile.class)).thenReturn(typedQuery);
         db_H.getDbP().add(db_prof);
-        Mockito.when(query.getResultList()).thenReturn(db_H.getDbP());
+        Mockito.when(typedQuery.getResultList()).thenReturn(db_H.getDbP());
         assertEquals(true, db_H.query(eM, param1, param2));
+        Mockito.verify(typedQuery).setMaxResults(DB_Handling.PAGE_SIZE);
     }
 }
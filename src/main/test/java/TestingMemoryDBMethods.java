@@ -0,0 +1,152 @@
+import main.database.BikeFilter;
+import main.database.DB_Frame;
+import main.database.DB_Handling;
+import main.database.DB_Profile;
+import main.database.PersistenceUnits;
+import org.junit.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DB_Handling end-to-end on embedded in-memory Derby (persistence unit DataBaseMemory), nothing is mocked.<br>
+ * Profiles and frames are loaded once, bikes and cars are deleted before every test.<br>
+ * data/bikes.txt refers to profiles (ids 4-19) and frames (ids 1-2) by id, so the fixture checks that the ids
+ * are generated from 1 in the order of the files. load methods return true even when a row fails, so bikes are
+ * also counted through their owner and frame (linked).
+ */
+public class TestingMemoryDBMethods {
+
+    static EntityManagerFactory eMF;
+    EntityManager eM;
+    DB_Handling db_H = new DB_Handling();
+
+    @BeforeClass
+    public static void createDatabase() {
+        eMF = PersistenceUnits.createMemory();
+        EntityManager eM = eMF.createEntityManager();
+        DB_Handling db_H = new DB_Handling();
+        db_H.loadProfiles("data/profiles", eM);
+        db_H.loadFrames("data/frames", eM);
+        eM.close();
+    }
+
+    @AfterClass
+    public static void closeDatabase() {
+        eMF.close();
+    }
+
+    @Before
+    public void emptyOffers() {
+        eM = eMF.createEntityManager();
+        eM.getTransaction().begin();
+        eM.createQuery("DELETE FROM DB_Bike").executeUpdate();
+        eM.createQuery("DELETE FROM DB_Car").executeUpdate();
+        eM.getTransaction().commit();
+    }
+
+    @After
+    public void closeEntityManager() {
+        eM.close();
+    }
+
+    private long count(String entity) {
+        return eM.createQuery("SELECT COUNT(e) FROM " + entity + " e", Long.class).getSingleResult();
+    }
+
+    /*** @return number of bikes with existing owner and frame*/
+    private long linked() {
+        return eM.createQuery("SELECT COUNT(b) FROM DB_Bike b JOIN b.account a JOIN b.frame f", Long.class)
+                .getSingleResult();
+    }
+
+    @Test
+    public void profilesAndFramesAreInDBTest() {
+        assertEquals(19, count("DB_Profile"));
+        assertEquals(5, count("DB_Frame"));
+        assertEquals("Ru", eM.find(DB_Profile.class, 15).getNick());
+        assertEquals("Kamcio", eM.find(DB_Profile.class, 19).getNick());
+        assertEquals("steel", eM.find(DB_Frame.class, 2).getMaterial());
+    }
+
+    @Test
+    public void loadingBikesToDBTest() {
+        assertEquals(true, db_H.loadBikes("data/bikes", eM));
+        assertEquals(5, count("DB_Bike"));
+        assertEquals(5, linked());
+        assertEquals(5, db_H.getDbB().size());
+    }
+
+    @Test
+    public void loadingBikesToDBInBatchModeTest() {
+        db_H.setBatchSize(2);
+        assertEquals(true, db_H.loadBikes("data/bikes", eM));
+        assertEquals(5, count("DB_Bike"));
+        assertEquals(5, linked());
+    }
+
+    @Test
+    public void loadingCarsToDBTest() throws FileNotFoundException {
+        assertEquals(true, db_H.loadCars("data/cars", eM));
+        assertEquals(10, count("DB_Car"));
+    }
+
+    @Test
+    public void loadingBikesOfOneBrandToDBTest() {
+        assertEquals(true, db_H.loadBikesByBrand("data/bikes", "Giant", eM));
+        assertEquals(1, count("DB_Bike"));
+        assertEquals(1, linked());
+        assertEquals("Ru", eM.createQuery("SELECT b.account.nick FROM DB_Bike b", String.class).getSingleResult());
+    }
+
+    @Test
+    public void deletingBikeByBrandTest() {
+        db_H.loadBikes("data/bikes", eM);
+        assertEquals(5, linked());
+        assertEquals(true, db_H.deleteBikeBrand("Giant", eM));
+        assertEquals(4, count("DB_Bike"));
+        assertEquals(19, count("DB_Profile"));
+        assertEquals(4, db_H.getDbB().size());
+        assertEquals(false, db_H.deleteBikeBrand("Giant", eM));
+    }
+
+    @Test
+    public void deletingBikesByFilterTest() {
+        db_H.loadBikes("data/bikes", eM);
+        assertEquals(5, linked());
+        assertEquals(2, db_H.deleteBikes(new BikeFilter().available(0), eM));
+        assertEquals(3, count("DB_Bike"));
+        assertEquals(3, db_H.getDbB().size());
+        assertEquals(1, db_H.deleteBikes(new BikeFilter().owner(15), eM));
+        assertEquals(2, count("DB_Bike"));
+        assertEquals(5, count("DB_Frame"));
+    }
+
+    @Test
+    public void queryingPagesOfProfilesTest() {
+        List<DB_Profile> first = db_H.queryPage(eM, 0, Float.MAX_VALUE, 0, 10);
+        assertEquals(10, first.size());
+        List<DB_Profile> second = db_H.queryPage(eM, 0, Float.MAX_VALUE, first.get(9).getId(), 10);
+        assertEquals(9, second.size());
+        assertTrue(second.get(0).getId() > first.get(9).getId());
+    }
+
+    @Test
+    public void selectingPersistenceUnitTest() {
+        String old = System.getProperty(PersistenceUnits.PROPERTY);
+        try {
+            System.setProperty(PersistenceUnits.PROPERTY, "memory");
+            assertEquals(PersistenceUnits.MEMORY, PersistenceUnits.unitName());
+            System.clearProperty(PersistenceUnits.PROPERTY);
+            assertEquals(PersistenceUnits.SERVER, PersistenceUnits.unitName());
+        } finally {
+            if(old != null) System.setProperty(PersistenceUnits.PROPERTY, old);
+        }
+    }
+}
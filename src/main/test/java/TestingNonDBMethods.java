@@ -1,8 +1,24 @@
 import main.database.DB_Handling;
 import main.lsea.Bike;
+import main.lsea.BikeScoring;
 import main.lsea.Car;
+import main.lsea.ColumnarOffers;
+import main.lsea.CompactProfileCodec;
 import main.lsea.Frame;
 import main.lsea.LSEA;
+import main.lsea.OfferIndex;
+import main.lsea.OfferStore;
+import main.lsea.ProfileCodecs;
+import main.lsea.ProfileDigest;
+import main.lsea.ProfileRegistry;
+import main.lsea.SnapshotWriter;
+import main.TCP.DeltaSync;
+import main.TCP.ProfileFrames;
+import main.threads.ALRates;
+import main.threads.RateArr;
+import main.threads.RatingEngine;
+import main.threads.ThreadOne;
+import main.threads.TopRates;
 import org.junit.*;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -14,8 +30,30 @@ import javax.persistence.EntityTransaction;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 @RunWith(MockitoJUnitRunner.class)
@@ -49,6 +87,24 @@ public class TestingNonDBMethods {
         assertEquals(true, file.exists());
     }
 
+    @Test
+    public void loadProfilesFromTxtTest() {
+        List<LSEA> profiles = prof.load("data/profiles");
+        assertEquals(19, profiles.size());
+        assertEquals(prof.toString(), profiles.get(0).toString());
+    }
+
+    @Test
+    public void profileRegistryExactNickTest() {
+        List<LSEA> profiles = new ArrayList<>();
+        profiles.add(prof);
+        ProfileRegistry registry = ProfileRegistry.of(profiles);
+        assertEquals(prof, registry.byNick("Blazej"));
+        assertEquals(null, registry.byNick("Blaz"));
+        assertEquals(false, registry.add(new LSEA("Blazej", "pass", "Name", "Surname", 30, 10.0f)));
+        assertEquals(1, registry.size());
+    }
+
     @Test
     public void addCarOfferTest() {
         Mockito.when(eM.getTransaction()).thenReturn(eT);
@@ -122,4 +178,511 @@ public class TestingNonDBMethods {
         assertEquals(true, fileTest.exists());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void topRatesTest() throws InterruptedException {
+        bikes.add(new Bike("Test1", "BikosTest1",0,(float) 5000,(float)50, prof, 1,2, Frame.carbon, 0,0,0));
+        bikes.add(new Bike("Test2", "BikosTest2",1,(float) 0.5,(float)0.5, prof, 1,12, Frame.carbon, 1,1,1));
+        bikes.add(new Bike("Test3", "BikosTest3",1,(float) 50,(float)5, prof, 1,12, Frame.carbon, 1,1,1));
+        bikes.add(new Bike("Test4", "BikosTest4",1,(float) 0.5,(float)0.5, prof, 1,12, Frame.carbon, 1,1,1));
+        List<RateArr> top = TopRates.top(bikes, 2, 2);
+        assertEquals(2, top.size());
+        assertEquals("Test2", top.get(0).getBike().getNameOI());
+        assertEquals("Test4", top.get(1).getBike().getNameOI());
+
+        TopRates.Live live = new TopRates.Live(bikes, 2);
+        bikes.get(1).setIs_available(0);
+        live.bought(bikes.get(1));
+        assertEquals("Test4", live.top().get(0).getBike().getNameOI());
+        assertEquals("Test3", live.top().get(1).getBike().getNameOI());
+    }
+
+    @Test
+    public void alRatesConcurrentAddTest() throws InterruptedException {
+        final ALRates rates = new ALRates();
+        final int threads = 4, each = 50000;
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicInteger shrunk = new AtomicInteger();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int last = 0;
+                boolean finished;
+                do {
+                    finished = done.get();
+                    int size;
+                    synchronized(rates) {
+                        size = rates.getList().size();
+                    }
+                    // snapshots taken while threads add can only grow
+                    if(size < last) shrunk.incrementAndGet();
+                    last = size;
+                } while(!finished);
+            }
+        });
+        List<Thread> writers = new ArrayList<>();
+        for(int t = 0; t < threads; t++) {
+            final int id = t;
+            writers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = 0; i < each; i++) rates.add(new RateArr(null, id * each + i));
+                }
+            }));
+        }
+        reader.start();
+        for(Thread t : writers) t.start();
+        for(Thread t : writers) t.join();
+        done.set(true);
+        reader.join();
+        assertEquals(0, shrunk.get());
+
+        List<RateArr> list = rates.getList();
+        assertEquals(threads * each, list.size());
+        assertEquals(threads * each, rates.size());
+        // every rate once and in the order of its thread
+        int[] next = new int[threads];
+        for(RateArr r : list) {
+            int id = r.getRate() / each;
+            assertEquals(id * each + next[id], r.getRate());
+            next[id]++;
+        }
+        for(int t = 0; t < threads; t++) assertEquals(each, next[t]);
+
+        // rates added after setList are the only ones in the new list
+        rates.add(new RateArr(null, -1));
+        rates.setList(new ArrayList<RateArr>());
+        assertEquals(0, rates.size());
+        rates.add(new RateArr(null, -2));
+        assertEquals(1, rates.getList().size());
+        assertEquals(-2, rates.getList().get(0).getRate());
+        assertEquals(threads * each, list.size());
+    }
+
+    @Test
+    public void ratingEngineMatchesThreadOneTest() throws InterruptedException {
+        Random rand = new Random(3);
+        for(int i = 0; i < 10000; i++) {
+            bikes.add(new Bike("Test_" + i, "BikosTest", rand.nextInt(2), rand.nextInt(1000000) / 100f,
+                    rand.nextInt(100000) / 1000f, prof, 1, 1 + rand.nextInt(40), Frame.carbon,
+                    rand.nextInt(2), rand.nextInt(2), rand.nextInt(2)));
+        }
+        List<ALRates> lists = new ArrayList<>();
+        for(int b = 0; b < RatingEngine.BUCKETS; b++) lists.add(new ALRates());
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < new ThreadOne().getNumberThreads(); i++) {
+            threads.add(new Thread(new ThreadOne(bikes, i, lists.get(0), lists.get(1), lists.get(2), lists.get(3), lists.get(4))));
+        }
+        for(Thread t : threads) t.start();
+        for(Thread t : threads) t.join();
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        List<List<RateArr>> result = new RatingEngine(pool).rate(bikes);
+        pool.shutdown();
+        int total = 0;
+        for(int b = 0; b < RatingEngine.BUCKETS; b++) {
+            List<RateArr> expected = lists.get(b).getList(), actual = result.get(b);
+            assertEquals(expected.size(), actual.size());
+            Map<Bike, Integer> rates = new IdentityHashMap<>();
+            for(RateArr r : expected) rates.put(r.getBike(), r.getRate());
+            int last = -1;
+            for(RateArr r : actual) {
+                assertEquals(rates.get(r.getBike()), Integer.valueOf(r.getRate()));
+                // RatingEngine keeps the order of the bikes
+                int index = Integer.parseInt(r.getBike().getNameOI().substring(5));
+                Assert.assertTrue(index > last);
+                last = index;
+            }
+            total += actual.size();
+        }
+        assertEquals(bikes.size(), total);
+        Assert.assertTrue(result.get(0).size() > 0 && result.get(4).size() > 0);
+    }
+
+    @Test
+    public void offerIndexOrderTest() {
+        Bike cheap = new Bike("B", "BikosTest", 1, 10, 1, prof, 1, 1, Frame.carbon, 1, 1, 1);
+        Bike expensive = new Bike("B", "BikosTest", 1, 20, 1, prof, 1, 1, Frame.carbon, 1, 1, 1);
+        Bike first = new Bike("A", "BikosTest", 1, 5, 1, prof, 1, 1, Frame.carbon, 1, 1, 1);
+        bikes.add(cheap);
+        bikes.add(expensive);
+        OfferIndex<Bike> index = OfferIndex.bikes(bikes);
+        List<Bike> view = index.asList();
+        index.add(first);
+        assertEquals(3, view.size());
+        assertEquals(first, view.get(0));
+        assertEquals(expensive, view.get(1));
+        assertEquals(cheap, view.get(2));
+        assertEquals(true, index.remove(expensive));
+        assertEquals(false, index.remove(expensive));
+        assertEquals(cheap, view.get(1));
+    }
+
+    @Test
+    public void itemCodecRoundTripTest() throws IOException {
+        LSEA owner = new LSEA("Żaneta", null, "Zażółć", "gęślą jaźń", 33, 12.25f);
+        List<Car> cars = new ArrayList<>();
+        bikes.add(new Bike("Rower górski", "Kross", 1, 999.99f, 13.5f, owner, 1, 21, Frame.aluminum, 1, 0, 1));
+        bikes.add(new Bike(null, "", 0, 0, 0, null, 0, 0, null, 0, 0, 0));
+        cars.add(new Car("Fiat", "Fiat", 0, 5000.5f, 900, owner, 1, 1999, 45, 4, null, "Polska"));
+        cars.add(car);
+        String uPath = Files.createTempDirectory("items").resolve("items").toString();
+        new Bike().saveS(bikes, cars, uPath);
+
+        List<Bike> loadedBikes = new ArrayList<>();
+        List<Car> loadedCars = new ArrayList<>();
+        new Bike().loadS(loadedBikes, loadedCars, uPath);
+        assertEquals(2, loadedBikes.size());
+        assertEquals(2, loadedCars.size());
+        assertEquals(bikes.get(0).toString(), loadedBikes.get(0).toString());
+        assertEquals(cars.get(0).toString(), loadedCars.get(0).toString());
+        assertEquals(cars.get(1).toString(), loadedCars.get(1).toString());
+        assertEquals(null, loadedBikes.get(1).getNameOI());
+        assertEquals("", loadedBikes.get(1).getBrand());
+        assertEquals(null, loadedBikes.get(1).getAccount());
+        assertEquals(null, loadedBikes.get(1).getFrame());
+        assertEquals(null, loadedCars.get(0).getTransmission());
+        assertEquals("gęślą jaźń", loadedBikes.get(0).getAccount().getSurname());
+        assertEquals(null, loadedBikes.get(0).getAccount().getPassword());
+        // one owner of two offers is read once and shared
+        Assert.assertSame(loadedBikes.get(0).getAccount(), loadedCars.get(0).getAccount());
+        Assert.assertNotSame(loadedBikes.get(0).getAccount(), loadedCars.get(1).getAccount());
+    }
+
+    @Test
+    public void bikeScoringMatchesRateTest() {
+        float[] prices = {-1f, 0f, 0.99f, 1f, 9.99f, 10f, 99.99f, 100f, 999.99f, 1000f, 9999.99f, 10000f, 1e9f, Float.NaN};
+        float[] weights = {-1f, 0f, 0.999f, 1f, 9.999f, 10f, 99.99f, 100f, Float.NaN};
+        int[] gears = {0, 1, 2, 3, -3, 21, Short.MAX_VALUE, Short.MIN_VALUE};
+        int[] flags = {0, 1, 2, -1};
+        List<int[]> cases = new ArrayList<>();
+        for(int p = 0; p < prices.length; p++) {
+            for(int w = 0; w < weights.length; w++) {
+                for(int g = 0; g < gears.length; g++) {
+                    for(int f = 0; f < 16 * flags.length; f++) cases.add(new int[]{p, w, g, f});
+                }
+            }
+        }
+        int n = cases.size();
+        float[] price = new float[n], weight = new float[n];
+        int[] gear = new int[n], auction = new int[n], lights = new int[n], bell = new int[n], breaks = new int[n];
+        short[] shortGear = new short[n];
+        byte[] byteAuction = new byte[n], byteLights = new byte[n], byteBell = new byte[n], byteBreaks = new byte[n];
+        for(int i = 0; i < n; i++) {
+            int[] c = cases.get(i);
+            price[i] = prices[c[0]];
+            weight[i] = weights[c[1]];
+            gear[i] = gears[c[2]];
+            shortGear[i] = (short) gear[i];
+            // every flag is 0 or 1 from the low bits, the value of flags[] is used instead of 1 for some cases
+            int other = flags[c[3] / 16];
+            auction[i] = (c[3] & 1) != 0 ? 1 : other;
+            lights[i] = (c[3] & 2) != 0 ? 1 : other;
+            bell[i] = (c[3] & 4) != 0 ? 1 : other;
+            breaks[i] = (c[3] & 8) != 0 ? 1 : other;
+            byteAuction[i] = (byte) auction[i];
+            byteLights[i] = (byte) lights[i];
+            byteBell[i] = (byte) bell[i];
+            byteBreaks[i] = (byte) breaks[i];
+            bikes.add(new Bike("Test" + i, "BikosTest", auction[i], price[i], weight[i], prof, 1, gear[i], Frame.carbon,
+                    lights[i], bell[i], breaks[i]));
+        }
+        int[] scores = new int[n], shortScores = new int[n], listScores = new int[n];
+        byte[] buckets = new byte[n], shortBuckets = new byte[n], listBuckets = new byte[n];
+        BikeScoring.score(price, weight, gear, auction, lights, bell, breaks, 0, n, scores, buckets);
+        BikeScoring.score(price, weight, shortGear, byteAuction, byteLights, byteBell, byteBreaks, 0, n, shortScores, shortBuckets);
+        BikeScoring.score(bikes, listScores, listBuckets);
+        for(int i = 0; i < n; i++) {
+            int expected = Bike.rate(price[i], weight[i], gear[i], auction[i], lights[i], bell[i], breaks[i]);
+            String message = "price " + price[i] + ", weight " + weight[i] + ", gear " + gear[i] + ", flags "
+                    + auction[i] + lights[i] + bell[i] + breaks[i];
+            assertEquals(message, expected, scores[i]);
+            assertEquals(message, expected, shortScores[i]);
+            assertEquals(message, expected, listScores[i]);
+            assertEquals(message, RatingEngine.bucket(expected), buckets[i]);
+            assertEquals(message, buckets[i], shortBuckets[i]);
+            assertEquals(message, buckets[i], listBuckets[i]);
+        }
+        assertEquals(0, BikeScoring.bucket(180));
+        assertEquals(1, BikeScoring.bucket(179));
+        assertEquals(3, BikeScoring.bucket(45));
+        assertEquals(4, BikeScoring.bucket(44));
+    }
+
+    @Test
+    public void offerStoreMatchesBikeListTest() {
+        Random rand = new Random(7);
+        Frame[] frames = Frame.values();
+        for(int i = 0; i < 1000; i++) {
+            bikes.add(new Bike(i % 100 == 0 ? null : "Rower_" + i + "_ż", i % 3 == 0 ? "Kross" : "Giant",
+                    rand.nextInt(2), rand.nextInt(2000000) / 100f, rand.nextInt(200000) / 1000f,
+                    i % 7 == 0 ? null : prof, rand.nextInt(2), rand.nextInt(30), i % 11 == 0 ? null : frames[i % frames.length],
+                    rand.nextInt(3), rand.nextInt(2), rand.nextInt(2)));
+        }
+        OfferStore store = OfferStore.of(bikes);
+        assertEquals(bikes.size(), store.size());
+        List<Integer> storeRows = new ArrayList<>();
+        OfferStore.Cursor c = store.cursor();
+        while(c.next()) {
+            Bike bike = bikes.get(c.row());
+            assertEquals(bike.rateBikes().getRate(), c.rate());
+            assertEquals(bike.getNameOI(), c.getNameOI());
+            assertEquals(bike.getBrand(), c.getBrand());
+            Assert.assertSame(bike.getAccount(), c.getAccount());
+            assertEquals(bike.getFrame(), c.getFrame());
+            assertEquals(bike.getAre_lights(), c.getAre_lights());
+            storeRows.add(c.row());
+        }
+        assertEquals(bikes.size(), storeRows.size());
+
+        // the same ranking (best rate first, stable) from the list and from the store
+        final int[] scores = new int[store.size()];
+        store.score(scores, new byte[store.size()]);
+        Collections.sort(storeRows, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Integer.compare(scores[b], scores[a]);
+            }
+        });
+        List<Bike> sorted = new ArrayList<>(bikes);
+        Collections.sort(sorted, new Comparator<Bike>() {
+            @Override
+            public int compare(Bike a, Bike b) {
+                return Integer.compare(b.rateBikes().getRate(), a.rateBikes().getRate());
+            }
+        });
+        for(int i = 0; i < sorted.size(); i++) {
+            Assert.assertSame(sorted.get(i), bikes.get(storeRows.get(i)));
+        }
+
+        // cursor is a flyweight, seek moves the same object
+        c.seek(5);
+        assertEquals("Rower_5_ż", c.getNameOI());
+        c.seek(0);
+        assertEquals(null, c.getNameOI());
+        assertEquals(bikes.get(1).toString(), store.toBike(1).toString());
+    }
+
+    @Test
+    public void columnarBikesRoundTripTest() throws IOException {
+        bikes.add(new Bike("Rower górski", "Kross", 1, 999.99f, 13.5f, prof, 1, 21, Frame.aluminum, 1, 0, 1));
+        bikes.add(new Bike(null, "Kross", 0, 0, 0, null, 0, 0, null, 0, 1, 0));
+        bikes.add(bikeTest);
+        Path path = Files.createTempDirectory("columnar").resolve("bikes.col");
+        ColumnarOffers.writeBikes(path, bikes);
+        try (ColumnarOffers.Reader reader = ColumnarOffers.open(path)) {
+            assertEquals(ColumnarOffers.KIND_BIKE, reader.kind());
+            assertEquals(3, reader.rows());
+            IntBuffer brand = reader.ints(ColumnarOffers.BRAND), owner = reader.ints(ColumnarOffers.OWNER),
+                    frame = reader.ints(ColumnarOffers.FRAME), gear = reader.ints(ColumnarOffers.GEAR),
+                    bell = reader.ints(ColumnarOffers.IS_BELL);
+            FloatBuffer price = reader.floats(ColumnarOffers.PRICE);
+            String[] brands = reader.dictionary(ColumnarOffers.BRAND), owners = reader.dictionary(ColumnarOffers.OWNER),
+                    frames = reader.dictionary(ColumnarOffers.FRAME);
+            for(int i = 0; i < 3; i++) {
+                Bike bike = bikes.get(i);
+                assertEquals(bike.getNameOI() == null ? "" : bike.getNameOI(), reader.string(ColumnarOffers.NAME_OI, i));
+                assertEquals(bike.getBrand(), brands[brand.get(i)]);
+                assertEquals(bike.getPrice(), price.get(i), 0);
+                assertEquals(bike.getGear(), gear.get(i));
+                assertEquals(bike.getIs_bell(), bell.get(i));
+            }
+            assertEquals(2, brands.length);
+            assertEquals(brand.get(0), brand.get(1));
+            assertEquals(prof.getNick(), owners[owner.get(0)]);
+            assertEquals(-1, owner.get(1));
+            assertEquals(-1, frame.get(1));
+            assertEquals("aluminum", frames[frame.get(0)]);
+            assertEquals(2, reader.count(ColumnarOffers.PRICE, 0, 1));
+            assertEquals(-1, reader.code(ColumnarOffers.BRAND, "Giant"));
+        }
+    }
+
+    @Test
+    public void columnarCarsRoundTripTest() throws IOException {
+        List<Car> cars = new ArrayList<>();
+        cars.add(car);
+        cars.add(new Car("Fiat 126p", "Fiat", 0, 5000.5f, 580, null, 1, 1985, 24, 4, null, null));
+        Path path = Files.createTempDirectory("columnar").resolve("cars.col");
+        ColumnarOffers.writeCars(path, cars);
+        try (ColumnarOffers.Reader reader = ColumnarOffers.open(path)) {
+            assertEquals(ColumnarOffers.KIND_CAR, reader.kind());
+            assertEquals(2, reader.rows());
+            assertEquals(false, reader.hasColumn(ColumnarOffers.GEAR));
+            IntBuffer year = reader.ints(ColumnarOffers.YEAR), transmission = reader.ints(ColumnarOffers.TRANSMISSION),
+                    country = reader.ints(ColumnarOffers.COUNTRY), owner = reader.ints(ColumnarOffers.OWNER);
+            FloatBuffer weight = reader.floats(ColumnarOffers.WEIGHT);
+            assertEquals("BlazeCar", reader.string(ColumnarOffers.NAME_OI, 0));
+            assertEquals("Fiat 126p", reader.string(ColumnarOffers.NAME_OI, 1));
+            assertEquals(2000, year.get(0));
+            assertEquals(1985, year.get(1));
+            assertEquals(3122.5f, weight.get(0), 0);
+            assertEquals("great", reader.dictionary(ColumnarOffers.TRANSMISSION)[transmission.get(0)]);
+            assertEquals("Poland", reader.dictionary(ColumnarOffers.COUNTRY)[country.get(0)]);
+            assertEquals(-1, transmission.get(1));
+            assertEquals(-1, country.get(1));
+            assertEquals(-1, owner.get(1));
+            assertEquals(1985, reader.min(ColumnarOffers.YEAR, 0), 0);
+            assertEquals(2000, reader.max(ColumnarOffers.YEAR, 0), 0);
+        }
+    }
+
+    @Test
+    public void snapshotInterruptedWriteTest() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        Path target = dir.resolve("profiles.txt");
+        Files.write(target, "old".getBytes(StandardCharsets.UTF_8));
+        try (SnapshotWriter output = new SnapshotWriter(target)) {
+            output.write("new content");
+            output.flush();
+            throw new IOException("disk full");
+        } catch (IOException ex) {
+            assertEquals("disk full", ex.getMessage());
+        }
+        assertEquals("old", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        assertEquals(1, dir.toFile().list().length);
+    }
+
+    @Test
+    public void snapshotKeepsPermissionsTest() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        Path target = dir.resolve("profiles.txt");
+        Files.write(target, "old".getBytes(StandardCharsets.UTF_8));
+        Assume.assumeTrue(Files.getFileAttributeView(target, PosixFileAttributeView.class) != null);
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r--r--");
+        Files.setPosixFilePermissions(target, permissions);
+        try (SnapshotWriter output = new SnapshotWriter(target)) {
+            output.write("new");
+            assertEquals(3, output.commit());
+        }
+        assertEquals("new", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        assertEquals(permissions, Files.getPosixFilePermissions(target));
+    }
+
+    @Test
+    public void compactProfileCodecTest() throws IOException {
+        List<LSEA> profiles = new ArrayList<>();
+        profiles.add(prof);
+        profiles.add(new LSEA("Nick2", null, "Łukasz", "", -1, (float) 12.5));
+        byte[] data = new CompactProfileCodec().encode(profiles);
+        List<LSEA> decoded = ProfileCodecs.decode(data, 0, data.length);
+        assertEquals(2, decoded.size());
+        assertEquals(prof.getNick(), decoded.get(0).getNick());
+        assertEquals(prof.getMoney(), decoded.get(0).getMoney(), 0);
+        assertEquals(null, decoded.get(1).getPassword());
+        assertEquals("Łukasz", decoded.get(1).getName());
+        assertEquals(-1, decoded.get(1).getAge());
+    }
+
+    @Test
+    public void profileFramesTest() {
+        List<LSEA> profiles = new ArrayList<>();
+        profiles.add(new LSEA("Nick2", null, "Łukasz", "", -1, (float) 12.5));
+        profiles.get(0).setMoney(7);
+        profiles.add(prof);
+        ByteBuffer frames = ProfileFrames.encode(profiles);
+        for(LSEA p : profiles) {
+            int length = frames.getInt();
+            ByteBuffer payload = frames.slice();
+            payload.limit(length);
+            LSEA read = ProfileFrames.read(payload);
+            frames.position(frames.position() + length);
+            assertEquals(p.getNick(), read.getNick());
+            assertEquals(p.getPassword(), read.getPassword());
+            assertEquals(p.getName(), read.getName());
+            assertEquals(p.getAge(), read.getAge());
+            assertEquals(p.getMoney(), read.getMoney(), 0);
+            assertEquals(p.getVersion(), read.getVersion());
+            assertEquals(p.getFieldVersion(LSEA.MONEY), read.getFieldVersion(LSEA.MONEY));
+            assertEquals(p.getFieldVersion(LSEA.NAME), read.getFieldVersion(LSEA.NAME));
+        }
+        assertEquals(0, frames.remaining());
+        try {
+            ProfileFrames.read(ByteBuffer.wrap(new byte[]{3, 'N'}));
+            Assert.fail("Frame shorter than the profile was read");
+        } catch (IllegalArgumentException ex) {
+            assertEquals(true, ex.getMessage().startsWith("Frame is too short"));
+        }
+    }
+
+    @Test
+    public void deltaSyncTest() throws IOException, InterruptedException {
+        List<LSEA> clientProfiles = new ArrayList<>(), serverProfiles = new ArrayList<>();
+        for(int i = 0; i < 100; i++) {
+            clientProfiles.add(new LSEA("Nick" + i, "Pass", "Name", "Surname", 20, 100));
+            serverProfiles.add(new LSEA("Nick" + i, "Pass", "Name", "Surname", 20, 100));
+        }
+        ProfileDigest client = new ProfileDigest(clientProfiles);
+        ProfileDigest server = new ProfileDigest(serverProfiles);
+        clientProfiles.get(10).setPassword("NewPass");
+        clientProfiles.add(new LSEA("NewNick", "Pass", "Name", "Surname", 20, 100));
+        serverProfiles.get(20).setMoney(5);
+        assertEquals(1, clientProfiles.get(10).getVersion());
+
+        DeltaSync sync = deltaSync(client, server);
+        assertEquals(2, sync.getPushed());
+        assertEquals(1, sync.getPulled());
+        assertEquals("NewPass", server.byNick("Nick10").getPassword());
+        assertEquals(101, serverProfiles.size());
+        assertEquals(5, clientProfiles.get(20).getMoney(), 0);
+        assertEquals(client.digest(0, 0), server.digest(0, 0));
+    }
+
+    @Test
+    public void deltaSyncMergesFieldsTest() throws IOException, InterruptedException {
+        List<LSEA> clientProfiles = new ArrayList<>(), serverProfiles = new ArrayList<>();
+        for(String nick : new String[]{"Both", "Same"}) {
+            clientProfiles.add(new LSEA(nick, "Pass", "Name", "Surname", 20, 100));
+            serverProfiles.add(new LSEA(nick, "Pass", "Name", "Surname", 20, 100));
+        }
+        ProfileDigest client = new ProfileDigest(clientProfiles);
+        ProfileDigest server = new ProfileDigest(serverProfiles);
+        // different fields changed on both nodes, the server has the bigger version
+        clientProfiles.get(0).setPassword("NewPass");
+        serverProfiles.get(0).setMoney(50);
+        serverProfiles.get(0).setMoney(40);
+        // the same field changed on both nodes, the change with the bigger field version wins on both
+        clientProfiles.get(1).setMoney(1);
+        serverProfiles.get(1).setMoney(2);
+        serverProfiles.get(1).setMoney(3);
+
+        deltaSync(client, server);
+
+        for(List<LSEA> profiles : Arrays.asList(clientProfiles, serverProfiles)) {
+            assertEquals("NewPass", profiles.get(0).getPassword());
+            assertEquals(40, profiles.get(0).getMoney(), 0);
+            assertEquals(2, profiles.get(0).getVersion());
+            assertEquals(3, profiles.get(1).getMoney(), 0);
+        }
+        assertEquals(client.digest(0, 0), server.digest(0, 0));
+
+        // the next local change is newer than the merged ones
+        clientProfiles.get(0).setMoney(7);
+        assertEquals(3, clientProfiles.get(0).getFieldVersion(LSEA.MONEY));
+        deltaSync(client, server);
+        assertEquals(7, serverProfiles.get(0).getMoney(), 0);
+        assertEquals("NewPass", serverProfiles.get(0).getPassword());
+        assertEquals(client.digest(0, 0), server.digest(0, 0));
+    }
+
+    /*** running one delta sync of the client with the server on a local port*/
+    private static DeltaSync deltaSync(ProfileDigest client, final ProfileDigest server) throws IOException, InterruptedException {
+        final ServerSocket listener = new ServerSocket(0);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try (Socket s = listener.accept()) {
+                    new DeltaSync(server).serve(s);
+                } catch (IOException ex) {
+                    System.out.println(ex.getMessage());
+                }
+            }
+        });
+        thread.start();
+        DeltaSync sync = new DeltaSync(client);
+        sync.sync("localhost", listener.getLocalPort());
+        thread.join();
+        listener.close();
+        return sync;
+    }
+}
@@ -0,0 +1,123 @@
+import main.UDP.DroppingSocket;
+import main.UDP.UdpBulkReceiver;
+import main.UDP.UdpBulkSender;
+import main.lsea.CompactProfileCodec;
+import main.lsea.LSEA;
+import main.lsea.ProfileCodecs;
+import org.junit.*;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bulk UDP transfer over loopback with packets lost on purpose (DroppingSocket on both sides).
+ */
+public class TestingUdpBulk {
+
+    DroppingSocket senderSocket, receiverSocket;
+    UdpBulkReceiver receiver;
+    volatile byte[] received;
+    volatile IOException error;
+
+    @After
+    public void closeSockets() {
+        if(senderSocket != null) senderSocket.close();
+        if(receiverSocket != null) receiverSocket.close();
+    }
+
+    void open(double senderLoss, double receiverLoss) throws IOException {
+        senderSocket = new DroppingSocket(0, senderLoss, 1);
+        receiverSocket = new DroppingSocket(0, receiverLoss, 2);
+        receiver = new UdpBulkReceiver(receiverSocket, 1024, 1 << 20);
+    }
+
+    Thread receiveInBackground() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int length = receiver.receive();
+                    received = Arrays.copyOf(receiver.getBuffer(), length);
+                    receiver.linger();
+                } catch (IOException ex) {
+                    error = ex;
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    byte[] send(byte[] data) throws IOException, InterruptedException {
+        Thread thread = receiveInBackground();
+        UdpBulkSender sender = new UdpBulkSender(senderSocket);
+        sender.send(data, 0, data.length, new InetSocketAddress("localhost", receiverSocket.getLocalPort()));
+        thread.join();
+        if(error != null) throw error;
+        return received;
+    }
+
+    @Test(timeout = 30000)
+    public void profilesBiggerThanDatagramWithLossTest() throws IOException, InterruptedException {
+        open(0.1, 0.1);
+        List<LSEA> profiles = new ArrayList<>();
+        for(int i = 0; i < 5000; i++) profiles.add(new LSEA("user_" + i, "pass_" + i, "Name", "Surname", 20 + i % 50, 1000 + i));
+        byte[] data = new CompactProfileCodec().encode(profiles);
+        assertTrue(data.length > 65507);
+
+        byte[] result = send(data);
+        List<LSEA> decoded = ProfileCodecs.decode(result, 0, result.length);
+        assertEquals(5000, decoded.size());
+        assertEquals("user_4999", decoded.get(4999).getNick());
+        assertTrue(senderSocket.getDropped() > 0);
+    }
+
+    @Test(timeout = 30000)
+    public void allFirstPacketsLostTest() throws IOException, InterruptedException {
+        open(0, 0);
+        byte[] data = new byte[10000];
+        new Random(3).nextBytes(data);
+        senderSocket.dropNext(8);
+        assertArrayEquals(data, send(data));
+        assertEquals(8, senderSocket.getDropped());
+    }
+
+    @Test(timeout = 30000)
+    public void lostDoneTest() throws IOException, InterruptedException {
+        open(0, 0);
+        byte[] data = new byte[100];
+        new Random(4).nextBytes(data);
+        receiverSocket.dropNext(1);
+        assertArrayEquals(data, send(data));
+        assertEquals(1, receiverSocket.getDropped());
+    }
+
+    @Test(timeout = 30000)
+    public void emptyDataTest() throws IOException, InterruptedException {
+        open(0, 0);
+        assertEquals(0, send(new byte[0]).length);
+    }
+
+    @Test(timeout = 30000)
+    public void transferLongerThanMaxLengthIgnoredTest() throws IOException, InterruptedException {
+        open(0, 0);
+        // first DATA packet of a 1 GB transfer: type 1, id, length, chunk size, sequence number
+        byte[] header = ByteBuffer.allocate(15).put((byte) 1).putInt(77).putInt(1 << 30).putShort((short) 1400).putInt(0).array();
+        senderSocket.send(new DatagramPacket(header, header.length, new InetSocketAddress("localhost", receiverSocket.getLocalPort())));
+        byte[] data = new byte[5000];
+        new Random(5).nextBytes(data);
+        assertArrayEquals(data, send(data));
+        assertEquals(1, receiver.getRejected());
+        assertEquals(5000, receiver.getBuffer().length);
+    }
+}
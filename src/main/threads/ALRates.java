@@ -1,28 +1,201 @@
 package main.threads;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
-
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Class that is used just to override the add method, so we can synchronize it in multithreading and we create it object in LSEA
+ * Class that is used just to override the add method, so we can synchronize it in multithreading and we create it object in LSEA<br>
+ * Every thread appends to its own segment, so threads rating bikes do not wait for each other. Segment has one writer,
+ * its size is volatile and it is written after the element, so readers see only fully added rates without a lock.<br>
+ * getList copies rates added since the last call from the segments to the list (in the order of the segments) and
+ * returns this list, so it is a consistent snapshot of every thread's appends, taken while other threads can still add.<br>
+ * Segment is a chain of blocks of BLOCK rates: copied slots are cleared and copied blocks are dropped, so a segment
+ * keeps at most one block besides the rates that were not copied yet. Segments are kept by this object (by thread),
+ * not in ThreadLocal, and segments of finished threads are removed once they are copied, so pooled threads do not
+ * keep rates of old ALRates objects.
  *
  * @author Patryk Dunajewski
  */
-@Getter @Setter @NoArgsConstructor @AllArgsConstructor
 public class ALRates {
 
+    /*** BLOCK -> number of rates in one block of the segment*/
+    private static final int BLOCK = 1024;
+
     /***list-> List of bikes and their rates(private, RateArr)*/
     private List<RateArr> list;
+    /*** segments -> segments of all threads that added rates, in the order of the first add*/
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    /*** byThread -> segment of every thread that added rates*/
+    private final ConcurrentMap<Thread, Segment> byThread = new ConcurrentHashMap<>();
 
-    /** Override of the add method, so it can be synchronized in multithreading
+    public ALRates() {
+        this(new ArrayList<RateArr>());
+    }
+
+    /*** @param list list to which rates are added*/
+    public ALRates(List<RateArr> list) {
+        this.list = list;
+    }
+
+    /** Override of the add method, so it can be used in multithreading without lock
      * @param r-> List of bikes and their rates(private, RateArr)
      */
-    public synchronized void add(RateArr r){
-        list.add(r);
+    public void add(RateArr r){
+        segment().add(r);
     }
-}
 
+    /** Adding many rates at once, used by RatingEngine after all of the bikes are rated
+     * @param rates-> rates that will be added at the end of the list
+     */
+    public void addAll(Collection<RateArr> rates){
+        Segment s = segment();
+        for(RateArr r : rates) s.add(r);
+    }
+
+    /*** @return list with all rates added until now*/
+    public synchronized List<RateArr> getList() {
+        drain(list);
+        return list;
+    }
+
+    /*** @param list new list, rates added before are dropped*/
+    public synchronized void setList(List<RateArr> list) {
+        drain(null);
+        this.list = list;
+    }
+
+    /*** @return number of all rates added until now*/
+    public synchronized int size() {
+        int size = list.size();
+        for(Segment s : segments) size += (int) (s.size - s.copied);
+        return size;
+    }
+
+    /**
+     * Moving rates added since the last call out of the segments
+     *
+     * @param target list where rates are added (null - rates are dropped)
+     */
+    private void drain(List<RateArr> target) {
+        for(Segment s : segments) {
+            s.drain(target);
+            if(!s.owner.isAlive() && s.copied == s.size) {
+                segments.remove(s);
+                byThread.remove(s.owner, s);
+            }
+        }
+    }
+
+    private Segment segment() {
+        Thread t = Thread.currentThread();
+        Segment s = byThread.get(t);
+        if(s == null) {
+            s = new Segment(t);
+            byThread.put(t, s);
+            segments.add(s);
+        }
+        return s;
+    }
+
+    /*** One block of the segment, next is set by the writer before the first rate of the next block is published*/
+    private static final class Block {
+        private final RateArr[] items = new RateArr[BLOCK];
+        private Block next;
+    }
+
+    /*** Rates added by one thread*/
+    private static final class Segment {
+        private final Thread owner;
+        /*** tail, used -> block written by the owner and number of its used slots (only the owner)*/
+        private Block tail;
+        private int used;
+        /*** size -> number of rates added, written after the rate (and after the link of a new block)*/
+        private volatile long size;
+        /*** head, position, copied -> first block not copied yet, next slot in it, number of copied rates (guarded by ALRates)*/
+        private Block head;
+        private int position;
+        private long copied;
+
+        Segment(Thread owner) {
+            this.owner = owner;
+            this.tail = this.head = new Block();
+        }
+
+        /*** only the owner thread adds*/
+        void add(RateArr r) {
+            if(used == BLOCK) {
+                Block b = new Block();
+                tail.next = b;
+                tail = b;
+                used = 0;
+            }
+            tail.items[used++] = r;
+            size = size + 1;
+        }
+
+        /*** copying (or dropping) published rates, copied blocks become garbage once the owner leaves them*/
+        void drain(List<RateArr> target) {
+            long n = size;
+            for(; copied < n; copied++) {
+                if(position == BLOCK) {
+                    head = head.next;
+                    position = 0;
+                }
+                if(target != null) target.add(head.items[position]);
+                head.items[position++] = null;
+            }
+        }
+    }
+
+    /**
+     * Throughput of add from 1 to 64 threads, compared with one list with synchronized add (old ALRates).<br>
+     * Arguments: number of rates added by all threads (default 20 000 000). Best of 3 runs is printed.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int total = args.length > 0 ? Integer.parseInt(args[0]) : 20000000;
+        final RateArr[] rates = new RateArr[1024];
+        for(int i = 0; i < rates.length; i++) rates[i] = new RateArr(null, i);
+        for(int threads = 1; threads <= 64; threads *= 2) {
+            final int each = total / threads;
+            long locked = Long.MAX_VALUE, striped = Long.MAX_VALUE;
+            int size = 0;
+            for(int rep = 0; rep < 3; rep++) {
+                final List<RateArr> one = new ArrayList<>();
+                locked = Math.min(locked, run(threads, new Runnable() {
+                    @Override
+                    public void run() {
+                        for(int i = 0; i < each; i++) {
+                            synchronized(one) {
+                                one.add(rates[i & 1023]);
+                            }
+                        }
+                    }
+                }));
+                final ALRates al = new ALRates();
+                striped = Math.min(striped, run(threads, new Runnable() {
+                    @Override
+                    public void run() {
+                        for(int i = 0; i < each; i++) al.add(rates[i & 1023]);
+                    }
+                }));
+                size = al.getList().size();
+            }
+            long adds = (long) each * threads;
+            System.out.println(threads + " threads: synchronized list " + String.format("%.1f", adds / (double) locked)
+                    + " M adds/s, ALRates " + String.format("%.1f", adds / (double) striped) + " M adds/s (" + size + " rates)");
+        }
+    }
+
+    /*** @return time in microseconds of threads all running the task*/
+    private static long run(int threads, Runnable task) throws InterruptedException {
+        List<Thread> list = new ArrayList<>();
+        for(int t = 0; t < threads; t++) list.add(new Thread(task));
+        System.gc();
+        long start = System.nanoTime();
+        for(Thread t : list) t.start();
+        for(Thread t : list) t.join();
+        return (System.nanoTime() - start) / 1000;
+    }
+}
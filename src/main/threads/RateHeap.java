@@ -0,0 +1,166 @@
+package main.threads;
+
+import main.lsea.Bike;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bounded min-heap keeping K best rated bikes, used by TopRates.<br>
+ * Root of the heap is the worst kept bike, so new bike is compared only with it. Rates, sequence numbers and bikes
+ * are kept in arrays, RateArr objects are created only for the result.<br>
+ * Bikes with equal rates are ordered by the sequence number (smaller is better), so the result does not depend
+ * on the order in which bikes were offered or on the number of threads.
+ */
+public class RateHeap {
+
+    /*** capacity -> maximal number of kept bikes (K)*/
+    private final int capacity;
+    private final int[] rates;
+    private final long[] seqs;
+    private final Bike[] bikes;
+    private int size;
+
+    /*** @param capacity maximal number of kept bikes (K)*/
+    public RateHeap(int capacity) {
+        if(capacity < 0) throw new IllegalArgumentException("Negative capacity: " + capacity);
+        this.capacity = capacity;
+        rates = new int[capacity];
+        seqs = new long[capacity];
+        bikes = new Bike[capacity];
+    }
+
+    /*** @return number of kept bikes*/
+    public int size() {
+        return size;
+    }
+
+    /*** @return maximal number of kept bikes*/
+    public int capacity() {
+        return capacity;
+    }
+
+    /*** @return true if K bikes are kept*/
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * @param rate rate of the bike
+     * @param seq sequence number of the bike (e.g. index in the list)
+     * @return true if bike with this rate and sequence number would be kept
+     */
+    public boolean accepts(int rate, long seq) {
+        return size < capacity || (capacity > 0 && worse(rates[0], seqs[0], rate, seq));
+    }
+
+    /**
+     * Offering bike to the heap, the worst bike is dropped when heap is full
+     *
+     * @param rate rate of the bike
+     * @param seq sequence number of the bike
+     * @param bike offered bike
+     * @return true if bike is kept
+     */
+    public boolean offer(int rate, long seq, Bike bike) {
+        if(size < capacity) {
+            set(size, rate, seq, bike);
+            up(size++);
+            return true;
+        }
+        if(capacity == 0 || !worse(rates[0], seqs[0], rate, seq)) return false;
+        set(0, rate, seq, bike);
+        down(0);
+        return true;
+    }
+
+    /**
+     * Removing bike from the heap (compared by reference)
+     *
+     * @param bike removed bike
+     * @return true if bike was kept in the heap
+     */
+    public boolean remove(Bike bike) {
+        for(int i = 0; i < size; i++) {
+            if(bikes[i] == bike) {
+                size--;
+                if(i != size) {
+                    set(i, rates[size], seqs[size], bikes[size]);
+                    down(i);
+                    up(i);
+                }
+                bikes[size] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*** Offering all bikes of the other heap to this one*/
+    public void addAll(RateHeap other) {
+        for(int i = 0; i < other.size; i++) offer(other.rates[i], other.seqs[i], other.bikes[i]);
+    }
+
+    /*** Removing all bikes*/
+    public void clear() {
+        Arrays.fill(bikes, 0, size, null);
+        size = 0;
+    }
+
+    /*** @return kept bikes with their rates, the best first*/
+    public List<RateArr> toList() {
+        Integer[] order = new Integer[size];
+        for(int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                if(worse(rates[a], seqs[a], rates[b], seqs[b])) return 1;
+                return worse(rates[b], seqs[b], rates[a], seqs[a]) ? -1 : 0;
+            }
+        });
+        List<RateArr> result = new ArrayList<>(size);
+        for(Integer i : order) result.add(new RateArr(bikes[i], rates[i]));
+        return result;
+    }
+
+    /*** @return true if bike (rateA, seqA) is worse than bike (rateB, seqB)*/
+    private static boolean worse(int rateA, long seqA, int rateB, long seqB) {
+        return rateA < rateB || (rateA == rateB && seqA > seqB);
+    }
+
+    private void set(int i, int rate, long seq, Bike bike) {
+        rates[i] = rate;
+        seqs[i] = seq;
+        bikes[i] = bike;
+    }
+
+    private void swap(int i, int j) {
+        int r = rates[i];
+        long s = seqs[i];
+        Bike b = bikes[i];
+        set(i, rates[j], seqs[j], bikes[j]);
+        set(j, r, s, b);
+    }
+
+    private void up(int i) {
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+            if(!worse(rates[i], seqs[i], rates[parent], seqs[parent])) return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void down(int i) {
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= size) return;
+            if(child + 1 < size && worse(rates[child + 1], seqs[child + 1], rates[child], seqs[child])) child++;
+            if(!worse(rates[child], seqs[child], rates[i], seqs[i])) return;
+            swap(i, child);
+            i = child;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package main.threads;
+
+import main.lsea.Bike;
+import main.lsea.Frame;
+import main.lsea.LSEA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Rating of the bikes offers on ForkJoinPool, used instead of ThreadOne.<br>
+ * Range of the bikes is split in halves until it is smaller than the grain (or until the pool has enough queued
+ * work), so the number of tasks adapts to the number of cores and to stealing. Every leaf task rates its range
+ * into its own five lists, nothing is shared between threads while rating.<br>
+ * Lists of the leaves are chained in the order of the bikes while tasks are joined and copied to ALRates once
+ * at the end, so the result does not depend on the number of threads.<br>
+ * Thresholds of the lists are the same as in ThreadOne: A - rate &gt;= 180, B - &gt;= 135, C - &gt;= 90,
+ * D - &gt;= 45, E - else.
+ */
+public class RatingEngine {
+
+    /*** THRESHOLDS -> minimal rate of lists A, B, C and D*/
+    private static final int[] THRESHOLDS = {180, 135, 90, 45};
+    /*** BUCKETS -> number of lists (A-E)*/
+    public static final int BUCKETS = 5;
+    /*** MIN_GRAIN -> minimal number of bikes rated by one task*/
+    private static final int MIN_GRAIN = 4096;
+
+    private final ForkJoinPool pool;
+
+    /*** engine with its own pool, one thread per core*/
+    public RatingEngine() {
+        this(new ForkJoinPool());
+    }
+
+    /*** @param pool pool used for rating*/
+    public RatingEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param rate rate of the bike
+     * @return index of the list: 0 - A, 1 - B, 2 - C, 3 - D, 4 - E
+     */
+    public static int bucket(int rate) {
+        int b = 0;
+        while(b < THRESHOLDS.length && rate < THRESHOLDS[b]) b++;
+        return b;
+    }
+
+    /**
+     * Rating all bikes
+     *
+     * @param bikes list with all offers of bikes
+     * @return five lists (A-E) with bikes and their rates, in the order of the bikes
+     */
+    public List<List<RateArr>> rate(List<Bike> bikes) {
+        final Bike[] array = bikes instanceof RandomAccess ? null : bikes.toArray(new Bike[bikes.size()]);
+        final List<Bike> list = bikes;
+        int grain = Math.max(MIN_GRAIN, bikes.size() / (pool.getParallelism() * 8));
+        Leaf first = pool.invoke(new Range(list, array, 0, bikes.size(), grain)).head;
+
+        int[] sizes = new int[BUCKETS];
+        for(Leaf leaf = first; leaf != null; leaf = leaf.next) {
+            for(int b = 0; b < BUCKETS; b++) sizes[b] += leaf.lists.get(b).size();
+        }
+        List<List<RateArr>> result = new ArrayList<>(BUCKETS);
+        for(int b = 0; b < BUCKETS; b++) result.add(new ArrayList<RateArr>(sizes[b]));
+        for(Leaf leaf = first; leaf != null; leaf = leaf.next) {
+            for(int b = 0; b < BUCKETS; b++) result.get(b).addAll(leaf.lists.get(b));
+        }
+        return result;
+    }
+
+    /**
+     * Rating all bikes and adding them to the lists, like ThreadOne does
+     *
+     * @param bikes list with all offers of bikes
+     * @param listA bikes with rate &gt;= 180
+     * @param listB bikes with rate &gt;= 135
+     * @param listC bikes with rate &gt;= 90
+     * @param listD bikes with rate &gt;= 45
+     * @param listE other bikes
+     */
+    public void rate(List<Bike> bikes, ALRates listA, ALRates listB, ALRates listC, ALRates listD, ALRates listE) {
+        List<List<RateArr>> result = rate(bikes);
+        ALRates[] lists = {listA, listB, listC, listD, listE};
+        for(int b = 0; b < BUCKETS; b++) lists[b].addAll(result.get(b));
+    }
+
+    /*** Lists of one leaf task, leaves are chained in the order of their ranges*/
+    private static final class Leaf {
+        private final List<List<RateArr>> lists = new ArrayList<>(BUCKETS);
+        private Leaf next;
+
+        Leaf() {
+            for(int b = 0; b < BUCKETS; b++) lists.add(new ArrayList<RateArr>());
+        }
+    }
+
+    /*** First and last leaf of the chain of a range*/
+    private static final class Chain {
+        private final Leaf head, tail;
+
+        Chain(Leaf head, Leaf tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+    }
+
+    /*** Task rating bikes from lo (inclusive) to hi (exclusive)*/
+    private static final class Range extends RecursiveTask<Chain> {
+        /*** serialVersionUID -> correct serialization*/
+        private static final long serialVersionUID = 1L;
+        private final List<Bike> bikes;
+        private final Bike[] array;
+        private final int lo, hi, grain;
+
+        Range(List<Bike> bikes, Bike[] array, int lo, int hi, int grain) {
+            this.bikes = bikes;
+            this.array = array;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Chain compute() {
+            int n = hi - lo;
+            if(n <= grain || (n <= grain * 4 && getSurplusQueuedTaskCount() > 3)) {
+                Leaf leaf = new Leaf();
+                for(int i = lo; i < hi; i++) {
+                    RateArr r = (array != null ? array[i] : bikes.get(i)).rateBikes();
+                    leaf.lists.get(bucket(r.getRate())).add(r);
+                }
+                return new Chain(leaf, leaf);
+            }
+            int mid = (lo + hi) >>> 1;
+            Range left = new Range(bikes, array, lo, mid, grain);
+            left.fork();
+            Chain right = new Range(bikes, array, mid, hi, grain).compute();
+            Chain l = left.join();
+            l.tail.next = right.head;
+            return new Chain(l.head, right.tail);
+        }
+    }
+
+    /**
+     * Scaling of the rating from 1 to N threads on synthetic bikes (like Bike.genBikes), compared with ThreadOne.<br>
+     * Every configuration is run 3 times after System.gc() and the best time is printed.<br>
+     * Arguments: number of bikes (default 25 200 000) and maximal number of threads (default number of cores).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 25200000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        List<LSEA> profiles = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) profiles.add(new LSEA("user_" + i, "pass", "Name", "Surname", 30, 1000));
+        Random rand = new Random(1);
+        List<Bike> bikes = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) {
+            bikes.add(new Bike("Test_" + i, "Bikeos", rand.nextInt(2), (float) (rand.nextInt(1000000) / 100.0),
+                    (float) (rand.nextInt(100000) / 1000.0), profiles.get(rand.nextInt(profiles.size())),
+                    rand.nextInt(2), 1 + rand.nextInt(10), Frame.carbon, rand.nextInt(2), rand.nextInt(2), rand.nextInt(2)));
+        }
+
+        int[] sizes = new int[BUCKETS];
+        long base = Long.MAX_VALUE;
+        ThreadOne tmp = new ThreadOne();
+        for(int rep = 0; rep < 3; rep++) {
+            List<ALRates> lists = new ArrayList<>();
+            for(int b = 0; b < BUCKETS; b++) lists.add(new ALRates(new ArrayList<RateArr>()));
+            List<Thread> threads = new ArrayList<>();
+            for(int i = 0; i < tmp.getNumberThreads(); i++) {
+                threads.add(new Thread(new ThreadOne(bikes, i, lists.get(0), lists.get(1), lists.get(2), lists.get(3), lists.get(4))));
+            }
+            System.gc();
+            long start = System.nanoTime();
+            for(Thread t : threads) t.start();
+            for(Thread t : threads) t.join();
+            base = Math.min(base, System.nanoTime() - start);
+            for(int b = 0; b < BUCKETS; b++) sizes[b] = lists.get(b).getList().size();
+        }
+        System.out.println("ThreadOne x" + tmp.getNumberThreads() + ": " + base / 1000000 + " ms " + Arrays.toString(sizes));
+
+        for(int p = 1; p <= maxThreads; p = p < maxThreads && p * 2 > maxThreads ? maxThreads : p * 2) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            RatingEngine engine = new RatingEngine(pool);
+            long time = Long.MAX_VALUE;
+            for(int rep = 0; rep < 3; rep++) {
+                System.gc();
+                long start = System.nanoTime();
+                List<List<RateArr>> result = engine.rate(bikes);
+                time = Math.min(time, System.nanoTime() - start);
+                for(int b = 0; b < BUCKETS; b++) sizes[b] = result.get(b).size();
+            }
+            pool.shutdown();
+            System.out.println("RatingEngine x" + p + ": " + time / 1000000 + " ms (speedup "
+                    + String.format("%.2f", (double) base / time) + " over ThreadOne) " + Arrays.toString(sizes));
+            if(p == maxThreads) break;
+        }
+    }
+}
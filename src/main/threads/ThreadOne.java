@@ -13,7 +13,8 @@ import java.util.*;
  * This class is running the Bike method rateBikes, which is rating all of the bikes in the list of bikes offers<br>
  * Implements Runnable<br>
  * All setters and getters are automatically generated by lombok.<br>
- * Both NoArgsConstructor and AllArgsConstructor are also generated automatically.
+ * Both NoArgsConstructor and AllArgsConstructor are also generated automatically.<br>
+ * RatingEngine does the same rating on ForkJoinPool without the fixed number of threads.
  *
  * @author Patryk Dunajewski
  */
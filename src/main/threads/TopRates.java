@@ -0,0 +1,206 @@
+package main.threads;
+
+import main.lsea.Bike;
+import main.lsea.Frame;
+import main.lsea.LSEA;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Selection of K best rated bikes, used when only the best offers are needed instead of lists A-E.<br>
+ * Every thread rates its own range of the bikes into its own bounded heap (RateHeap), heaps are merged at the end,
+ * so memory is O(K * threads) instead of O(n) and RateArr is created only for the K selected bikes.<br>
+ * Bikes with equal rates are ordered by their index in the list, like stable sort of the full list would do.<br>
+ * Live keeps the best bikes up to date while offers are added and bought.
+ */
+public class TopRates {
+
+    private TopRates() {}
+
+    /**
+     * K best rated bikes, one thread per core
+     *
+     * @param bikes list with all offers of bikes
+     * @param k number of selected bikes
+     * @return K best bikes with their rates, the best first
+     */
+    public static List<RateArr> top(List<Bike> bikes, int k) throws InterruptedException {
+        return top(bikes, k, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * K best rated bikes
+     *
+     * @param bikes list with all offers of bikes
+     * @param k number of selected bikes
+     * @param threads number of threads
+     * @return K best bikes with their rates, the best first
+     */
+    public static List<RateArr> top(final List<Bike> bikes, int k, int threads) throws InterruptedException {
+        int n = bikes.size();
+        k = Math.min(k, n);
+        threads = Math.max(1, Math.min(threads, n / 4096 + 1));
+        final RateHeap[] heaps = new RateHeap[threads];
+        List<Thread> workers = new ArrayList<>();
+        for(int t = 0; t < threads; t++) {
+            final RateHeap heap = heaps[t] = new RateHeap(k);
+            final int lo = (int) ((long) n * t / threads), hi = (int) ((long) n * (t + 1) / threads);
+            workers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = lo; i < hi; i++) offer(heap, bikes.get(i), i);
+                }
+            }));
+        }
+        for(int t = 1; t < threads; t++) workers.get(t).start();
+        workers.get(0).run();
+        for(int t = 1; t < threads; t++) workers.get(t).join();
+
+        RateHeap result = heaps[0];
+        for(int t = 1; t < threads; t++) result.addAll(heaps[t]);
+        return result.toList();
+    }
+
+    /*** rating bike without RateArr and offering it to the heap*/
+    private static boolean offer(RateHeap heap, Bike b, long seq) {
+        int rate = Bike.rate(b.getPrice(), b.getWeight(), b.getGear(), b.getIs_auction(), b.getAre_lights(),
+                b.getIs_bell(), b.getAre_breaks());
+        return heap.accepts(rate, seq) && heap.offer(rate, seq, b);
+    }
+
+    /**
+     * K best rated available bikes (is_available == 1), updated while offers are added and bought.<br>
+     * New offer is compared only with the worst kept bike. When kept bike is bought the heap is marked stale and
+     * it is refilled from the list of offers the next time the best bikes are read, so full scan is done only
+     * when one of the best bikes is bought.
+     */
+    public static class Live {
+
+        /*** offers -> list with all offers of bikes, used to refill the heap*/
+        private final List<Bike> offers;
+        private final RateHeap heap;
+        /*** seq -> sequence number of the next added offer*/
+        private long seq;
+        /*** stale -> true if one of the kept bikes was bought and the heap has to be refilled*/
+        private boolean stale;
+
+        /**
+         * @param offers list with all offers of bikes (new offers are added at the end of it)
+         * @param k number of kept bikes
+         */
+        public Live(List<Bike> offers, int k) {
+            this.offers = offers;
+            this.heap = new RateHeap(k);
+            refill();
+        }
+
+        /**
+         * Has to be called after the bike is added to the list of offers
+         *
+         * @param bike new offer
+         */
+        public synchronized void added(Bike bike) {
+            if(bike.getIs_available() == 1) offer(heap, bike, seq);
+            seq++;
+        }
+
+        /**
+         * Has to be called after the bike is bought (or removed from the list of offers)
+         *
+         * @param bike bought offer
+         */
+        public synchronized void bought(Bike bike) {
+            if(heap.remove(bike)) stale = true;
+        }
+
+        /*** @return true if the heap will be refilled on the next read*/
+        public synchronized boolean isStale() {
+            return stale;
+        }
+
+        /*** @return K best available bikes with their rates, the best first*/
+        public synchronized List<RateArr> top() {
+            if(stale) refill();
+            return heap.toList();
+        }
+
+        private void refill() {
+            heap.clear();
+            int n = offers.size();
+            for(int i = 0; i < n; i++) {
+                Bike b = offers.get(i);
+                if(b.getIs_available() == 1) offer(heap, b, i);
+            }
+            seq = n;
+            stale = false;
+        }
+    }
+
+    /**
+     * Comparison of the full rating (RatingEngine and sorting of all rates) with the selection of K best bikes.<br>
+     * Arguments: number of bikes (default 10 000 000) and K (default 100).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        List<LSEA> profiles = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) profiles.add(new LSEA("user_" + i, "pass", "Name", "Surname", 30, 1000));
+        Random rand = new Random(1);
+        List<Bike> bikes = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) {
+            bikes.add(new Bike("Test_" + i, "Bikeos", rand.nextInt(2), (float) (rand.nextInt(1000000) / 100.0),
+                    (float) (rand.nextInt(100000) / 1000.0), profiles.get(rand.nextInt(profiles.size())),
+                    1, 1 + rand.nextInt(10), Frame.carbon, rand.nextInt(2), rand.nextInt(2), rand.nextInt(2)));
+        }
+
+        System.gc();
+        long start = System.nanoTime();
+        List<RateArr> all = new ArrayList<>(n);
+        for(List<RateArr> list : new RatingEngine().rate(bikes)) all.addAll(list);
+        Collections.sort(all);
+        List<RateArr> expected = all.subList(0, Math.min(k, all.size()));
+        System.out.println("rate all and sort: " + (System.nanoTime() - start) / 1000000 + " ms");
+
+        System.gc();
+        start = System.nanoTime();
+        List<RateArr> top = top(bikes, k);
+        System.out.println("top " + k + ":           " + (System.nanoTime() - start) / 1000000 + " ms, same as sort: "
+                + same(top, expected));
+
+        Live live = new Live(bikes, k);
+        int bought = 0;
+        start = System.nanoTime();
+        for(int i = 0; i < 1000; i++) {
+            Bike b = bikes.get(rand.nextInt(n));
+            if(b.getIs_available() == 1) {
+                b.setIs_available(0);
+                live.bought(b);
+                bought++;
+            }
+            Bike added = new Bike("New_" + i, "Bikeos", 0, rand.nextInt(100), rand.nextInt(10), profiles.get(0),
+                    1, 1 + rand.nextInt(10), Frame.carbon, 1, 1, 1);
+            bikes.add(added);
+            live.added(added);
+            live.top();
+        }
+        System.out.println("live: 1000 added, " + bought + " bought, " + (System.nanoTime() - start) / 1000000
+                + " ms, same as selection: " + same(live.top(), topAvailable(bikes, k)));
+    }
+
+    private static List<RateArr> topAvailable(List<Bike> bikes, int k) throws InterruptedException {
+        List<Bike> available = new ArrayList<>();
+        for(Bike b : bikes) if(b.getIs_available() == 1) available.add(b);
+        return top(available, k, 1);
+    }
+
+    private static boolean same(List<RateArr> a, List<RateArr> b) {
+        if(a.size() != b.size()) return false;
+        for(int i = 0; i < a.size(); i++) {
+            if(a.get(i).getBike() != b.get(i).getBike() || a.get(i).getRate() != b.get(i).getRate()) return false;
+        }
+        return true;
+    }
+}
@@ -46,6 +46,9 @@
             </tr>
         </c:forEach>
     </table>
+    <c:if test="${not empty nextAfter}">
+        <a href="<%=request.getContextPath()%>/MainDashboard?after=<c:out value='${nextAfter}' />">Next page</a>
+    </c:if>
 </div>
 <jsp:include page="header_footer/footer.jsp"/>
 </body>